@@ -0,0 +1,57 @@
+package com.xm.benchmark;
+
+import com.xm.data.CryptoAnalytics;
+import com.xm.data.CryptoDataSnapshot;
+import com.xm.data.TimeFrame;
+import com.xm.reader.CsvDataReader;
+import com.xm.service.AnalyticsService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.DirectFieldAccessor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AnalyticsService} over one generated symbol of M ticks spread over {@value #HISTORY_DAYS} days; the time
+ * frame sets how many of them the single pass reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AnalyticsServiceBenchmark {
+
+    private static final int HISTORY_DAYS = 400;
+
+    @Param("1000000")
+    public int ticksPerSymbol;
+
+    @Param({"ONE_MONTH", "ONE_YEAR"})
+    public TimeFrame timeFrame;
+
+    private AnalyticsService analyticsService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long stepMillis = SyntheticPriceData.stepMillis(ticksPerSymbol, HISTORY_DAYS);
+        var snapshot = new CryptoDataSnapshot(1, Instant.now(),
+                SyntheticPriceData.priceSeriesByName(1, ticksPerSymbol, stepMillis));
+        analyticsService = new AnalyticsService(new CsvDataReader() {
+            @Override
+            public CryptoDataSnapshot getSnapshot() {
+                return snapshot;
+            }
+        });
+        var fields = new DirectFieldAccessor(analyticsService);
+        fields.setPropertyValue("defaultRollingWindow", 30);
+        fields.setPropertyValue("defaultReturnPeriods", List.of("1d", "7d", "30d"));
+    }
+
+    @Benchmark
+    public CryptoAnalytics cryptoAnalytics() {
+        return analyticsService.getCryptoAnalytics(SyntheticPriceData.symbol(0), timeFrame, null, null);
+    }
+}
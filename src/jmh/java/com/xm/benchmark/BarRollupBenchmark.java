@@ -0,0 +1,102 @@
+package com.xm.benchmark;
+
+import com.xm.data.BarInterval;
+import com.xm.data.PriceSeries;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.xm.benchmark.SyntheticPriceData.DAY;
+import static com.xm.benchmark.SyntheticPriceData.MINUTE;
+
+/**
+ * OHLC bars of a window ending at the newest tick of a three year, minute level series. The rollup variant reads one
+ * hour or day bar per bar and grows with the number of bars; the scan variant reads every tick of the window.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BarRollupBenchmark {
+
+    private static final int HISTORY_DAYS = 3 * 365;
+
+    @Param({"1", "30", "365", "1095"})
+    public int windowDays;
+
+    @Param({"ONE_HOUR", "ONE_DAY"})
+    public BarInterval interval;
+
+    private PriceSeries window;
+    private PriceSeries ticksOnly;
+
+    @Setup
+    public void setUp() {
+        PriceSeries series = SyntheticPriceData.series("BTC", (int) (HISTORY_DAYS * DAY / MINUTE), MINUTE, 1);
+        long to = series.getNewestTimestamp();
+        // Start mid bar, so the first bar is cut by the window
+        window = series.window(to - windowDays * DAY + 7 * MINUTE, to);
+        ticksOnly = new TicksOnly(window);
+    }
+
+    @Benchmark
+    public void rollups(Blackhole blackhole) {
+        window.forEachBar(interval, (barStart, open, high, low, close) -> {
+            blackhole.consume(high);
+            blackhole.consume(low);
+        });
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        ticksOnly.forEachBar(interval, (barStart, open, high, low, close) -> {
+            blackhole.consume(high);
+            blackhole.consume(low);
+        });
+    }
+
+    /**
+     * The same ticks without the rollups, so bars are built by the default scan of {@link PriceSeries}.
+     */
+    private static final class TicksOnly implements PriceSeries {
+
+        private final PriceSeries ticks;
+
+        TicksOnly(PriceSeries ticks) {
+            this.ticks = ticks;
+        }
+
+        @Override
+        public String getSymbol() {
+            return ticks.getSymbol();
+        }
+
+        @Override
+        public int size() {
+            return ticks.size();
+        }
+
+        @Override
+        public long getTimestamp(int index) {
+            return ticks.getTimestamp(index);
+        }
+
+        @Override
+        public long getUnscaledPrice(int index) {
+            return ticks.getUnscaledPrice(index);
+        }
+
+        @Override
+        public int getScale() {
+            return ticks.getScale();
+        }
+
+        @Override
+        public PriceSeries subSeries(int fromIndex, int toIndex) {
+            return new TicksOnly(ticks.subSeries(fromIndex, toIndex));
+        }
+    }
+}
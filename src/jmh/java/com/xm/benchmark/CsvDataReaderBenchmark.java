@@ -0,0 +1,99 @@
+package com.xm.benchmark;
+
+import com.xm.data.CryptoDataSnapshot;
+import com.xm.reader.CsvDataReader;
+import com.xm.reader.CsvReaderMode;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.DirectFieldAccessor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CsvDataReader} ingestion over a folder of generated files: a full reload of every file, and the incremental
+ * path that parses only rows appended since the last read. The binary snapshot file is disabled so every reload
+ * parses the CSV files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CsvDataReaderBenchmark {
+
+    private static final int HISTORY_DAYS = 365;
+
+    @Param({"STREAMING", "MAPPED"})
+    public CsvReaderMode mode;
+
+    @Param("10")
+    public int symbols;
+
+    @Param("1000000")
+    public long ticksPerSymbol;
+
+    private Path folder;
+    private long stepMillis;
+    private CsvDataReader csvDataReader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stepMillis = SyntheticPriceData.stepMillis(ticksPerSymbol, HISTORY_DAYS);
+        folder = SyntheticPriceData.writeCsvFolder(symbols, ticksPerSymbol, stepMillis);
+        csvDataReader = new CsvDataReader();
+        var fields = new DirectFieldAccessor(csvDataReader);
+        fields.setPropertyValue("csvFolderPath", folder.toString());
+        fields.setPropertyValue("csvReaderMode", mode);
+        csvDataReader.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticPriceData.deleteFolder(folder);
+    }
+
+    @Benchmark
+    public CryptoDataSnapshot fullReload() {
+        csvDataReader.refreshCryptoDataCache();
+        return csvDataReader.getSnapshot();
+    }
+
+    @Benchmark
+    public CryptoDataSnapshot ingestAppendedRows(AppendedRows appendedRows) {
+        csvDataReader.ingestChangedFiles(appendedRows.files);
+        return csvDataReader.getSnapshot();
+    }
+
+    /**
+     * Appends {@code rowsPerFile} rows to every file before each ingestion.
+     */
+    @State(Scope.Benchmark)
+    public static class AppendedRows {
+
+        @Param("1000")
+        public long rowsPerFile;
+
+        private final List<Path> files = new ArrayList<>();
+        private long nextTimestamp;
+
+        @Setup(Level.Invocation)
+        public void append(CsvDataReaderBenchmark benchmark) throws IOException {
+            if (nextTimestamp == 0) {
+                nextTimestamp = SyntheticPriceData.START_TIMESTAMP + benchmark.ticksPerSymbol * benchmark.stepMillis;
+            }
+            files.clear();
+            for (int i = 0; i < benchmark.symbols; i++) {
+                String symbol = SyntheticPriceData.symbol(i);
+                Path file = SyntheticPriceData.csvFile(benchmark.folder, symbol);
+                SyntheticPriceData.writeCsvFile(file, symbol, nextTimestamp, rowsPerFile, benchmark.stepMillis, i,
+                        false);
+                files.add(file);
+            }
+            nextTimestamp += rowsPerFile * benchmark.stepMillis;
+        }
+    }
+}
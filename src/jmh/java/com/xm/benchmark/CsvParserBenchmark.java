@@ -0,0 +1,48 @@
+package com.xm.benchmark;
+
+import com.xm.data.PriceSeries;
+import com.xm.reader.CsvReaderMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of each {@link CsvReaderMode} on one generated minute-level price file. Run with {@code -prof gc} to
+ * compare allocation rate and GC pressure, and raise {@code rows} for multi-GB inputs (about 30 bytes per row).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CsvParserBenchmark {
+
+    @Param({"COMMONS_CSV", "STREAMING", "MAPPED"})
+    public CsvReaderMode mode;
+
+    @Param("1000000")
+    public long rows;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("BTC", "_values.csv");
+        SyntheticPriceData.writeCsvFile(file, "BTC", SyntheticPriceData.START_TIMESTAMP, rows,
+                SyntheticPriceData.MINUTE, 1, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public PriceSeries parse() throws IOException {
+        return mode.getParser().parse("BTC", file);
+    }
+}
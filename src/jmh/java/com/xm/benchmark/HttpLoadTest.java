@@ -0,0 +1,202 @@
+package com.xm.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load against a running instance: {@code concurrency} clients send GET requests to the given paths
+ * in turn, each as soon as its previous one completed, and throughput and latency percentiles are reported after a
+ * warmup. Optional slow clients download a streamed export while reading only a few bytes per second, holding the
+ * server side of their response blocked on the socket the way dashboards behind slow links do.
+ * <p>
+ * Run the application once per {@code web.virtual-threads.enabled} setting and compare the reports, e.g.
+ * {@code ./gradlew loadTest -PloadTestArgs="--concurrency 256 --slow-clients 200"}.
+ */
+public class HttpLoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "base-url", "http://localhost:8080",
+            "paths", "/crypto/statistics,/crypto/statistics/BTC,/crypto/highest-normalized-range?date=2022-01-15",
+            "concurrency", "64",
+            "warmup-seconds", "5",
+            "duration-seconds", "30",
+            "slow-clients", "0",
+            "slow-path", "/crypto/prices/BTC",
+            "slow-bytes-per-second", "1024");
+
+    private final URI baseUri;
+    private final List<String> paths;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private final int slowClients;
+    private final String slowPath;
+    private final int slowBytesPerSecond;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile boolean measuring;
+    private volatile boolean stopped;
+
+    HttpLoadTest(Map<String, String> options) {
+        this.baseUri = URI.create(options.get("base-url"));
+        this.paths = List.of(options.get("paths").split(","));
+        this.concurrency = Integer.parseInt(options.get("concurrency"));
+        this.warmup = Duration.ofSeconds(Long.parseLong(options.get("warmup-seconds")));
+        this.duration = Duration.ofSeconds(Long.parseLong(options.get("duration-seconds")));
+        this.slowClients = Integer.parseInt(options.get("slow-clients"));
+        this.slowPath = options.get("slow-path");
+        this.slowBytesPerSecond = Integer.parseInt(options.get("slow-bytes-per-second"));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String name = args[i].replaceFirst("^--", "");
+            if (!DEFAULTS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option " + args[i] + ", expected one of " + DEFAULTS.keySet());
+            }
+            options.put(name, args[i + 1]);
+        }
+        new HttpLoadTest(options).run();
+    }
+
+    void run() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < slowClients; i++) {
+            threads.add(start("slow-client-" + i, this::readSlowly));
+        }
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            var client = new Client(i);
+            clients.add(client);
+            threads.add(start("client-" + i, client));
+        }
+
+        Thread.sleep(warmup.toMillis());
+        errors.set(0);
+        measuring = true;
+        long started = System.nanoTime();
+        Thread.sleep(duration.toMillis());
+        measuring = false;
+        double seconds = (System.nanoTime() - started) / 1e9;
+        stopped = true;
+        for (Thread thread : threads) {
+            thread.interrupt();
+            thread.join(5_000);
+        }
+
+        long[] latencies = clients.stream()
+                .flatMapToLong(client -> Arrays.stream(client.latencies, 0, client.count))
+                .sorted()
+                .toArray();
+        System.out.printf("%d clients, %d slow clients, %.1f s against %s%n", concurrency, slowClients, seconds, baseUri);
+        System.out.printf("requests    %d (%d errors)%n", latencies.length, errors.get());
+        System.out.printf("throughput  %.1f req/s%n", latencies.length / seconds);
+        System.out.printf("latency ms  p50 %.2f  p90 %.2f  p99 %.2f  max %.2f%n", percentile(latencies, 0.50),
+                percentile(latencies, 0.90), percentile(latencies, 0.99), percentile(latencies, 1.0));
+    }
+
+    private static Thread start(String name, Runnable runnable) {
+        var thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * Keeps one request in flight to the next path, recording the latency of successful responses.
+     */
+    private class Client implements Runnable {
+        private final int first;
+        private long[] latencies = new long[1 << 16];
+        private int count;
+
+        Client(int first) {
+            this.first = first;
+        }
+
+        @Override
+        public void run() {
+            List<HttpRequest> requests = new ArrayList<>();
+            paths.forEach(path -> requests.add(HttpRequest.newBuilder(baseUri.resolve(path))
+                    .timeout(Duration.ofSeconds(30))
+                    .build()));
+            for (int i = first; !stopped; i++) {
+                long started = System.nanoTime();
+                try {
+                    HttpResponse<byte[]> response = httpClient.send(requests.get(i % requests.size()),
+                            HttpResponse.BodyHandlers.ofByteArray());
+                    long latency = System.nanoTime() - started;
+                    if (response.statusCode() != 200) {
+                        errors.incrementAndGet();
+                    } else if (measuring) {
+                        record(latency);
+                    }
+                } catch (IOException e) {
+                    errors.incrementAndGet();
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private void record(long latency) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+    }
+
+    /**
+     * Downloads the slow path over a raw socket with a small receive buffer, reading {@code slowBytesPerSecond} in
+     * ten slices per second, and starts over when the response is complete.
+     */
+    private void readSlowly() {
+        byte[] buffer = new byte[Math.max(1, slowBytesPerSecond / 10)];
+        String request = "GET " + slowPath + " HTTP/1.1\r\nHost: " + baseUri.getHost() + "\r\nConnection: close\r\n\r\n";
+        while (!stopped) {
+            try (var socket = new Socket()) {
+                socket.setReceiveBufferSize(buffer.length);
+                socket.connect(new InetSocketAddress(baseUri.getHost(), baseUri.getPort()), 5_000);
+                OutputStream outputStream = socket.getOutputStream();
+                outputStream.write(request.getBytes(StandardCharsets.US_ASCII));
+                outputStream.flush();
+                InputStream inputStream = socket.getInputStream();
+                while (!stopped && inputStream.read(buffer) >= 0) {
+                    Thread.sleep(100);
+                }
+            } catch (IOException e) {
+                errors.incrementAndGet();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.xm.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes synthetic prices into a running instance as fast as it takes them, then waits until the instance has applied
+ * them all, and reports the send rate and the end to end rate up to the last applied tick. {@code concurrency}
+ * producers each own a share of the {@code symbols} and send their ticks with increasing timestamps, either as NDJSON
+ * batches of {@code batch-size} ticks to {@code POST /crypto/prices} or as one continuous NDJSON stream per producer
+ * to the socket listener ({@code ingest.socket.enabled=true}).
+ * <p>
+ * Applied ticks are read from the {@code crypto.ingest.applied} metric, e.g.
+ * {@code ./gradlew ingestLoadTest -PingestLoadTestArgs="--transport socket --concurrency 4"}.
+ */
+public class PriceIngestLoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "base-url", "http://localhost:8080",
+            "transport", "http",
+            "socket-port", "9091",
+            "symbols", "100",
+            "batch-size", "5000",
+            "concurrency", "4",
+            "duration-seconds", "10");
+
+    private final URI baseUri;
+    private final String transport;
+    private final int socketPort;
+    private final int symbols;
+    private final int batchSize;
+    private final int concurrency;
+    private final Duration duration;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile boolean stopped;
+
+    PriceIngestLoadTest(Map<String, String> options) {
+        this.baseUri = URI.create(options.get("base-url"));
+        this.transport = options.get("transport");
+        this.socketPort = Integer.parseInt(options.get("socket-port"));
+        this.symbols = Integer.parseInt(options.get("symbols"));
+        this.batchSize = Integer.parseInt(options.get("batch-size"));
+        this.concurrency = Integer.parseInt(options.get("concurrency"));
+        this.duration = Duration.ofSeconds(Long.parseLong(options.get("duration-seconds")));
+        if (!transport.equals("http") && !transport.equals("socket")) {
+            throw new IllegalArgumentException("Unknown transport " + transport + ", expected http or socket");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String name = args[i].replaceFirst("^--", "");
+            if (!DEFAULTS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option " + args[i] + ", expected one of " + DEFAULTS.keySet());
+            }
+            options.put(name, args[i + 1]);
+        }
+        new PriceIngestLoadTest(options).run();
+    }
+
+    void run() throws IOException, InterruptedException {
+        double appliedBefore = appliedTicks();
+        List<Thread> threads = new ArrayList<>();
+        long started = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            var producer = new Producer(i);
+            var thread = new Thread(producer, "producer-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        Thread.sleep(duration.toMillis());
+        stopped = true;
+        for (Thread thread : threads) {
+            thread.join(30_000);
+        }
+        double sendSeconds = (System.nanoTime() - started) / 1e9;
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+        double applied;
+        while ((applied = appliedTicks() - appliedBefore) < sent.get() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        double appliedSeconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.printf("%d producers over %s, %d symbols, %.1f s against %s%n", concurrency, transport, symbols,
+                sendSeconds, baseUri);
+        System.out.printf("sent        %d ticks (%d rejected with 503, %d errors)%n", sent.get(), rejected.get(),
+                errors.get());
+        System.out.printf("send rate   %.0f ticks/s%n", sent.get() / sendSeconds);
+        System.out.printf("applied     %.0f ticks, %.0f ticks/s end to end%n", applied, applied / appliedSeconds);
+    }
+
+    private double appliedTicks() throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(
+                        baseUri.resolve("/actuator/metrics/crypto.ingest.applied?tag=outcome:applied")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 404) {
+            return 0;
+        }
+        return objectMapper.readTree(response.body()).get("measurements").get(0).get("value").asDouble();
+    }
+
+    /**
+     * Random walk per owned symbol, one millisecond between consecutive ticks of a symbol.
+     */
+    private class Producer implements Runnable {
+        private final List<String> ownSymbols = new ArrayList<>();
+        private final long[] timestamps;
+        private final long[] prices;
+        private final Random random;
+        private final StringBuilder line = new StringBuilder(96);
+        private int next;
+
+        Producer(int id) {
+            for (int i = id; i < symbols; i += concurrency) {
+                ownSymbols.add("LOAD" + i);
+            }
+            this.timestamps = new long[ownSymbols.size()];
+            this.prices = new long[ownSymbols.size()];
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < timestamps.length; i++) {
+                timestamps[i] = now;
+                prices[i] = 4_000_000;
+            }
+            this.random = new Random(id);
+        }
+
+        @Override
+        public void run() {
+            if (ownSymbols.isEmpty()) {
+                return;
+            }
+            try {
+                if (transport.equals("socket")) {
+                    stream();
+                } else {
+                    post();
+                }
+            } catch (IOException e) {
+                errors.incrementAndGet();
+                e.printStackTrace();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void stream() throws IOException {
+            try (var socket = new Socket()) {
+                socket.connect(new InetSocketAddress(baseUri.getHost(), socketPort), 5_000);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                        StandardCharsets.UTF_8), 64 * 1024);
+                while (!stopped) {
+                    for (int i = 0; i < batchSize; i++) {
+                        writer.append(nextTick());
+                    }
+                    sent.addAndGet(batchSize);
+                }
+                writer.flush();
+            }
+        }
+
+        private void post() throws IOException, InterruptedException {
+            var body = new StringBuilder(batchSize * 80);
+            while (!stopped) {
+                body.setLength(0);
+                for (int i = 0; i < batchSize; i++) {
+                    body.append(nextTick());
+                }
+                HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(baseUri.resolve("/crypto/prices"))
+                                .header("Content-Type", "application/x-ndjson")
+                                .timeout(Duration.ofSeconds(30))
+                                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                                .build(),
+                        HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 202) {
+                    sent.addAndGet(objectMapper.readTree(response.body()).get("accepted").asLong());
+                } else if (response.statusCode() == 503) {
+                    // The ticks before the full buffer were taken, their count ends the error message
+                    String message = objectMapper.readTree(response.body()).get("message").asText();
+                    long accepted = Long.parseLong(message.replaceAll(".*\\(accepted (\\d+) ticks before\\)$", "$1"));
+                    sent.addAndGet(accepted);
+                    rejected.addAndGet(batchSize - accepted);
+                } else {
+                    errors.incrementAndGet();
+                }
+            }
+        }
+
+        private CharSequence nextTick() {
+            int symbol = next;
+            next = (next + 1) % ownSymbols.size();
+            timestamps[symbol]++;
+            prices[symbol] = Math.max(1, prices[symbol] + random.nextInt(201) - 100);
+            line.setLength(0);
+            line.append("{\"timestamp\":").append(timestamps[symbol])
+                    .append(",\"symbol\":\"").append(ownSymbols.get(symbol))
+                    .append("\",\"price\":").append(prices[symbol] / 100).append('.');
+            long cents = prices[symbol] % 100;
+            if (cents < 10) {
+                line.append('0');
+            }
+            return line.append(cents).append("}\n");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.xm.benchmark;
+
+import com.xm.data.PriceSeries;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.xm.benchmark.SyntheticPriceData.DAY;
+import static com.xm.benchmark.SyntheticPriceData.MINUTE;
+
+/**
+ * Min/max/oldest/newest of a window ending at the newest tick of a three year, minute level series. The indexed
+ * variant should stay flat as the window grows, the scan variant grows linearly with it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RangeStatisticsBenchmark {
+
+    private static final int HISTORY_DAYS = 3 * 365;
+
+    @Param({"1", "30", "365", "1095"})
+    public int windowDays;
+
+    private PriceSeries series;
+    private long from;
+    private long to;
+
+    @Setup
+    public void setUp() {
+        series = SyntheticPriceData.series("BTC", (int) (HISTORY_DAYS * DAY / MINUTE), MINUTE, 1);
+        to = series.getNewestTimestamp();
+        from = to - windowDays * DAY + 1;
+    }
+
+    @Benchmark
+    public void indexed(Blackhole blackhole) {
+        PriceSeries window = series.window(from, to);
+        blackhole.consume(window.getMinUnscaledPrice());
+        blackhole.consume(window.getMaxUnscaledPrice());
+        blackhole.consume(window.getUnscaledPrice(0));
+        blackhole.consume(window.getUnscaledPrice(window.size() - 1));
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        PriceSeries window = series.window(from, to);
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < window.size(); i++) {
+            long price = window.getUnscaledPrice(i);
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+        }
+        blackhole.consume(min);
+        blackhole.consume(max);
+        blackhole.consume(window.getUnscaledPrice(0));
+        blackhole.consume(window.getUnscaledPrice(window.size() - 1));
+    }
+}
@@ -0,0 +1,133 @@
+package com.xm.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xm.data.CryptoDataSnapshot;
+import com.xm.data.CryptoStatistics;
+import com.xm.data.DailyBars;
+import com.xm.data.PrecomputedJson;
+import com.xm.data.PriceSeries;
+import com.xm.data.TimeFrame;
+import com.xm.reader.CsvDataReader;
+import com.xm.service.RecommendationService;
+import com.xm.service.StatisticsCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RecommendationService} endpoints over N generated symbols of M ticks spread over {@value #HISTORY_DAYS}
+ * days. {@code allCryptoStatisticsAfterReload} publishes a new data version before every call, so it measures the
+ * statistics rebuild that follows each reload instead of the cached ranking, and {@code allCryptoStatisticsJson}
+ * returns the ranking body serialized once per data version. Statistics by name come from the
+ * statistics cache after the first call of each time frame; the top {@value #TOP} of a time frame are selected from
+ * every symbol on each call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RecommendationServiceBenchmark {
+
+    private static final int HISTORY_DAYS = 400;
+    private static final int LOOKUP_DAYS = 1024;
+    private static final int TOP = 20;
+
+    @Param({"10", "100"})
+    public int symbols;
+
+    @Param("100000")
+    public int ticksPerSymbol;
+
+    private Map<String, PriceSeries> priceSeriesByName;
+    private PriceSeries trimmedFirstSeries;
+    private volatile CryptoDataSnapshot snapshot;
+    private RecommendationService recommendationService;
+    private LocalDate[] lookupDays;
+    private int nextLookupDay;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long stepMillis = SyntheticPriceData.stepMillis(ticksPerSymbol, HISTORY_DAYS);
+        priceSeriesByName = SyntheticPriceData.priceSeriesByName(symbols, ticksPerSymbol, stepMillis);
+        PriceSeries firstSeries = priceSeriesByName.get(SyntheticPriceData.symbol(0));
+        trimmedFirstSeries = firstSeries.subSeries(1, firstSeries.size());
+        snapshot = new CryptoDataSnapshot(1, Instant.now(), priceSeriesByName);
+        recommendationService = new RecommendationService(new CsvDataReader() {
+            @Override
+            public CryptoDataSnapshot getSnapshot() {
+                return snapshot;
+            }
+        }, new StatisticsCache(new CaffeineCacheManager(StatisticsCache.CACHE_NAME)), new SimpleMeterRegistry(),
+                new ObjectMapper());
+
+        Random random = new Random(1);
+        long firstDay = DailyBars.epochDay(SyntheticPriceData.START_TIMESTAMP);
+        lookupDays = new LocalDate[LOOKUP_DAYS];
+        for (int i = 0; i < LOOKUP_DAYS; i++) {
+            lookupDays[i] = LocalDate.ofEpochDay(firstDay + random.nextInt(HISTORY_DAYS));
+        }
+    }
+
+    @Benchmark
+    public List<CryptoStatistics> allCryptoStatistics() {
+        return recommendationService.getAllCryptoStatistics();
+    }
+
+    @Benchmark
+    public PrecomputedJson allCryptoStatisticsJson() {
+        return recommendationService.getAllCryptoStatisticsJson();
+    }
+
+    @Benchmark
+    public List<CryptoStatistics> allCryptoStatisticsAfterReload() {
+        snapshot = new CryptoDataSnapshot(snapshot.getVersion() + 1, Instant.now(), priceSeriesByName);
+        return recommendationService.getAllCryptoStatistics();
+    }
+
+    /**
+     * Replaces one series per call, alternating between the full and a trimmed first series, so only one series is
+     * recomputed on top of the previous statistics.
+     */
+    @Benchmark
+    public List<CryptoStatistics> allCryptoStatisticsAfterSingleSeriesUpdate() {
+        String cryptoName = SyntheticPriceData.symbol(0);
+        Map<String, PriceSeries> updated = new HashMap<>(snapshot.getPriceSeriesByName());
+        PriceSeries firstSeries = priceSeriesByName.get(cryptoName);
+        updated.put(cryptoName, updated.get(cryptoName) == firstSeries ? trimmedFirstSeries : firstSeries);
+        snapshot = snapshot.next(Instant.now(), updated);
+        return recommendationService.getAllCryptoStatistics();
+    }
+
+    @Benchmark
+    public CryptoStatistics cryptoStatisticsByName(TimeFrameParam timeFrameParam) {
+        return recommendationService.getCryptoStatisticsByName(SyntheticPriceData.symbol(0), timeFrameParam.timeFrame);
+    }
+
+    @Benchmark
+    public List<CryptoStatistics> topCryptoStatisticsByTimeFrame(TimeFrameParam timeFrameParam) {
+        return recommendationService.getTopCryptoStatistics(TOP, timeFrameParam.timeFrame);
+    }
+
+    @Benchmark
+    public CryptoStatistics highestNormalizedRangeCryptoByDay() {
+        LocalDate day = lookupDays[nextLookupDay++ & (LOOKUP_DAYS - 1)];
+        return recommendationService.getHighestNormalizedRangeCryptoByDay(day);
+    }
+
+    @State(Scope.Benchmark)
+    public static class TimeFrameParam {
+
+        @Param({"ONE_MONTH", "SIX_MONTHS", "ONE_YEAR"})
+        public TimeFrame timeFrame;
+    }
+}
@@ -0,0 +1,89 @@
+package com.xm.benchmark;
+
+import com.xm.data.PriceSeries;
+import com.xm.store.SegmentStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.xm.benchmark.SyntheticPriceData.DAY;
+import static com.xm.benchmark.SyntheticPriceData.MINUTE;
+
+/**
+ * Min/max/oldest/newest of windows at random positions of a three year, minute level series, held on the heap or
+ * read from a {@link SegmentStore} through a page cache much smaller than the series. The store variant should stay
+ * flat as the window grows, as only the pages at the edges of a window are read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SegmentStoreBenchmark {
+
+    private static final int HISTORY_DAYS = 3 * 365;
+    private static final int WINDOWS = 1024;
+
+    @Param({"1", "30", "365"})
+    public int windowDays;
+
+    @Param({"1024", "4096"})
+    public int pageTicks;
+
+    @Param("64")
+    public int maxCachedPages;
+
+    private PriceSeries heapSeries;
+    private PriceSeries storedSeries;
+    private Path storeFolder;
+    private SegmentStore segmentStore;
+    private long[] windowStarts;
+    private int nextWindow;
+
+    @Setup
+    public void setUp() throws IOException {
+        heapSeries = SyntheticPriceData.series("BTC", (int) (HISTORY_DAYS * DAY / MINUTE), MINUTE, 1);
+        storeFolder = Files.createTempDirectory("segment-store-benchmark");
+        segmentStore = new SegmentStore(storeFolder, pageTicks, 1 << 20, maxCachedPages);
+        storedSeries = segmentStore.append("BTC", heapSeries);
+
+        Random random = new Random(1);
+        long latestStart = heapSeries.getNewestTimestamp() - windowDays * DAY;
+        windowStarts = new long[WINDOWS];
+        for (int i = 0; i < WINDOWS; i++) {
+            windowStarts[i] = heapSeries.getOldestTimestamp()
+                    + (long) (random.nextDouble() * (latestStart - heapSeries.getOldestTimestamp()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        segmentStore.close();
+        SyntheticPriceData.deleteFolder(storeFolder);
+    }
+
+    @Benchmark
+    public void heap(Blackhole blackhole) {
+        windowStatistics(heapSeries, blackhole);
+    }
+
+    @Benchmark
+    public void store(Blackhole blackhole) {
+        windowStatistics(storedSeries, blackhole);
+    }
+
+    private void windowStatistics(PriceSeries series, Blackhole blackhole) {
+        long from = windowStarts[nextWindow++ & (WINDOWS - 1)];
+        PriceSeries window = series.window(from, from + windowDays * DAY - 1);
+        blackhole.consume(window.getMinUnscaledPrice());
+        blackhole.consume(window.getMaxUnscaledPrice());
+        blackhole.consume(window.getUnscaledPrice(0));
+        blackhole.consume(window.getUnscaledPrice(window.size() - 1));
+    }
+}
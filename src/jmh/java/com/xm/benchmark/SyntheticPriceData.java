@@ -0,0 +1,116 @@
+package com.xm.benchmark;
+
+import com.xm.data.ColumnarPriceSeries;
+import com.xm.data.PriceSeries;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Deterministic price data for the benchmarks: N symbols times M ticks of a random walk with two decimals, either in
+ * memory or as {@code <SYMBOL>_values.csv} files in the layout the reader expects. The same seed gives the same data,
+ * so results stay comparable between runs.
+ */
+public final class SyntheticPriceData {
+
+    public static final long START_TIMESTAMP = 1_577_836_800_000L;
+    public static final long MINUTE = 60_000L;
+    public static final long DAY = 24 * 60 * MINUTE;
+
+    private static final long INITIAL_PRICE = 4_000_000L;
+    private static final int SCALE = 2;
+
+    private SyntheticPriceData() {
+    }
+
+    public static String symbol(int index) {
+        return "SYM" + index;
+    }
+
+    /**
+     * Interval between ticks that spreads {@code ticks} ticks over {@code days} days.
+     */
+    public static long stepMillis(long ticks, int days) {
+        return Math.max(1L, days * DAY / Math.max(1L, ticks));
+    }
+
+    public static PriceSeries series(String symbol, int ticks, long stepMillis, long seed) {
+        var random = new Random(seed);
+        var builder = ColumnarPriceSeries.builder(symbol);
+        long price = INITIAL_PRICE;
+        for (int i = 0; i < ticks; i++) {
+            price = nextPrice(random, price);
+            builder.add(START_TIMESTAMP + i * stepMillis, price, SCALE);
+        }
+        return builder.build();
+    }
+
+    public static Map<String, PriceSeries> priceSeriesByName(int symbols, int ticks, long stepMillis) {
+        Map<String, PriceSeries> priceSeriesByName = new HashMap<>();
+        for (int i = 0; i < symbols; i++) {
+            priceSeriesByName.put(symbol(i), series(symbol(i), ticks, stepMillis, i));
+        }
+        return priceSeriesByName;
+    }
+
+    /**
+     * Writes one CSV file per symbol into a new temporary folder, about 30 bytes per tick.
+     */
+    public static Path writeCsvFolder(int symbols, long ticks, long stepMillis) throws IOException {
+        Path folder = Files.createTempDirectory("prices");
+        for (int i = 0; i < symbols; i++) {
+            writeCsvFile(csvFile(folder, symbol(i)), symbol(i), START_TIMESTAMP, ticks, stepMillis, i, true);
+        }
+        return folder;
+    }
+
+    public static Path csvFile(Path folder, String symbol) {
+        return folder.resolve(symbol + "_values.csv");
+    }
+
+    /**
+     * Writes {@code ticks} rows starting at {@code fromTimestamp}, appending to the file when it already exists.
+     */
+    public static void writeCsvFile(Path file, String symbol, long fromTimestamp, long ticks, long stepMillis,
+                                    long seed, boolean withHeader) throws IOException {
+        var random = new Random(seed);
+        long price = INITIAL_PRICE;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)) {
+            if (withHeader) {
+                writer.write("timestamp,symbol,price\n");
+            }
+            for (long i = 0; i < ticks; i++) {
+                price = nextPrice(random, price);
+                writer.write(Long.toString(fromTimestamp + i * stepMillis));
+                writer.write(',');
+                writer.write(symbol);
+                writer.write(',');
+                writer.write(Long.toString(price / 100));
+                writer.write('.');
+                writer.write(Long.toString(100 + price % 100).substring(1));
+                writer.write('\n');
+            }
+        }
+    }
+
+    public static void deleteFolder(Path folder) throws IOException {
+        try (Stream<Path> walk = Files.walk(folder)) {
+            for (Path path : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static long nextPrice(Random random, long price) {
+        return Math.max(1L, price + random.nextInt(2001) - 1000);
+    }
+}
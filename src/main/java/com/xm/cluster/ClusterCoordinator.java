@@ -0,0 +1,186 @@
+package com.xm.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.xm.data.CryptoStatistics;
+import com.xm.data.TimeFrame;
+import com.xm.exception.ShardUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.xm.data.CryptoStatistics.RANKING_ORDER;
+
+/**
+ * Answers the ranking and the daily leader of the whole cluster by scatter-gather: a request goes to every node of the
+ * ring at once, each node answers from its own cryptos, and the answers are merged. The ranking of a node is sorted,
+ * so the top {@code limit} of the cluster is a k-way merge of the top {@code limit} of every node, and the leader of a
+ * day is the best of the node leaders. A node that fails, or does not answer within
+ * {@code cluster.request-timeout-millis}, fails the request rather than silently leaving its cryptos out.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "cluster.enabled", havingValue = "true")
+public class ClusterCoordinator {
+
+    private final List<URI> nodes;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private final ObjectReader rankingReader;
+    private final ObjectReader statisticsReader;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${cluster.request-timeout-millis:2000}")
+    private long requestTimeoutMillis = 2000;
+
+    public ClusterCoordinator(SymbolPartition symbolPartition, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.nodes = symbolPartition.getRing().getNodes().stream().map(URI::create).collect(Collectors.toList());
+        this.rankingReader = objectMapper.readerFor(new TypeReference<List<CryptoStatistics>>() {
+        });
+        this.statisticsReader = objectMapper.readerFor(CryptoStatistics.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * The first {@code limit} cryptos of the cluster, all of them when {@code null}, ranked over their whole history,
+     * a time frame or a window the way {@code GET /crypto/statistics} ranks those of one node.
+     */
+    public List<CryptoStatistics> getTopCryptoStatistics(Integer limit, TimeFrame timeFrame, Long from, Long to) {
+        var query = new StringJoiner("&", "?", "").setEmptyValue("");
+        addParameter(query, "limit", limit);
+        addParameter(query, "timeFrame", timeFrame);
+        addParameter(query, "from", from);
+        addParameter(query, "to", to);
+        List<List<CryptoStatistics>> rankings = scatter("statistics", "/crypto/statistics" + query, rankingReader);
+        return merge(rankings, limit != null ? limit : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Crypto of the cluster with the highest normalized range over the given UTC day, {@code null} when no node has
+     * ticks on that day.
+     */
+    public CryptoStatistics getHighestNormalizedRangeCryptoByDay(LocalDate day) {
+        List<CryptoStatistics> leaders = scatter("highest-normalized-range",
+                "/crypto/highest-normalized-range?date=" + day, statisticsReader);
+        return leaders.stream().filter(Objects::nonNull).min(RANKING_ORDER).orElse(null);
+    }
+
+    /**
+     * Merges rankings sorted by {@link CryptoStatistics#RANKING_ORDER} into their first {@code limit} entries, reading
+     * no more than {@code limit} entries in total.
+     */
+    static List<CryptoStatistics> merge(List<List<CryptoStatistics>> rankings, int limit) {
+        // Position in each ranking, the ranking with the best next entry first
+        PriorityQueue<int[]> cursors = new PriorityQueue<>((a, b) -> RANKING_ORDER.compare(
+                rankings.get(a[0]).get(a[1]), rankings.get(b[0]).get(b[1])));
+        for (int i = 0; i < rankings.size(); i++) {
+            if (rankings.get(i) != null && !rankings.get(i).isEmpty()) {
+                cursors.add(new int[]{i, 0});
+            }
+        }
+        List<CryptoStatistics> merged = new ArrayList<>();
+        while (merged.size() < limit && !cursors.isEmpty()) {
+            int[] cursor = cursors.poll();
+            List<CryptoStatistics> ranking = rankings.get(cursor[0]);
+            merged.add(ranking.get(cursor[1]));
+            if (++cursor[1] < ranking.size()) {
+                cursors.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Sends the request to every node at once and returns the answers in node order; a 404 answer is {@code null}.
+     */
+    private <T> List<T> scatter(String operation, String pathAndQuery, ObjectReader reader) {
+        long started = System.nanoTime();
+        String outcome = "failure";
+        try {
+            List<CompletableFuture<T>> responses = new ArrayList<>(nodes.size());
+            for (URI node : nodes) {
+                var request = HttpRequest.newBuilder(join(node, pathAndQuery))
+                        .timeout(Duration.ofMillis(requestTimeoutMillis))
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                        .GET()
+                        .build();
+                responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                        .thenApply(response -> read(response, reader)));
+            }
+            List<T> results = new ArrayList<>(nodes.size());
+            for (int i = 0; i < nodes.size(); i++) {
+                try {
+                    results.add(responses.get(i).join());
+                } catch (CompletionException e) {
+                    log.warn("Node {} failed to answer {}: {}", nodes.get(i), pathAndQuery, e.getCause().toString());
+                    throw new ShardUnavailableException("Node " + nodes.get(i) + " did not answer: "
+                            + e.getCause().toString(), e.getCause());
+                }
+            }
+            outcome = "success";
+            return results;
+        } finally {
+            Timer.builder("crypto.cluster.scatter")
+                    .description("Scatter-gather requests to every node of the cluster")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * The node URL followed by the request path, keeping any path prefix of the node, which
+     * {@link URI#resolve(String)} would drop for an absolute path.
+     */
+    static URI join(URI node, String pathAndQuery) {
+        String base = node.toString();
+        return URI.create((base.endsWith("/") ? base.substring(0, base.length() - 1) : base) + pathAndQuery);
+    }
+
+    private static <T> T read(HttpResponse<byte[]> response, ObjectReader reader) {
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + " from " + response.uri());
+        }
+        try {
+            return reader.readValue(response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable answer from " + response.uri(), e);
+        }
+    }
+
+    private static void addParameter(StringJoiner query, String name, Object value) {
+        if (value != null) {
+            query.add(name + "=" + value);
+        }
+    }
+}
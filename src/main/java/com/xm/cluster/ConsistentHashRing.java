@@ -0,0 +1,75 @@
+package com.xm.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Assigns keys to nodes by consistent hashing. Every node is placed at {@value #VIRTUAL_NODES} points of a 64-bit
+ * hash ring and a key belongs to the node of the first point at or after the hash of the key, wrapping around.
+ * Adding or removing a node therefore only moves the keys of the ring sections it gains or loses, about one key in
+ * n, and the many points per node keep the share of every node close to 1/n.
+ */
+public final class ConsistentHashRing {
+
+    static final int VIRTUAL_NODES = 160;
+
+    private final List<String> nodes;
+    // Sorted hashes of the virtual nodes, and the index in nodes of the node owning each of them
+    private final long[] points;
+    private final int[] owners;
+
+    public ConsistentHashRing(List<String> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one node");
+        }
+        if (nodes.stream().distinct().count() != nodes.size()) {
+            throw new IllegalArgumentException("Duplicate nodes in " + nodes);
+        }
+        this.nodes = List.copyOf(nodes);
+        long[][] virtualNodes = new long[nodes.size() * VIRTUAL_NODES][];
+        for (int node = 0; node < nodes.size(); node++) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                virtualNodes[node * VIRTUAL_NODES + i] = new long[]{hash(nodes.get(node) + "#" + i), node};
+            }
+        }
+        // Ties between points of different nodes are broken by node order, so every member builds the same ring
+        Arrays.sort(virtualNodes, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[virtualNodes.length];
+        this.owners = new int[virtualNodes.length];
+        for (int i = 0; i < virtualNodes.length; i++) {
+            points[i] = virtualNodes[i][0];
+            owners[i] = (int) virtualNodes[i][1];
+        }
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public String nodeFor(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return nodes.get(owners[index == points.length ? 0 : index]);
+    }
+
+    /**
+     * 64-bit FNV-1a of the UTF-8 bytes, followed by the MurmurHash3 finalizer so that similar names, such as the
+     * numbered virtual nodes, spread over the whole ring.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,47 @@
+package com.xm.cluster;
+
+/**
+ * Cryptos served by this node. A single node serves all of them; in cluster mode a node serves those the
+ * {@link ConsistentHashRing} of {@code cluster.nodes} assigns to its {@code cluster.node}, and a coordinator that is
+ * not one of the nodes serves none.
+ */
+public final class SymbolPartition {
+
+    public static final SymbolPartition ALL = new SymbolPartition(null, null);
+
+    private final ConsistentHashRing ring;
+    private final String node;
+
+    private SymbolPartition(ConsistentHashRing ring, String node) {
+        this.ring = ring;
+        this.node = node;
+    }
+
+    /**
+     * @param node this node as listed in the ring, or {@code null} for a coordinator owning no cryptos
+     */
+    public static SymbolPartition of(ConsistentHashRing ring, String node) {
+        if (node != null && !ring.getNodes().contains(node)) {
+            throw new IllegalArgumentException("Node " + node + " is not one of " + ring.getNodes());
+        }
+        return new SymbolPartition(ring, node);
+    }
+
+    public boolean owns(String cryptoName) {
+        return ring == null || node != null && node.equals(ring.nodeFor(cryptoName));
+    }
+
+    /**
+     * Node serving the crypto, {@code null} on a single node.
+     */
+    public String ownerOf(String cryptoName) {
+        return ring == null ? null : ring.nodeFor(cryptoName);
+    }
+
+    /**
+     * The ring of the cluster, {@code null} on a single node.
+     */
+    public ConsistentHashRing getRing() {
+        return ring;
+    }
+}
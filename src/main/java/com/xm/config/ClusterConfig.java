@@ -0,0 +1,41 @@
+package com.xm.config;
+
+import com.xm.cluster.ConsistentHashRing;
+import com.xm.cluster.SymbolPartition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Partitions the cryptos over the nodes of {@code cluster.nodes} when {@code cluster.enabled=true}. Every node of a
+ * cluster must list the same nodes in {@code cluster.nodes}, as they name the points of the hash ring.
+ */
+@Slf4j
+@Configuration
+public class ClusterConfig {
+
+    @Bean
+    public SymbolPartition symbolPartition(@Value("${cluster.enabled:false}") boolean enabled,
+                                           @Value("${cluster.nodes:}") String nodes,
+                                           @Value("${cluster.node:}") String node) {
+        if (!enabled) {
+            return SymbolPartition.ALL;
+        }
+        List<String> ringNodes = Arrays.stream(nodes.split(","))
+                .map(String::trim)
+                .filter(ringNode -> !ringNode.isEmpty())
+                .collect(Collectors.toList());
+        if (ringNodes.isEmpty()) {
+            throw new IllegalStateException("cluster.enabled=true needs the base URLs of the nodes in cluster.nodes");
+        }
+        var partition = SymbolPartition.of(new ConsistentHashRing(ringNodes), node.isBlank() ? null : node.trim());
+        log.info("Cluster of {} nodes, serving {}", ringNodes.size(),
+                node.isBlank() ? "no cryptos as a coordinator" : "the cryptos of " + node.trim());
+        return partition;
+    }
+}
@@ -0,0 +1,91 @@
+package com.xm.controller;
+
+import com.xm.cluster.ClusterCoordinator;
+import com.xm.data.CryptoStatistics;
+import com.xm.data.DailyBars;
+import com.xm.data.TimeFrame;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Cluster-wide counterparts of the ranking endpoints of {@link CryptoController}, which only see the cryptos of the
+ * node they run on.
+ */
+@RestController
+@RequestMapping("/cluster")
+@ConditionalOnProperty(value = "cluster.enabled", havingValue = "true")
+@AllArgsConstructor
+@Api(tags = "Cluster Controller", produces = "application/json")
+public class ClusterController {
+
+    private final ClusterCoordinator clusterCoordinator;
+
+    @GetMapping("/statistics")
+    @ApiOperation(value = "Get the statistics of the cryptocurrencies of every node, ranked by normalized range",
+            httpMethod = "GET")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully merged the rankings of every node",
+                    response = CryptoStatistics.class, responseContainer = "List"),
+            @ApiResponse(code = 400, message = "Limit below 1"),
+            @ApiResponse(code = 503, message = "A node did not answer"),
+            @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public ResponseEntity<List<CryptoStatistics>> getAllCryptoStatistics(@ApiParam("Only the first n cryptos of the ranking")
+                                                                         @RequestParam(required = false) Integer limit,
+                                                                         @ApiParam("Rank on this time frame instead of the whole history")
+                                                                         @RequestParam(required = false) TimeFrame timeFrame,
+                                                                         @ApiParam("Epoch millis, inclusive; rank on this window instead")
+                                                                         @RequestParam(required = false) Long from,
+                                                                         @ApiParam("Epoch millis, inclusive; rank on this window instead")
+                                                                         @RequestParam(required = false) Long to) {
+        if (limit != null && limit < 1) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(clusterCoordinator.getTopCryptoStatistics(limit, timeFrame, from, to));
+    }
+
+    @GetMapping("/highest-normalized-range")
+    @ApiOperation(value = "Get the cryptocurrency of any node with the highest normalized range for a specific day",
+            httpMethod = "GET")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully retrieved cryptocurrency statistics",
+                    response = CryptoStatistics.class),
+            @ApiResponse(code = 400, message = "Neither date nor timestamp given"),
+            @ApiResponse(code = 404, message = "No node has prices on that day"),
+            @ApiResponse(code = 503, message = "A node did not answer"),
+            @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public ResponseEntity<CryptoStatistics> getHighestNormalizedRangeCryptoByDay(@ApiParam("UTC calendar day, e.g. 2022-01-01")
+                                                                                 @RequestParam(required = false)
+                                                                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                                                 LocalDate date,
+                                                                                 @ApiParam("Any epoch millis within the UTC day")
+                                                                                 @RequestParam(required = false) Long timestamp) {
+        if (date == null && timestamp == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        var day = date != null ? date : LocalDate.ofEpochDay(DailyBars.epochDay(timestamp));
+        var cryptoStatistics = clusterCoordinator.getHighestNormalizedRangeCryptoByDay(day);
+        return cryptoStatistics != null
+                ? ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(cryptoStatistics)
+                : new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+}
@@ -1,18 +1,47 @@
 package com.xm.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xm.data.BarInterval;
+import com.xm.data.BatchStatisticsRequest;
+import com.xm.data.BatchStatisticsResult;
+import com.xm.data.CacheStatistics;
+import com.xm.data.CryptoAnalytics;
+import com.xm.data.CryptoData;
 import com.xm.data.CryptoStatistics;
+import com.xm.data.DailyBars;
+import com.xm.data.ExportFormat;
+import com.xm.data.PriceIngestResult;
+import com.xm.data.StatisticsChange;
 import com.xm.data.TimeFrame;
+import com.xm.ingest.PriceIngestor;
+import com.xm.service.AnalyticsService;
 import com.xm.service.RecommendationService;
 import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import springfox.documentation.annotations.ApiIgnore;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/crypto")
@@ -21,17 +50,82 @@ import java.util.List;
 public class CryptoController {
 
     private final RecommendationService recommendationService;
+    private final AnalyticsService analyticsService;
+    private final ObjectMapper objectMapper;
+    private final PriceIngestor priceIngestor;
+    private final StatisticsStream statisticsStream;
 
     @GetMapping("/statistics")
     @ApiOperation(value = "Get all cryptocurrency statistics", httpMethod = "GET")
     @ApiResponses({
             @ApiResponse(code = 200, message = "Successfully retrieved cryptocurrency statistics",
                     response = CryptoStatistics.class, responseContainer = "List"),
+            @ApiResponse(code = 304, message = "Not modified, the If-None-Match ETag is current"),
+            @ApiResponse(code = 400, message = "Limit below 1"),
             @ApiResponse(code = 500, message = "Internal server error")
     })
-    public ResponseEntity<List<CryptoStatistics>> getAllCryptoStatistics() {
-        var cryptoStatisticsList = recommendationService.getAllCryptoStatistics();
-        return new ResponseEntity<>(cryptoStatisticsList, HttpStatus.OK);
+    public ResponseEntity<byte[]> getAllCryptoStatistics(@ApiParam("Only the first n cryptos of the ranking")
+                                                         @RequestParam(required = false) Integer limit,
+                                                         @ApiParam("Rank on this time frame instead of the whole history")
+                                                         @RequestParam(required = false) TimeFrame timeFrame,
+                                                         @ApiParam("Epoch millis, inclusive; rank on this window instead")
+                                                         @RequestParam(required = false) Long from,
+                                                         @ApiParam("Epoch millis, inclusive; rank on this window instead")
+                                                         @RequestParam(required = false) Long to,
+                                                         @ApiIgnore WebRequest webRequest) throws JsonProcessingException {
+        if (limit != null && limit < 1) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (limit != null || timeFrame != null || from != null || to != null) {
+            return getTopCryptoStatistics(limit != null ? limit : Integer.MAX_VALUE, timeFrame, from, to, webRequest);
+        }
+        var rankingJson = recommendationService.getAllCryptoStatisticsJson();
+        var dataVersion = rankingJson.getDataVersion();
+        boolean gzip = acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (isNotModified(webRequest, gzip ? dataVersion.getGzipETag() : dataVersion.getETag())) {
+            return null;
+        }
+        var response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        return gzip
+                ? response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(rankingJson.getGzippedJson())
+                : response.body(rankingJson.getJson());
+    }
+
+    private ResponseEntity<byte[]> getTopCryptoStatistics(int limit, TimeFrame timeFrame, Long from, Long to,
+                                                          WebRequest webRequest) throws JsonProcessingException {
+        var dataVersion = recommendationService.getDataVersion();
+        if (isNotModified(webRequest, dataVersion.getETag())) {
+            return null;
+        }
+        List<CryptoStatistics> ranking;
+        if (from != null || to != null) {
+            ranking = recommendationService.getTopCryptoStatistics(limit, from != null ? from : Long.MIN_VALUE,
+                    to != null ? to : Long.MAX_VALUE);
+        } else if (timeFrame != null) {
+            ranking = recommendationService.getTopCryptoStatistics(limit, timeFrame);
+        } else {
+            ranking = recommendationService.getTopCryptoStatistics(limit);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .body(objectMapper.writeValueAsBytes(ranking));
+    }
+
+    @GetMapping(value = "/statistics/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ApiOperation(value = "Stream the ranking, then a compact change whenever a reload or pushed prices change it",
+            httpMethod = "GET", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "A ranking event with the statistics of every crypto, then change events",
+                    response = StatisticsChange.class),
+            @ApiResponse(code = 503, message = "Too many subscribers"),
+            @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public SseEmitter streamStatistics() {
+        return statisticsStream.subscribe();
     }
 
     @GetMapping("/statistics/{cryptoName}")
@@ -39,31 +133,197 @@ public class CryptoController {
     @ApiResponses({
             @ApiResponse(code = 200, message = "Successfully retrieved cryptocurrency statistics",
                     response = CryptoStatistics.class),
+            @ApiResponse(code = 304, message = "Not modified, the If-None-Match ETag is current"),
             @ApiResponse(code = 404, message = "Cryptocurrency not found"),
             @ApiResponse(code = 500, message = "Internal server error")
     })
     public ResponseEntity<CryptoStatistics> getCryptoStatisticsByName(@PathVariable String cryptoName,
                                                                       @RequestParam(required = false, defaultValue = "ONE_MONTH")
-                                                                      TimeFrame timeFrame) {
-        var cryptoStatistics = recommendationService.getCryptoStatisticsByName(cryptoName, timeFrame);
+                                                                      TimeFrame timeFrame,
+                                                                      @ApiParam("Epoch millis, inclusive; overrides timeFrame")
+                                                                      @RequestParam(required = false) Long from,
+                                                                      @ApiParam("Epoch millis, inclusive; overrides timeFrame")
+                                                                      @RequestParam(required = false) Long to,
+                                                                      @ApiIgnore WebRequest webRequest) {
+        var dataVersion = recommendationService.getDataVersion();
+        if (isNotModified(webRequest, dataVersion.getETag())) {
+            return null;
+        }
+        var cryptoStatistics = from != null || to != null
+                ? recommendationService.getCryptoStatisticsByName(cryptoName,
+                from != null ? from : Long.MIN_VALUE, to != null ? to : Long.MAX_VALUE)
+                : recommendationService.getCryptoStatisticsByName(cryptoName, timeFrame);
         return cryptoStatistics != null
-                ? new ResponseEntity<>(cryptoStatistics, HttpStatus.OK)
+                ? ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(cryptoStatistics)
                 : new ResponseEntity<>(HttpStatus.NOT_FOUND);
 
     }
 
+    @GetMapping("/analytics/{cryptoName}")
+    @ApiOperation(value = "Get volatility, drawdown, average price and period returns of a cryptocurrency",
+            httpMethod = "GET")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully computed cryptocurrency analytics",
+                    response = CryptoAnalytics.class),
+            @ApiResponse(code = 304, message = "Not modified, the If-None-Match ETag is current"),
+            @ApiResponse(code = 400, message = "Invalid rolling window or return period"),
+            @ApiResponse(code = 404, message = "Cryptocurrency not found"),
+            @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public ResponseEntity<CryptoAnalytics> getCryptoAnalytics(@PathVariable String cryptoName,
+                                                              @RequestParam(required = false, defaultValue = "ONE_MONTH")
+                                                              TimeFrame timeFrame,
+                                                              @ApiParam("Epoch millis, inclusive; overrides timeFrame")
+                                                              @RequestParam(required = false) Long from,
+                                                              @ApiParam("Epoch millis, inclusive; overrides timeFrame")
+                                                              @RequestParam(required = false) Long to,
+                                                              @ApiParam("Returns per rolling volatility window, defaults to analytics.rolling-window")
+                                                              @RequestParam(required = false) Integer rollingWindow,
+                                                              @ApiParam("Periods such as 1d,7d or P30D, defaults to analytics.return-periods")
+                                                              @RequestParam(required = false) List<String> returnPeriods,
+                                                              @ApiIgnore WebRequest webRequest) {
+        var dataVersion = recommendationService.getDataVersion();
+        if (isNotModified(webRequest, dataVersion.getETag())) {
+            return null;
+        }
+        var cryptoAnalytics = from != null || to != null
+                ? analyticsService.getCryptoAnalytics(cryptoName, from != null ? from : Long.MIN_VALUE,
+                to != null ? to : Long.MAX_VALUE, rollingWindow, returnPeriods)
+                : analyticsService.getCryptoAnalytics(cryptoName, timeFrame, rollingWindow, returnPeriods);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(cryptoAnalytics);
+    }
+
+    @PostMapping("/statistics/batch")
+    @ApiOperation(value = "Get statistics for many cryptocurrencies and windows in one call", httpMethod = "POST")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Statistics streamed as a JSON array, one element per crypto and window",
+                    response = BatchStatisticsResult.class, responseContainer = "List"),
+            @ApiResponse(code = 400, message = "No time frame or window given, or too many results requested"),
+            @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public ResponseEntity<StreamingResponseBody> getBatchStatistics(@RequestBody BatchStatisticsRequest request) {
+        Stream<BatchStatisticsResult> results = recommendationService.getBatchStatistics(request);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+                 results) {
+                generator.writeStartArray();
+                for (BatchStatisticsResult result : (Iterable<BatchStatisticsResult>) results::iterator) {
+                    generator.writeObject(result);
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @GetMapping("/prices/{cryptoName}")
+    @ApiOperation(value = "Export the raw price history of a cryptocurrency", httpMethod = "GET",
+            produces = "application/x-ndjson, text/csv")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Ticks or bars streamed one per line"),
+            @ApiResponse(code = 400, message = "Invalid downsampling"),
+            @ApiResponse(code = 404, message = "Cryptocurrency not found or no ticks in the window"),
+            @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public ResponseEntity<StreamingResponseBody> getPriceHistory(@PathVariable String cryptoName,
+                                                                 @RequestParam(required = false, defaultValue = "NDJSON")
+                                                                 ExportFormat format,
+                                                                 @ApiParam("Epoch millis, inclusive")
+                                                                 @RequestParam(required = false) Long from,
+                                                                 @ApiParam("Epoch millis, inclusive")
+                                                                 @RequestParam(required = false) Long to,
+                                                                 @ApiParam("Keep every n-th tick")
+                                                                 @RequestParam(required = false, defaultValue = "1")
+                                                                 int every,
+                                                                 @ApiParam("Aggregate ticks into OHLC bars of this width instead")
+                                                                 @RequestParam(required = false) BarInterval bars) {
+        if (every < 1 || every > 1 && bars != null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        var priceSeries = recommendationService.getPriceHistory(cryptoName,
+                from != null ? from : Long.MIN_VALUE, to != null ? to : Long.MAX_VALUE);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .body(new PriceHistoryExport(priceSeries, format, every, bars));
+    }
+
+    @PostMapping(value = "/prices", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    @ApiOperation(value = "Push live prices, applied to the series within ingest.publish-interval-millis",
+            httpMethod = "POST")
+    @ApiImplicitParam(name = "prices", paramType = "body", dataTypeClass = CryptoData.class, allowMultiple = true,
+            value = "JSON array of prices, or one JSON object per line")
+    @ApiResponses({
+            @ApiResponse(code = 202, message = "Prices buffered for the next snapshot", response = PriceIngestResult.class),
+            @ApiResponse(code = 400, message = "Unreadable or invalid price, prices before it were accepted"),
+            @ApiResponse(code = 503, message = "Prices arrive faster than they are applied, prices before were accepted"),
+            @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public ResponseEntity<PriceIngestResult> pushPrices(@ApiIgnore InputStream body) throws IOException {
+        long accepted = priceIngestor.ingest(body, "http");
+        return ResponseEntity.accepted().body(new PriceIngestResult(accepted));
+    }
+
     @GetMapping("/highest-normalized-range")
     @ApiOperation(value = "Get cryptocurrency with highest normalized range for a specific day", httpMethod = "GET")
     @ApiResponses({
             @ApiResponse(code = 200, message = "Successfully retrieved cryptocurrency statistics",
                     response = CryptoStatistics.class),
+            @ApiResponse(code = 304, message = "Not modified, the If-None-Match ETag is current"),
+            @ApiResponse(code = 400, message = "Neither date nor timestamp given"),
             @ApiResponse(code = 404, message = "Cryptocurrency not found"),
             @ApiResponse(code = 500, message = "Internal server error")
     })
-    public ResponseEntity<CryptoStatistics> getHighestNormalizedRangeCryptoByDay(@RequestParam("timestamp") long timestamp) {
-        var cryptoStatistics = recommendationService.getHighestNormalizedRangeCryptoByDay(timestamp);
+    public ResponseEntity<CryptoStatistics> getHighestNormalizedRangeCryptoByDay(@ApiParam("UTC calendar day, e.g. 2022-01-01")
+                                                                                 @RequestParam(required = false)
+                                                                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                                                 LocalDate date,
+                                                                                 @ApiParam("Any epoch millis within the UTC day")
+                                                                                 @RequestParam(required = false) Long timestamp,
+                                                                                 @ApiIgnore WebRequest webRequest) {
+        if (date == null && timestamp == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        var dataVersion = recommendationService.getDataVersion();
+        if (isNotModified(webRequest, dataVersion.getETag())) {
+            return null;
+        }
+        var day = date != null ? date : LocalDate.ofEpochDay(DailyBars.epochDay(timestamp));
+        var cryptoStatistics = recommendationService.getHighestNormalizedRangeCryptoByDay(day);
         return cryptoStatistics != null
-                ? new ResponseEntity<>(cryptoStatistics, HttpStatus.OK)
+                ? ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(cryptoStatistics)
                 : new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
+
+    @GetMapping("/cache-statistics")
+    @ApiOperation(value = "Get size, hit rate and evictions of the statistics cache", httpMethod = "GET")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Successfully retrieved cache statistics",
+                    response = CacheStatistics.class),
+            @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public ResponseEntity<CacheStatistics> getCacheStatistics() {
+        return new ResponseEntity<>(recommendationService.getCacheStatistics(), HttpStatus.OK);
+    }
+
+    /**
+     * Answers {@code If-None-Match} with 304 and adds the {@code ETag} otherwise. The version is read before the body is
+     * computed, so a reload in between can only make the client fetch again, never keep an outdated body. There is no
+     * {@code Last-Modified}: its one-second precision cannot tell apart versions published within the same second.
+     */
+    private static boolean isNotModified(WebRequest webRequest, String eTag) {
+        return webRequest.checkNotModified(eTag);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.trim().split("\\s*;\\s*");
+            if (parameters[0].equalsIgnoreCase("gzip")) {
+                return parameters.length == 1 || !parameters[1].matches("(?i)q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,126 @@
+package com.xm.controller;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.xm.data.BarInterval;
+import com.xm.data.ExportFormat;
+import com.xm.data.PriceSeries;
+import com.xm.reader.CsvHeader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a price series to the response as it is read from the columns, one line per tick or per bar, so memory use
+ * does not depend on the length of the series. Prices are printed straight from their fixed-point form, with the scale
+ * of the series, instead of going through a {@link BigDecimal} per tick.
+ */
+@RequiredArgsConstructor
+class PriceHistoryExport implements StreamingResponseBody {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final PriceSeries priceSeries;
+    private final ExportFormat format;
+    // Keep every n-th tick, ignored when bars are requested
+    private final int every;
+    private final BarInterval barInterval;
+
+    private final StringBuilder line = new StringBuilder(128);
+    private String quotedSymbol;
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        quotedSymbol = '"' + new String(JsonStringEncoder.getInstance().quoteAsString(priceSeries.getSymbol())) + '"';
+        if (format == ExportFormat.CSV) {
+            writer.write(barInterval == null
+                    ? String.join(",", CsvHeader.TIMESTAMP.getHeader(), CsvHeader.SYMBOL.getHeader(),
+                    CsvHeader.PRICE.getHeader())
+                    : String.join(",", CsvHeader.TIMESTAMP.getHeader(), CsvHeader.SYMBOL.getHeader(),
+                    "open", "high", "low", "close"));
+            writer.write('\n');
+        }
+        if (barInterval == null) {
+            writeTicks(writer);
+        } else {
+            priceSeries.forEachBar(barInterval,
+                    (barStart, open, high, low, close) -> writeBar(writer, barStart, open, high, low, close));
+        }
+        writer.flush();
+    }
+
+    private void writeTicks(Writer writer) throws IOException {
+        for (int i = 0; i < priceSeries.size(); i += every) {
+            line.setLength(0);
+            if (format == ExportFormat.CSV) {
+                line.append(priceSeries.getTimestamp(i)).append(',').append(priceSeries.getSymbol()).append(',');
+                appendPrice(priceSeries.getUnscaledPrice(i));
+            } else {
+                line.append("{\"timestamp\":").append(priceSeries.getTimestamp(i))
+                        .append(",\"symbol\":").append(quotedSymbol)
+                        .append(",\"price\":");
+                appendPrice(priceSeries.getUnscaledPrice(i));
+                line.append('}');
+            }
+            writer.append(line).write('\n');
+        }
+    }
+
+    private void writeBar(Writer writer, long barStart, long open, long high, long low, long close)
+            throws IOException {
+        line.setLength(0);
+        if (format == ExportFormat.CSV) {
+            line.append(barStart).append(',').append(priceSeries.getSymbol());
+        } else {
+            line.append("{\"timestamp\":").append(barStart).append(",\"symbol\":").append(quotedSymbol);
+        }
+        appendField("open", open);
+        appendField("high", high);
+        appendField("low", low);
+        appendField("close", close);
+        if (format == ExportFormat.NDJSON) {
+            line.append('}');
+        }
+        writer.append(line).write('\n');
+    }
+
+    private void appendField(String name, long unscaledPrice) {
+        if (format == ExportFormat.CSV) {
+            line.append(',');
+        } else {
+            line.append(",\"").append(name).append("\":");
+        }
+        appendPrice(unscaledPrice);
+    }
+
+    /**
+     * Same digits as {@code BigDecimal.valueOf(unscaledPrice, scale).toPlainString()}.
+     */
+    void appendPrice(long unscaledPrice) {
+        int scale = priceSeries.getScale();
+        if (scale <= 0) {
+            line.append(BigDecimal.valueOf(unscaledPrice, scale).toPlainString());
+            return;
+        }
+        if (unscaledPrice < 0) {
+            line.append('-');
+        }
+        int start = line.length();
+        // Digits without the sign, Math.abs would overflow on Long.MIN_VALUE
+        line.append(unscaledPrice < 0 ? Long.toString(unscaledPrice).substring(1) : Long.toString(unscaledPrice));
+        int digits = line.length() - start;
+        if (digits <= scale) {
+            line.insert(start, "0.");
+            line.insert(start + 2, "0".repeat(scale - digits));
+        } else {
+            line.insert(line.length() - scale, '.');
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.xm.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xm.data.CryptoStatistics;
+import com.xm.data.StatisticsChange;
+import com.xm.exception.StreamSubscribersExceededException;
+import com.xm.reader.CryptoDataReloadedEvent;
+import com.xm.service.RecommendationService;
+import com.xm.service.RecommendationService.Ranking;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Server-sent events of {@code GET /crypto/statistics/stream}: every subscriber first gets the whole-history ranking
+ * as a {@code ranking} event, then a {@code change} event with a {@link StatisticsChange} whenever a reload or pushed
+ * prices changed the ranking or the statistics of a crypto.
+ * <p>
+ * Reloads only wake the broadcaster thread, so reloads arriving while it works are coalesced into one change. Each
+ * change is computed and serialized once into a chain of frames that every subscriber walks from the last frame it
+ * was sent. A subscriber more than {@value #MAX_LAG} frames behind is sent the newest ranking instead of the changes
+ * it missed.
+ * <p>
+ * Sends block until the client reads, so they run on a pool that keeps {@code statistics.stream.sender-threads}
+ * threads and starts more while sends are blocked: a client that stops reading holds one thread, not the threads of
+ * the others. When a frame or heartbeat is due and a send of a subscriber has been blocked for longer than
+ * {@code statistics.stream.send-timeout-millis}, the subscriber is dropped and gets no further frames. A blocked send
+ * cannot be interrupted, so its thread, and the frames it still references, are only released once the write returns
+ * or the server times it out; the stream is then completed.
+ */
+@Slf4j
+@Component
+public class StatisticsStream {
+
+    static final int MAX_LAG = 64;
+
+    private final RecommendationService recommendationService;
+    private final ObjectMapper objectMapper;
+    private final Counter rankingEvents;
+    private final Counter changeEvents;
+
+    @Value("${statistics.stream.max-subscribers:1000}")
+    private int maxSubscribers = 1000;
+
+    @Value("${statistics.stream.heartbeat-millis:15000}")
+    private long heartbeatMillis = 15000;
+
+    @Value("${statistics.stream.sender-threads:4}")
+    private int senderThreads = 4;
+
+    @Value("${statistics.stream.send-timeout-millis:5000}")
+    private long sendTimeoutMillis = 5000;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Written under the lock of this stream only
+    private volatile Frame latest;
+    private ThreadPoolExecutor sender;
+    private Thread broadcaster;
+    private volatile boolean running;
+    private volatile boolean changed;
+
+    public StatisticsStream(RecommendationService recommendationService, ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry) {
+        this.recommendationService = recommendationService;
+        this.objectMapper = objectMapper;
+        this.rankingEvents = eventCounter("ranking", meterRegistry);
+        this.changeEvents = eventCounter("change", meterRegistry);
+        Gauge.builder("crypto.statistics.stream.subscribers", subscribers, Set::size)
+                .description("Clients subscribed to the statistics stream")
+                .register(meterRegistry);
+    }
+
+    private static Counter eventCounter(String event, MeterRegistry meterRegistry) {
+        return Counter.builder("crypto.statistics.stream.events")
+                .description("Events sent to statistics stream subscribers")
+                .tag("event", event)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        var threadIds = new AtomicInteger();
+        // A subscriber has at most one delivery running, so there are never more busy threads than subscribers
+        sender = new ThreadPoolExecutor(senderThreads, Math.max(senderThreads, maxSubscribers), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), task -> {
+            var thread = new Thread(task, "statistics-stream-sender-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        broadcaster = new Thread(this::broadcast, "statistics-stream");
+        broadcaster.setDaemon(true);
+        broadcaster.start();
+    }
+
+    /**
+     * Completes every stream, so that clients reconnect to another instance.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (broadcaster == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(broadcaster);
+        broadcaster.join(TimeUnit.SECONDS.toMillis(10));
+        sender.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    @EventListener
+    public void onCryptoDataReloaded(CryptoDataReloadedEvent event) {
+        changed = true;
+        LockSupport.unpark(broadcaster);
+    }
+
+    /**
+     * @throws StreamSubscribersExceededException when {@code statistics.stream.max-subscribers} clients are subscribed
+     */
+    public SseEmitter subscribe() {
+        // Heartbeats find closed connections, so the stream itself never times out
+        return subscribe(new SseEmitter(0L));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new StreamSubscribersExceededException("The statistics stream already serves " + maxSubscribers
+                    + " clients, see statistics.stream.max-subscribers");
+        }
+        var subscriber = new Subscriber(emitter);
+        Runnable unsubscribe = () -> subscribers.remove(subscriber);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        try {
+            sendRanking(subscriber, advance());
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        subscribers.add(subscriber);
+        // Frames added since the ranking was taken
+        schedule(subscriber, false);
+        return emitter;
+    }
+
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void broadcast() {
+        long heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatMillis);
+        long lastHeartbeat = System.nanoTime();
+        while (running) {
+            LockSupport.parkNanos(Math.max(0, heartbeatNanos - (System.nanoTime() - lastHeartbeat)));
+            boolean heartbeat = System.nanoTime() - lastHeartbeat >= heartbeatNanos;
+            if (heartbeat) {
+                lastHeartbeat = System.nanoTime();
+            }
+            if (!running || subscribers.isEmpty()) {
+                // The next subscriber brings the frames up to date
+                continue;
+            }
+            if (changed) {
+                changed = false;
+                try {
+                    advance();
+                } catch (RuntimeException e) {
+                    log.error("Could not compute the statistics change", e);
+                }
+            }
+            long now = System.nanoTime();
+            for (Subscriber subscriber : subscribers) {
+                long sendStarted = subscriber.sendStartedNanos;
+                if (sendStarted != 0 && now - sendStarted > TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis)) {
+                    drop(subscriber);
+                } else {
+                    schedule(subscriber, heartbeat);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends a frame with the change since the latest one if the ranking moved to another data version since, and
+     * returns the latest frame.
+     */
+    private synchronized Frame advance() {
+        Ranking ranking = recommendationService.getRanking();
+        Frame frame = latest;
+        if (frame == null) {
+            latest = new Frame(0, ranking, ranking.getDataVersion().getVersion(), null);
+        } else if (!frame.ranking.getDataVersion().equals(ranking.getDataVersion())) {
+            StatisticsChange change = diff(frame.ranking, ranking);
+            // Clients only know the versions sent as event ids, so a change follows the last one that was sent
+            change.setPreviousVersion(frame.version);
+            var next = change.isEmpty() ? new Frame(frame.sequence + 1, ranking, frame.version, null)
+                    : new Frame(frame.sequence + 1, ranking, change.getVersion(), serialize(change));
+            frame.next = next;
+            latest = next;
+        }
+        return latest;
+    }
+
+    static StatisticsChange diff(Ranking previous, Ranking current) {
+        List<CryptoStatistics> previousStatistics = previous.getStatistics();
+        Map<String, Integer> previousRanks = new HashMap<>();
+        for (int i = 0; i < previousStatistics.size(); i++) {
+            previousRanks.put(previousStatistics.get(i).getCryptoName(), i + 1);
+        }
+        List<CryptoStatistics> updated = new ArrayList<>();
+        Map<String, Integer> ranks = new LinkedHashMap<>();
+        List<CryptoStatistics> currentStatistics = current.getStatistics();
+        for (int i = 0; i < currentStatistics.size(); i++) {
+            CryptoStatistics statistics = currentStatistics.get(i);
+            Integer previousRank = previousRanks.remove(statistics.getCryptoName());
+            // Statistics of unchanged series are the same instances from one version to the next
+            CryptoStatistics before = previousRank != null ? previousStatistics.get(previousRank - 1) : null;
+            if (statistics != before && !statistics.equals(before)) {
+                updated.add(statistics);
+            }
+            if (previousRank == null || previousRank != i + 1) {
+                ranks.put(statistics.getCryptoName(), i + 1);
+            }
+        }
+        List<String> removed = new ArrayList<>(previousRanks.keySet());
+        Collections.sort(removed);
+        return StatisticsChange.builder()
+                .previousVersion(previous.getDataVersion().getVersion())
+                .version(current.getDataVersion().getVersion())
+                .updated(updated)
+                .removed(removed)
+                .ranks(ranks)
+                .build();
+    }
+
+    private String serialize(StatisticsChange change) {
+        try {
+            return objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the statistics change", e);
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        log.info("Dropping statistics stream subscriber blocked in a send for more than {} ms", sendTimeoutMillis);
+        subscriber.dropped = true;
+        subscribers.remove(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber, boolean heartbeat) {
+        if (heartbeat) {
+            subscriber.heartbeatDue = true;
+        }
+        if (subscriber.sending.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> deliver(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.sending.set(false);
+            }
+        }
+    }
+
+    /**
+     * Sends the frames after the last one the subscriber was sent. Only one delivery per subscriber runs at a time.
+     */
+    private void deliver(Subscriber subscriber) {
+        try {
+            do {
+                Frame newest = latest;
+                if (newest.sequence - subscriber.sent.sequence > MAX_LAG) {
+                    sendRanking(subscriber, newest);
+                } else {
+                    for (Frame frame = subscriber.sent.next; frame != null && !subscriber.dropped; frame = frame.next) {
+                        if (frame.change != null) {
+                            send(subscriber, SseEmitter.event()
+                                    .id(Long.toString(frame.version))
+                                    .name("change")
+                                    .data(frame.change));
+                            changeEvents.increment();
+                            subscriber.heartbeatDue = false;
+                        }
+                        subscriber.sent = frame;
+                    }
+                }
+                if (subscriber.heartbeatDue && !subscriber.dropped) {
+                    subscriber.heartbeatDue = false;
+                    send(subscriber, SseEmitter.event().comment(""));
+                }
+                subscriber.sending.set(false);
+            } while (!subscriber.dropped && subscriber.sent.next != null
+                    && subscriber.sending.compareAndSet(false, true));
+            if (subscriber.dropped) {
+                subscriber.emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away, or the stream was completed meanwhile
+            log.debug("Dropping statistics stream subscriber: {}", e.toString());
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private void sendRanking(Subscriber subscriber, Frame frame) throws IOException {
+        send(subscriber, SseEmitter.event()
+                .id(Long.toString(frame.version))
+                .name("ranking")
+                .data(frame.getRankingJson()));
+        rankingEvents.increment();
+        subscriber.sent = frame;
+        subscriber.heartbeatDue = false;
+    }
+
+    private static void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        subscriber.sendStartedNanos = System.nanoTime();
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            subscriber.sendStartedNanos = 0;
+        }
+    }
+
+    /**
+     * One version of the ranking and its change from the previous frame, {@code null} when the statistics were
+     * unchanged. A frame without a change is sent under the version of the frame before it, whose ranking is the same,
+     * so event ids and {@code previousVersion} only ever name versions clients were sent. Frames stay reachable only
+     * from the subscribers that still have to send them.
+     */
+    private static final class Frame {
+        final long sequence;
+        final Ranking ranking;
+        final long version;
+        final String change;
+        volatile Frame next;
+        // Decoded on the first ranking event of this frame and shared by all subscribers; a racing decode is harmless
+        private String rankingJson;
+
+        Frame(long sequence, Ranking ranking, long version, String change) {
+            this.sequence = sequence;
+            this.ranking = ranking;
+            this.version = version;
+            this.change = change;
+        }
+
+        String getRankingJson() {
+            String json = rankingJson;
+            if (json == null) {
+                json = new String(ranking.getJson().getJson(), StandardCharsets.UTF_8);
+                rankingJson = json;
+            }
+            return json;
+        }
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final AtomicBoolean sending = new AtomicBoolean();
+        // Only touched by the delivery holding sending, or before the subscriber is registered
+        Frame sent;
+        volatile boolean heartbeatDue;
+        // Start of the send in progress, 0 when none
+        volatile long sendStartedNanos;
+        volatile boolean dropped;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
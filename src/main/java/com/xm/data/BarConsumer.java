@@ -0,0 +1,11 @@
+package com.xm.data;
+
+/**
+ * Receives the OHLC bars of {@link PriceSeries#forEachBar}, oldest first, with unscaled prices at the scale of the
+ * series and the bar start in epoch millis.
+ */
+@FunctionalInterface
+public interface BarConsumer<X extends Exception> {
+
+    void accept(long barStart, long open, long high, long low, long close) throws X;
+}
@@ -0,0 +1,31 @@
+package com.xm.data;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Width of the OHLC bars a price history is downsampled to; bars are aligned to the epoch, so in UTC.
+ */
+public enum BarInterval {
+    ONE_MINUTE(Duration.ofMinutes(1)),
+    FIVE_MINUTES(Duration.ofMinutes(5)),
+    FIFTEEN_MINUTES(Duration.ofMinutes(15)),
+    ONE_HOUR(Duration.ofHours(1)),
+    FOUR_HOURS(Duration.ofHours(4)),
+    ONE_DAY(Duration.ofDays(1));
+
+    @Getter
+    private final long millis;
+
+    BarInterval(Duration duration) {
+        this.millis = duration.toMillis();
+    }
+
+    /**
+     * Start of the bar holding {@code timestamp}.
+     */
+    public long getBarStart(long timestamp) {
+        return Math.floorDiv(timestamp, millis) * millis;
+    }
+}
@@ -0,0 +1,22 @@
+package com.xm.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Statistics for every crypto in {@link #cryptoNames} (all cryptos when empty) over every time frame in
+ * {@link #timeFrames} and every window in {@link #windows}.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchStatisticsRequest {
+    private List<String> cryptoNames;
+    private List<TimeFrame> timeFrames;
+    private List<TimeWindow> windows;
+}
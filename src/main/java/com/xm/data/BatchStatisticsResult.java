@@ -0,0 +1,24 @@
+package com.xm.data;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.xm.exception.ErrorResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One crypto and time frame or window of a batch, with either its statistics or the error that prevented them.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchStatisticsResult {
+    private String cryptoName;
+    private TimeFrame timeFrame;
+    private TimeWindow window;
+    private CryptoStatistics statistics;
+    private ErrorResponse error;
+}
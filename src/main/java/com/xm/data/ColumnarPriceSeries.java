@@ -0,0 +1,257 @@
+package com.xm.data;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * {@link PriceSeries} backed by two primitive columns: epoch millis timestamps and fixed-point prices sharing one
+ * scale. The symbol is stored once per series instead of once per tick. Sub-series share the columns and the
+ * {@link RangeMinMaxIndex} and {@link PriceRollups} built at load, and only carry their own bounds, so min and max of
+ * any window and its OHLC bars are answered without scanning it. Daily bars are built at load as well.
+ * <p>
+ * Appending to the newest version of a full series writes the new ticks behind it into the same columns when they have
+ * spare capacity and extends the index, the rollups and the bars, instead of rebuilding them. Older versions keep their own length
+ * and never read the slots written after them, so they stay valid for readers still holding them.
+ */
+public final class ColumnarPriceSeries implements PriceSeries {
+
+    @Getter
+    private final String symbol;
+    @Getter
+    private final int scale;
+    private final long[] timestamps;
+    private final long[] prices;
+    private final RangeMinMaxIndex priceIndex;
+    private final PriceRollups rollups;
+    private final DailyBars dailyBars;
+    private final int offset;
+    private final int length;
+    // Length of the newest series written into these columns, the only one allowed to append in place
+    private final AtomicInteger columnsLength;
+
+    private ColumnarPriceSeries(String symbol, int scale, long[] timestamps, long[] prices,
+                                RangeMinMaxIndex priceIndex, PriceRollups rollups, DailyBars dailyBars, int offset,
+                                int length, AtomicInteger columnsLength) {
+        this.symbol = symbol;
+        this.scale = scale;
+        this.timestamps = timestamps;
+        this.prices = prices;
+        this.priceIndex = priceIndex;
+        this.rollups = rollups;
+        this.offset = offset;
+        this.length = length;
+        this.columnsLength = columnsLength;
+        this.dailyBars = dailyBars;
+    }
+
+    public static Builder builder(String symbol) {
+        return new Builder(symbol);
+    }
+
+    public static ColumnarPriceSeries fromCryptoData(String symbol, List<CryptoData> cryptoDataList) {
+        var builder = builder(symbol);
+        cryptoDataList.forEach(cryptoData -> builder.add(cryptoData.getTimestamp(), cryptoData.getPrice()));
+        return builder.build();
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public long getTimestamp(int index) {
+        return timestamps[offset + Objects.checkIndex(index, length)];
+    }
+
+    @Override
+    public long getUnscaledPrice(int index) {
+        return prices[offset + Objects.checkIndex(index, length)];
+    }
+
+    @Override
+    public ColumnarPriceSeries subSeries(int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, length);
+        return new ColumnarPriceSeries(symbol, scale, timestamps, prices, priceIndex, rollups, null,
+                offset + fromIndex, toIndex - fromIndex, columnsLength);
+    }
+
+    /**
+     * Appends in place when this is the newest full series of its columns, the tail starts at or after the newest
+     * tick and its scale is not finer than this one; otherwise falls back to rebuilding the whole series. Appends
+     * must come from a single writer.
+     */
+    @Override
+    public PriceSeries append(PriceSeries tail) {
+        if (tail.isEmpty()) {
+            return this;
+        }
+        boolean inPlace = dailyBars != null && offset == 0 && length == columnsLength.get()
+                && tail.getScale() <= scale && (isEmpty() || tail.getOldestTimestamp() >= getNewestTimestamp());
+        if (!inPlace) {
+            return PriceSeries.super.append(tail);
+        }
+
+        int newLength = length + tail.size();
+        long[] newTimestamps = timestamps;
+        long[] newPrices = prices;
+        if (newLength > timestamps.length) {
+            int capacity = Math.max(newLength, length + (length >> 1));
+            newTimestamps = Arrays.copyOf(timestamps, capacity);
+            newPrices = Arrays.copyOf(prices, capacity);
+        }
+        long factor = pow10(scale - tail.getScale());
+        for (int i = 0; i < tail.size(); i++) {
+            newTimestamps[length + i] = tail.getTimestamp(i);
+            newPrices[length + i] = Math.multiplyExact(tail.getUnscaledPrice(i), factor);
+        }
+        columnsLength.set(newLength);
+        var newPriceIndex = priceIndex.extend(newPrices, length, newLength);
+        return new ColumnarPriceSeries(symbol, scale, newTimestamps, newPrices, newPriceIndex,
+                rollups.extend(newTimestamps, newPrices, newPriceIndex, length, newLength),
+                dailyBars.extend(newTimestamps, newPrices, length, newLength), 0, newLength, columnsLength);
+    }
+
+    /**
+     * Bars of the full series are built at load; views compute theirs from their own ticks on demand.
+     */
+    @Override
+    public DailyBars getDailyBars() {
+        return dailyBars != null ? dailyBars : DailyBars.of(this);
+    }
+
+    /**
+     * Bars of an interval a rollup tier divides are merged from the tier; others are built from the ticks.
+     */
+    @Override
+    public <X extends Exception> void forEachBar(BarInterval interval, BarConsumer<X> consumer) throws X {
+        if (rollups.covers(interval)) {
+            rollups.forEachBar(interval, offset, offset + length, consumer);
+        } else {
+            PriceSeries.super.forEachBar(interval, consumer);
+        }
+    }
+
+    @Override
+    public long getMinUnscaledPrice() {
+        checkNotEmpty();
+        return priceIndex.min(offset, offset + length);
+    }
+
+    @Override
+    public long getMaxUnscaledPrice() {
+        checkNotEmpty();
+        return priceIndex.max(offset, offset + length);
+    }
+
+    /**
+     * Shallow heap of this series and of the columns, index, rollups and bars it references, symbol excluded.
+     */
+    long heapBytes() {
+        long columns = 2 * MemoryFootprint.arrayBytes(timestamps.length, Long.BYTES);
+        long bars = dailyBars != null ? dailyBars.heapBytes() : 0;
+        // The AtomicInteger shared by the versions of these columns
+        long columnsLength = MemoryFootprint.instanceBytes(0, Integer.BYTES);
+        return MemoryFootprint.instanceBytes(7, 3 * Integer.BYTES) + columns + priceIndex.heapBytes()
+                + rollups.heapBytes() + bars + columnsLength;
+    }
+
+    private void checkNotEmpty() {
+        if (length == 0) {
+            throw new NoSuchElementException("Empty price series: " + symbol);
+        }
+    }
+
+    public static class Builder {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final String symbol;
+        private int scale;
+        private int size;
+        private long[] timestamps = new long[INITIAL_CAPACITY];
+        private long[] prices = new long[INITIAL_CAPACITY];
+
+        private Builder(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public Builder add(long timestamp, BigDecimal price) {
+            var normalized = price.scale() < 0 ? price.setScale(0) : price;
+            return add(timestamp, normalized.unscaledValue().longValueExact(), normalized.scale());
+        }
+
+        /**
+         * Appends a tick whose price is {@code unscaledPrice * 10^-priceScale}. Already added prices are rescaled
+         * when a tick with a finer scale arrives, so the series ends up with the finest scale seen.
+         */
+        public Builder add(long timestamp, long unscaledPrice, int priceScale) {
+            if (priceScale > scale) {
+                long factor = pow10(priceScale - scale);
+                for (int i = 0; i < size; i++) {
+                    prices[i] = Math.multiplyExact(prices[i], factor);
+                }
+                scale = priceScale;
+            } else if (priceScale < scale) {
+                unscaledPrice = Math.multiplyExact(unscaledPrice, pow10(scale - priceScale));
+            }
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                prices = Arrays.copyOf(prices, size * 2);
+            }
+            timestamps[size] = timestamp;
+            prices[size] = unscaledPrice;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public ColumnarPriceSeries build() {
+            long[] sortedTimestamps = Arrays.copyOf(timestamps, size);
+            long[] sortedPrices = Arrays.copyOf(prices, size);
+            if (!isSorted(sortedTimestamps)) {
+                int[] order = IntStream.range(0, size).boxed()
+                        .sorted((left, right) -> Long.compare(timestamps[left], timestamps[right]))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+                for (int i = 0; i < size; i++) {
+                    sortedTimestamps[i] = timestamps[order[i]];
+                    sortedPrices[i] = prices[order[i]];
+                }
+            }
+            var priceIndex = new RangeMinMaxIndex(sortedPrices, size);
+            var rollups = new PriceRollups(sortedTimestamps, sortedPrices, priceIndex, size);
+            var columnsLength = new AtomicInteger(size);
+            var withoutBars = new ColumnarPriceSeries(symbol, scale, sortedTimestamps, sortedPrices, priceIndex,
+                    rollups, null, 0, size, columnsLength);
+            return new ColumnarPriceSeries(symbol, scale, sortedTimestamps, sortedPrices, priceIndex, rollups,
+                    DailyBars.of(withoutBars), 0, size, columnsLength);
+        }
+
+        private static boolean isSorted(long[] values) {
+            for (int i = 1; i < values.length; i++) {
+                if (values[i] < values[i - 1]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result = Math.multiplyExact(result, 10L);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,37 @@
+package com.xm.data;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Risk and return metrics of one crypto over a window of ticks. Volatilities are standard deviations of the log
+ * returns between consecutive ticks; the rolling ones cover the last {@code rollingWindow} returns.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CryptoAnalytics {
+    private String cryptoName;
+    private Long fromTimestamp;
+    private Long toTimestamp;
+    private Integer ticks;
+    private BigDecimal volatility;
+    private Integer rollingWindow;
+    private BigDecimal rollingVolatility;
+    private BigDecimal maxRollingVolatility;
+    /** Largest fall from a running peak, relative to that peak. */
+    private BigDecimal maxDrawdown;
+    /** Time-weighted average price, each price weighted by how long it stood. */
+    private BigDecimal twap;
+    private BigDecimal meanPrice;
+    /** Return up to the newest tick over each requested period, keyed as requested; missing when the window is shorter. */
+    private Map<String, BigDecimal> returns;
+}
@@ -0,0 +1,73 @@
+package com.xm.data;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Complete, immutable view of the loaded price data. A reload builds a new snapshot off to the side and publishes it
+ * in one step, so readers holding a snapshot never observe a partially loaded data set.
+ * <p>
+ * Each series also carries the version of the snapshot it was last replaced in, so results derived from a series can
+ * be cached across versions that did not change it.
+ */
+@Getter
+public final class CryptoDataSnapshot {
+
+    public static final CryptoDataSnapshot EMPTY = new CryptoDataSnapshot(0, Instant.EPOCH, Map.of());
+
+    private final long version;
+    private final Instant loadedAt;
+    private final Map<String, PriceSeries> priceSeriesByName;
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Long> seriesVersions;
+
+    public CryptoDataSnapshot(long version, Instant loadedAt, Map<String, PriceSeries> priceSeriesByName) {
+        this(version, loadedAt, priceSeriesByName, Map.of());
+    }
+
+    private CryptoDataSnapshot(long version, Instant loadedAt, Map<String, PriceSeries> priceSeriesByName,
+                               Map<String, Long> previousSeriesVersions) {
+        this.version = version;
+        this.loadedAt = loadedAt;
+        this.priceSeriesByName = Collections.unmodifiableMap(priceSeriesByName);
+        Map<String, Long> seriesVersions = new HashMap<>();
+        priceSeriesByName.keySet().forEach(cryptoName ->
+                seriesVersions.put(cryptoName, previousSeriesVersions.getOrDefault(cryptoName, version)));
+        this.seriesVersions = Collections.unmodifiableMap(seriesVersions);
+    }
+
+    /**
+     * Snapshot with the next version. Series that are the same instances as in this snapshot keep their series
+     * version, all others get the new one.
+     */
+    public CryptoDataSnapshot next(Instant loadedAt, Map<String, PriceSeries> priceSeriesByName) {
+        Map<String, Long> unchangedSeriesVersions = new HashMap<>();
+        priceSeriesByName.forEach((cryptoName, priceSeries) -> {
+            if (this.priceSeriesByName.get(cryptoName) == priceSeries) {
+                unchangedSeriesVersions.put(cryptoName, seriesVersions.get(cryptoName));
+            }
+        });
+        return new CryptoDataSnapshot(version + 1, loadedAt, priceSeriesByName, unchangedSeriesVersions);
+    }
+
+    public PriceSeries getPriceSeries(String cryptoName) {
+        return priceSeriesByName.get(cryptoName);
+    }
+
+    /**
+     * Version of the snapshot in which the series was last replaced, or {@code -1} for an unknown crypto.
+     */
+    public long getSeriesVersion(String cryptoName) {
+        return seriesVersions.getOrDefault(cryptoName, -1L);
+    }
+
+    public Set<String> getCryptoNames() {
+        return priceSeriesByName.keySet();
+    }
+}
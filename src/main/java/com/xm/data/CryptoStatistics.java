@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.util.Comparator;
 
 @Data
 @Builder
@@ -14,6 +15,12 @@ import java.math.BigDecimal;
 @NoArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class CryptoStatistics {
+
+    /** Highest normalized range first, ties by crypto name. */
+    public static final Comparator<CryptoStatistics> RANKING_ORDER = Comparator
+            .comparing(CryptoStatistics::getNormalizedRange, Comparator.reverseOrder())
+            .thenComparing(CryptoStatistics::getCryptoName);
+
     private String cryptoName;
     private BigDecimal oldest;
     private BigDecimal newest;
@@ -0,0 +1,173 @@
+package com.xm.data;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Daily open/high/low/close of a {@link PriceSeries}, one bar per UTC calendar day that has at least one tick.
+ * Prices are unscaled with the scale of the series; bars are ordered by epoch day and looked up by binary search.
+ */
+public final class DailyBars {
+
+    public static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final long[] epochDays;
+    private final long[] open;
+    private final long[] high;
+    private final long[] low;
+    private final long[] close;
+    private final int size;
+    private final long lastHigh;
+    private final long lastLow;
+    private final long lastClose;
+
+    private DailyBars(long[] epochDays, long[] open, long[] high, long[] low, long[] close, int size,
+                      long lastHigh, long lastLow, long lastClose) {
+        this.epochDays = epochDays;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.size = size;
+        this.lastHigh = lastHigh;
+        this.lastLow = lastLow;
+        this.lastClose = lastClose;
+    }
+
+    public static DailyBars empty() {
+        return new DailyBars(new long[0], new long[0], new long[0], new long[0], new long[0], 0, 0, 0, 0);
+    }
+
+    public static DailyBars of(PriceSeries priceSeries) {
+        int capacity = priceSeries.isEmpty() ? 0
+                : (int) Math.min(priceSeries.size(),
+                epochDay(priceSeries.getNewestTimestamp()) - epochDay(priceSeries.getOldestTimestamp()) + 1);
+        var empty = new DailyBars(new long[capacity], new long[capacity], new long[capacity], new long[capacity],
+                new long[capacity], 0, 0, 0, 0);
+        return empty.extend(priceSeries::getTimestamp, priceSeries::getUnscaledPrice, 0, priceSeries.size());
+    }
+
+    /**
+     * Bars of a series whose first ticks are the ones these bars were built from, followed by the ticks
+     * {@code [fromIndex, toIndex)} of the given columns. The arrays are shared and written in place when they have
+     * room; the high, low and close of the last bar live in fields, so bars handed out earlier keep their values
+     * while the newest bar of the day keeps moving. Extensions must come from a single writer, and only the newest
+     * bars may be extended.
+     */
+    public DailyBars extend(long[] timestamps, long[] prices, int fromIndex, int toIndex) {
+        return extend(i -> timestamps[i], i -> prices[i], fromIndex, toIndex);
+    }
+
+    /**
+     * Bars followed by the given bars of later ticks with their prices multiplied by {@code priceFactor}, merging the
+     * last bar with the first given one when they fall on the same day. Same sharing rules as
+     * {@link #extend(long[], long[], int, int)}.
+     */
+    public DailyBars extend(DailyBars following, long priceFactor) {
+        return extend(i -> following.epochDays[i >> 2] * DAY_MILLIS, i -> {
+            int bar = i >> 2;
+            switch (i & 3) {
+                case 0:
+                    return Math.multiplyExact(following.getOpen(bar), priceFactor);
+                case 1:
+                    return Math.multiplyExact(following.getHigh(bar), priceFactor);
+                case 2:
+                    return Math.multiplyExact(following.getLow(bar), priceFactor);
+                default:
+                    return Math.multiplyExact(following.getClose(bar), priceFactor);
+            }
+        }, 0, 4 * following.size);
+    }
+
+    private DailyBars extend(IntToLongFunction timestamps, IntToLongFunction prices, int fromIndex, int toIndex) {
+        long[] epochDays = this.epochDays;
+        long[] open = this.open;
+        long[] high = this.high;
+        long[] low = this.low;
+        long[] close = this.close;
+        int bar = size - 1;
+        long barHigh = lastHigh;
+        long barLow = lastLow;
+        long barClose = lastClose;
+        for (int i = fromIndex; i < toIndex; i++) {
+            long day = epochDay(timestamps.applyAsLong(i));
+            long price = prices.applyAsLong(i);
+            if (bar < 0 || epochDays[bar] != day) {
+                if (bar >= 0) {
+                    high[bar] = barHigh;
+                    low[bar] = barLow;
+                    close[bar] = barClose;
+                }
+                bar++;
+                if (bar == epochDays.length) {
+                    int capacity = Math.max(bar + 1, bar + (bar >> 1));
+                    epochDays = Arrays.copyOf(epochDays, capacity);
+                    open = Arrays.copyOf(open, capacity);
+                    high = Arrays.copyOf(high, capacity);
+                    low = Arrays.copyOf(low, capacity);
+                    close = Arrays.copyOf(close, capacity);
+                }
+                epochDays[bar] = day;
+                open[bar] = price;
+                barHigh = price;
+                barLow = price;
+            } else {
+                barHigh = Math.max(barHigh, price);
+                barLow = Math.min(barLow, price);
+            }
+            barClose = price;
+        }
+        if (bar >= 0) {
+            high[bar] = barHigh;
+            low[bar] = barLow;
+            close[bar] = barClose;
+        }
+        return new DailyBars(epochDays, open, high, low, close, bar + 1, barHigh, barLow, barClose);
+    }
+
+    public static long epochDay(long timestamp) {
+        return Math.floorDiv(timestamp, DAY_MILLIS);
+    }
+
+    /**
+     * Shallow heap of these bars with their arrays at capacity.
+     */
+    long heapBytes() {
+        return MemoryFootprint.instanceBytes(5, Integer.BYTES + 3 * Long.BYTES)
+                + 5 * MemoryFootprint.arrayBytes(epochDays.length, Long.BYTES);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Index of the bar of the given day, or {@code -1} when the series has no tick that day.
+     */
+    public int indexOf(LocalDate day) {
+        int index = Arrays.binarySearch(epochDays, 0, size, day.toEpochDay());
+        return index >= 0 ? index : -1;
+    }
+
+    public LocalDate getDay(int index) {
+        return LocalDate.ofEpochDay(epochDays[index]);
+    }
+
+    public long getOpen(int index) {
+        return open[index];
+    }
+
+    public long getHigh(int index) {
+        return index == size - 1 ? lastHigh : high[index];
+    }
+
+    public long getLow(int index) {
+        return index == size - 1 ? lastLow : low[index];
+    }
+
+    public long getClose(int index) {
+        return index == size - 1 ? lastClose : close[index];
+    }
+}
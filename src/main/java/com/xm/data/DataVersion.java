@@ -0,0 +1,33 @@
+package com.xm.data;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Version of the published price data, from which HTTP validators of every response derived from it are built.
+ */
+@Value
+public class DataVersion {
+    long version;
+    Instant loadedAt;
+
+    public static DataVersion of(CryptoDataSnapshot snapshot) {
+        return new DataVersion(snapshot.getVersion(), snapshot.getLoadedAt());
+    }
+
+    /**
+     * Strong entity tag of the JSON representation; the load time is part of it because versions restart from 1
+     * with every application start.
+     */
+    public String getETag() {
+        return "\"" + Long.toString(loadedAt.toEpochMilli(), 36) + "-" + version + "\"";
+    }
+
+    /**
+     * Entity tag of the gzip-compressed representation, which differs from the plain one byte for byte.
+     */
+    public String getGzipETag() {
+        return "\"" + Long.toString(loadedAt.toEpochMilli(), 36) + "-" + version + "-gzip\"";
+    }
+}
@@ -0,0 +1,13 @@
+package com.xm.data;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public enum ExportFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    @Getter
+    private final String mediaType;
+}
@@ -0,0 +1,51 @@
+package com.xm.data;
+
+/**
+ * Shallow heap estimates for a 64-bit JVM with compressed oops and 8 byte object alignment, used to report how much
+ * memory the price store takes compared to the former {@code List<CryptoData>} representation.
+ */
+public final class MemoryFootprint {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    static final int REFERENCE = 4;
+
+    private MemoryFootprint() {
+    }
+
+    /**
+     * {@code ColumnarPriceSeries} as held in a snapshot: its fields and symbol, the two columns, the
+     * {@code RangeMinMaxIndex} over the prices, the {@code PriceRollups} tiers and the {@code DailyBars}. Arrays are
+     * counted at their capacity, since appends leave up to half of them spare.
+     */
+    public static long columnarSeriesBytes(ColumnarPriceSeries priceSeries) {
+        return priceSeries.heapBytes() + stringBytes(priceSeries.getSymbol());
+    }
+
+    /**
+     * {@code ArrayList<CryptoData>}: one list slot, one {@code CryptoData}, one {@code BigDecimal} and one symbol
+     * {@code String} per tick, since the CSV parser hands out a fresh symbol instance for every row.
+     */
+    public static long cryptoDataListBytes(String symbol, int ticks) {
+        long list = align(OBJECT_HEADER + Integer.BYTES * 2 + REFERENCE) + align(ARRAY_HEADER + (long) ticks * REFERENCE);
+        long cryptoData = align(OBJECT_HEADER + Long.BYTES + 2 * REFERENCE);
+        long bigDecimal = align(OBJECT_HEADER + 3 * REFERENCE + 2 * Integer.BYTES + Long.BYTES);
+        return list + ticks * (cryptoData + bigDecimal + stringBytes(symbol));
+    }
+
+    private static long stringBytes(String value) {
+        return align(OBJECT_HEADER + REFERENCE + Integer.BYTES + 2) + align(ARRAY_HEADER + value.length());
+    }
+
+    static long instanceBytes(int references, int primitiveBytes) {
+        return align(OBJECT_HEADER + (long) references * REFERENCE + primitiveBytes);
+    }
+
+    static long arrayBytes(int length, int elementBytes) {
+        return align(ARRAY_HEADER + (long) length * elementBytes);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
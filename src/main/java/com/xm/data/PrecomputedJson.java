@@ -0,0 +1,36 @@
+package com.xm.data;
+
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response body serialized once per data version, as plain and as gzip-compressed JSON, so serving it costs no
+ * computation and no serialization. The arrays are shared and must not be modified.
+ */
+@Getter
+public final class PrecomputedJson {
+
+    private final DataVersion dataVersion;
+    private final byte[] json;
+    private final byte[] gzippedJson;
+
+    public PrecomputedJson(DataVersion dataVersion, byte[] json) {
+        this.dataVersion = dataVersion;
+        this.json = json;
+        this.gzippedJson = gzip(json);
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        var outputStream = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (var gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return outputStream.toByteArray();
+    }
+}
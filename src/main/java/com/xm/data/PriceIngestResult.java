@@ -0,0 +1,15 @@
+package com.xm.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceIngestResult {
+    // Ticks buffered for the next published snapshot
+    private long accepted;
+}
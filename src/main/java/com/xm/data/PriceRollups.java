@@ -0,0 +1,206 @@
+package com.xm.data;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical OHLC rollups of a price column: one tier of minute, hour and day bars, each bar holding the index of
+ * its first tick, its high and its low. The open and close of a bar are the prices of its first and last tick, so they
+ * are read from the column instead of being stored.
+ * <p>
+ * Bars of a {@link BarInterval} are answered from the coarsest tier whose width divides the interval. Bars of both are
+ * aligned to the epoch, so every tier bar falls into a single bar of the interval: a bar costs one read per tier bar,
+ * and only the tier bars cut by the edges of the requested ticks fall back to the {@link RangeMinMaxIndex}. A tier
+ * with more than one bar per two ticks saves little over the ticks themselves, minute bars of minute ticks for
+ * instance, so it is no longer kept once the column holds {@value #SPARSE_TIER_MIN_TICKS} ticks.
+ */
+final class PriceRollups {
+
+    static final BarInterval[] TIERS = {BarInterval.ONE_MINUTE, BarInterval.ONE_HOUR, BarInterval.ONE_DAY};
+    static final int SPARSE_TIER_MIN_TICKS = 4096;
+
+    private final long[] timestamps;
+    private final long[] prices;
+    private final RangeMinMaxIndex priceIndex;
+    private final int length;
+    // In the order of TIERS, null once dropped
+    private final Tier[] tiers;
+
+    PriceRollups(long[] timestamps, long[] prices, RangeMinMaxIndex priceIndex, int length) {
+        this(timestamps, prices, priceIndex, Arrays.stream(TIERS).map(Tier::new).toArray(Tier[]::new), 0, length);
+    }
+
+    private PriceRollups(long[] timestamps, long[] prices, RangeMinMaxIndex priceIndex, Tier[] tiers, int oldLength,
+                         int length) {
+        this.timestamps = timestamps;
+        this.prices = prices;
+        this.priceIndex = priceIndex;
+        this.length = length;
+        this.tiers = new Tier[tiers.length];
+        for (int i = 0; i < tiers.length; i++) {
+            Tier tier = tiers[i] == null ? null : tiers[i].extend(timestamps, prices, oldLength, length);
+            this.tiers[i] = tier != null && length >= SPARSE_TIER_MIN_TICKS && 2L * tier.size > length ? null : tier;
+        }
+    }
+
+    /**
+     * Rollups of {@code prices[0, newLength)} where the first {@code oldLength} ticks are the ones these rollups were
+     * built over. Same sharing rules as {@link DailyBars#extend(long[], long[], int, int)}.
+     */
+    PriceRollups extend(long[] timestamps, long[] prices, RangeMinMaxIndex priceIndex, int oldLength, int newLength) {
+        return new PriceRollups(timestamps, prices, priceIndex, tiers, oldLength, newLength);
+    }
+
+    /**
+     * Whether a kept tier divides the interval, so {@link #forEachBar} can answer it.
+     */
+    boolean covers(BarInterval interval) {
+        return tierFor(interval) != null;
+    }
+
+    /**
+     * Bars of the interval over the ticks {@code [fromIndex, toIndex)}, which must be covered by these rollups.
+     */
+    <X extends Exception> void forEachBar(BarInterval interval, int fromIndex, int toIndex, BarConsumer<X> consumer)
+            throws X {
+        Tier tier = tierFor(interval);
+        int tierBar = tier.barOf(fromIndex);
+        int i = fromIndex;
+        while (i < toIndex) {
+            long barStart = interval.getBarStart(timestamps[i]);
+            long barEnd = barStart + interval.getMillis();
+            long high = Long.MIN_VALUE;
+            long low = Long.MAX_VALUE;
+            int end = i;
+            // Tick end always lies in tierBar, as tier bars follow each other without gaps
+            while (end < toIndex && timestamps[end] < barEnd) {
+                int tierFrom = tier.firstTicks[tierBar];
+                int tierTo = tierBar + 1 < tier.size ? tier.firstTicks[tierBar + 1] : length;
+                if (tierFrom >= fromIndex && tierTo <= toIndex) {
+                    high = Math.max(high, tier.getHigh(tierBar));
+                    low = Math.min(low, tier.getLow(tierBar));
+                } else {
+                    int from = Math.max(tierFrom, fromIndex);
+                    int to = Math.min(tierTo, toIndex);
+                    high = Math.max(high, priceIndex.max(from, to));
+                    low = Math.min(low, priceIndex.min(from, to));
+                }
+                end = Math.min(tierTo, toIndex);
+                tierBar++;
+            }
+            consumer.accept(barStart, prices[i], high, low, prices[end - 1]);
+            i = end;
+        }
+    }
+
+    /**
+     * Shallow heap of these rollups and their kept tiers at capacity, the columns and the index excluded.
+     */
+    long heapBytes() {
+        long bytes = MemoryFootprint.instanceBytes(4, Integer.BYTES)
+                + MemoryFootprint.arrayBytes(tiers.length, MemoryFootprint.REFERENCE);
+        for (Tier tier : tiers) {
+            if (tier != null) {
+                bytes += MemoryFootprint.instanceBytes(4, Integer.BYTES + 3 * Long.BYTES)
+                        + MemoryFootprint.arrayBytes(tier.firstTicks.length, Integer.BYTES)
+                        + 2 * MemoryFootprint.arrayBytes(tier.highs.length, Long.BYTES);
+            }
+        }
+        return bytes;
+    }
+
+    private Tier tierFor(BarInterval interval) {
+        for (int i = tiers.length - 1; i >= 0; i--) {
+            if (tiers[i] != null && interval.getMillis() % TIERS[i].getMillis() == 0) {
+                return tiers[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Bars of one width, built the same way as {@link DailyBars}: the high and low of the last bar live in fields, so
+     * versions handed out earlier keep their values while the newest bar keeps moving.
+     */
+    private static final class Tier {
+
+        private final BarInterval interval;
+        private final int[] firstTicks;
+        private final long[] highs;
+        private final long[] lows;
+        private final int size;
+        private final long lastBarStart;
+        private final long lastHigh;
+        private final long lastLow;
+
+        Tier(BarInterval interval) {
+            this(interval, new int[0], new long[0], new long[0], 0, 0, 0, 0);
+        }
+
+        private Tier(BarInterval interval, int[] firstTicks, long[] highs, long[] lows, int size, long lastBarStart,
+                     long lastHigh, long lastLow) {
+            this.interval = interval;
+            this.firstTicks = firstTicks;
+            this.highs = highs;
+            this.lows = lows;
+            this.size = size;
+            this.lastBarStart = lastBarStart;
+            this.lastHigh = lastHigh;
+            this.lastLow = lastLow;
+        }
+
+        Tier extend(long[] timestamps, long[] prices, int fromIndex, int toIndex) {
+            int[] firstTicks = this.firstTicks;
+            long[] highs = this.highs;
+            long[] lows = this.lows;
+            int bar = size - 1;
+            long barStart = lastBarStart;
+            long barHigh = lastHigh;
+            long barLow = lastLow;
+            for (int i = fromIndex; i < toIndex; i++) {
+                long start = interval.getBarStart(timestamps[i]);
+                long price = prices[i];
+                if (bar < 0 || start != barStart) {
+                    if (bar >= 0) {
+                        highs[bar] = barHigh;
+                        lows[bar] = barLow;
+                    }
+                    bar++;
+                    if (bar == firstTicks.length) {
+                        int capacity = Math.max(bar + 1, bar + (bar >> 1));
+                        firstTicks = Arrays.copyOf(firstTicks, capacity);
+                        highs = Arrays.copyOf(highs, capacity);
+                        lows = Arrays.copyOf(lows, capacity);
+                    }
+                    firstTicks[bar] = i;
+                    barStart = start;
+                    barHigh = price;
+                    barLow = price;
+                } else {
+                    barHigh = Math.max(barHigh, price);
+                    barLow = Math.min(barLow, price);
+                }
+            }
+            if (bar >= 0) {
+                highs[bar] = barHigh;
+                lows[bar] = barLow;
+            }
+            return new Tier(interval, firstTicks, highs, lows, bar + 1, barStart, barHigh, barLow);
+        }
+
+        /**
+         * Index of the bar holding the given tick.
+         */
+        int barOf(int tick) {
+            int index = Arrays.binarySearch(firstTicks, 0, size, tick);
+            return index >= 0 ? index : -index - 2;
+        }
+
+        long getHigh(int bar) {
+            return bar == size - 1 ? lastHigh : highs[bar];
+        }
+
+        long getLow(int bar) {
+            return bar == size - 1 ? lastLow : lows[bar];
+        }
+    }
+}
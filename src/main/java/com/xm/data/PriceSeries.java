@@ -0,0 +1,152 @@
+package com.xm.data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Read-only, timestamp-ordered price history of a single crypto.
+ * <p>
+ * Prices are exposed as fixed-point values: {@link #getUnscaledPrice(int)} combined with the series wide
+ * {@link #getScale()} gives the exact decimal price, so comparisons inside a series never need {@link BigDecimal}.
+ * Ticks are sorted by timestamp, which lets time windows be located by binary search and exposed as views sharing
+ * the underlying storage.
+ */
+public interface PriceSeries {
+
+    String getSymbol();
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    long getTimestamp(int index);
+
+    long getUnscaledPrice(int index);
+
+    int getScale();
+
+    default BigDecimal getPrice(int index) {
+        return BigDecimal.valueOf(getUnscaledPrice(index), getScale());
+    }
+
+    default CryptoData getCryptoData(int index) {
+        return new CryptoData(getTimestamp(index), getSymbol(), getPrice(index));
+    }
+
+    /**
+     * Zero-copy view over the ticks {@code [fromIndex, toIndex)} of this series.
+     */
+    PriceSeries subSeries(int fromIndex, int toIndex);
+
+    /**
+     * Index of the first tick with a timestamp greater than or equal to {@code timestamp}, or {@link #size()} when
+     * there is none.
+     */
+    default int firstIndexAtOrAfter(long timestamp) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getTimestamp(middle) < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Zero-copy view over the ticks with {@code fromTimestamp <= timestamp <= toTimestamp}.
+     */
+    default PriceSeries window(long fromTimestamp, long toTimestamp) {
+        int fromIndex = firstIndexAtOrAfter(fromTimestamp);
+        int toIndex = toTimestamp == Long.MAX_VALUE ? size() : firstIndexAtOrAfter(toTimestamp + 1);
+        return subSeries(fromIndex, Math.max(fromIndex, toIndex));
+    }
+
+    /**
+     * Lowest unscaled price of the series; implementations backed by a range index answer without scanning.
+     */
+    default long getMinUnscaledPrice() {
+        long min = getUnscaledPrice(0);
+        for (int i = 1; i < size(); i++) {
+            min = Math.min(min, getUnscaledPrice(i));
+        }
+        return min;
+    }
+
+    /**
+     * Highest unscaled price of the series; implementations backed by a range index answer without scanning.
+     */
+    default long getMaxUnscaledPrice() {
+        long max = getUnscaledPrice(0);
+        for (int i = 1; i < size(); i++) {
+            max = Math.max(max, getUnscaledPrice(i));
+        }
+        return max;
+    }
+
+    /**
+     * Daily OHLC bars of the series; implementations may precompute them at load.
+     */
+    default DailyBars getDailyBars() {
+        return DailyBars.of(this);
+    }
+
+    /**
+     * Calls {@code consumer} with the OHLC bar of every {@code interval} holding ticks of this series, oldest first.
+     * Ticks are ordered by timestamp, so a bar is complete as soon as a tick falls into a later one; implementations
+     * holding rollups answer whole bars without reading their ticks.
+     */
+    default <X extends Exception> void forEachBar(BarInterval interval, BarConsumer<X> consumer) throws X {
+        if (isEmpty()) {
+            return;
+        }
+        long barStart = interval.getBarStart(getTimestamp(0));
+        long open = getUnscaledPrice(0);
+        long high = open;
+        long low = open;
+        long close = open;
+        for (int i = 1; i < size(); i++) {
+            long timestamp = getTimestamp(i);
+            long price = getUnscaledPrice(i);
+            if (timestamp >= barStart + interval.getMillis()) {
+                consumer.accept(barStart, open, high, low, close);
+                barStart = interval.getBarStart(timestamp);
+                open = price;
+                high = price;
+                low = price;
+            } else {
+                high = Math.max(high, price);
+                low = Math.min(low, price);
+            }
+            close = price;
+        }
+        consumer.accept(barStart, open, high, low, close);
+    }
+
+    /**
+     * Series holding the ticks of this series followed by the ticks of {@code tail}, sorted by timestamp and at the
+     * finer of both scales. This series is left untouched.
+     */
+    default PriceSeries append(PriceSeries tail) {
+        var builder = ColumnarPriceSeries.builder(getSymbol());
+        for (PriceSeries part : List.of(this, tail)) {
+            for (int i = 0; i < part.size(); i++) {
+                builder.add(part.getTimestamp(i), part.getUnscaledPrice(i), part.getScale());
+            }
+        }
+        return builder.build();
+    }
+
+    default long getOldestTimestamp() {
+        return getTimestamp(0);
+    }
+
+    default long getNewestTimestamp() {
+        return getTimestamp(size() - 1);
+    }
+}
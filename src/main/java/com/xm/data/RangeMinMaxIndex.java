@@ -0,0 +1,136 @@
+package com.xm.data;
+
+import java.util.Arrays;
+
+/**
+ * Range minimum/maximum index over a price column.
+ * <p>
+ * The column is split into blocks of {@value #BLOCK_SIZE} prices. A sparse table over the block minima and maxima
+ * answers any run of whole blocks with two lookups, and the partial blocks at the edges of a range are scanned, so a
+ * query costs at most {@code 2 * BLOCK_SIZE} reads whatever the range length. The table takes
+ * {@code O(n / BLOCK_SIZE * log(n / BLOCK_SIZE))} longs, a small fraction of the column itself.
+ */
+final class RangeMinMaxIndex {
+
+    static final int BLOCK_SIZE = 64;
+    private static final int BLOCK_SHIFT = 6;
+
+    private final long[] prices;
+    private final long[][] minTable;
+    private final long[][] maxTable;
+
+    RangeMinMaxIndex(long[] prices, int length) {
+        this(prices, new long[0][], new long[0][], 0, length);
+    }
+
+    private RangeMinMaxIndex(long[] prices, long[][] minTable, long[][] maxTable, int oldLength, int length) {
+        this.prices = prices;
+        int blocks = (length + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+        int levels = blocks == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(blocks);
+        this.minTable = Arrays.copyOf(minTable, levels);
+        this.maxTable = Arrays.copyOf(maxTable, levels);
+        int firstChangedBlock = oldLength >>> BLOCK_SHIFT;
+        for (int level = 0; level < levels; level++) {
+            int entries = blocks - (1 << level) + 1;
+            this.minTable[level] = ensureCapacity(this.minTable[level], entries);
+            this.maxTable[level] = ensureCapacity(this.maxTable[level], entries);
+            for (int block = Math.max(0, firstChangedBlock - (1 << level) + 1); block < entries; block++) {
+                if (level == 0) {
+                    int from = block << BLOCK_SHIFT;
+                    int to = Math.min(from + BLOCK_SIZE, length);
+                    this.minTable[0][block] = scanMin(from, to);
+                    this.maxTable[0][block] = scanMax(from, to);
+                } else {
+                    int span = 1 << (level - 1);
+                    this.minTable[level][block] = Math.min(this.minTable[level - 1][block],
+                            this.minTable[level - 1][block + span]);
+                    this.maxTable[level][block] = Math.max(this.maxTable[level - 1][block],
+                            this.maxTable[level - 1][block + span]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Index of {@code prices[0, newLength)} where the first {@code oldLength} prices are the ones this index was
+     * built over. Only the entries touching the last partial block and the new blocks are computed, in place when the
+     * tables have room. Entries read by this index are never rewritten, so it stays valid for the shorter series.
+     */
+    RangeMinMaxIndex extend(long[] prices, int oldLength, int newLength) {
+        return new RangeMinMaxIndex(prices, minTable, maxTable, oldLength, newLength);
+    }
+
+    /**
+     * Shallow heap of this index and its tables at their capacity, the price column excluded.
+     */
+    long heapBytes() {
+        long bytes = MemoryFootprint.instanceBytes(3, 0)
+                + 2 * MemoryFootprint.arrayBytes(minTable.length, MemoryFootprint.REFERENCE);
+        for (int level = 0; level < minTable.length; level++) {
+            bytes += MemoryFootprint.arrayBytes(minTable[level].length, Long.BYTES)
+                    + MemoryFootprint.arrayBytes(maxTable[level].length, Long.BYTES);
+        }
+        return bytes;
+    }
+
+    private static long[] ensureCapacity(long[] table, int entries) {
+        if (table == null) {
+            return new long[entries];
+        }
+        return table.length >= entries ? table : Arrays.copyOf(table, Math.max(entries, table.length + (table.length >> 1)));
+    }
+
+    /**
+     * Minimum price of {@code [fromIndex, toIndex)}; the range must not be empty.
+     */
+    long min(int fromIndex, int toIndex) {
+        int firstBlock = fromIndex >>> BLOCK_SHIFT;
+        int lastBlock = (toIndex - 1) >>> BLOCK_SHIFT;
+        if (firstBlock == lastBlock) {
+            return scanMin(fromIndex, toIndex);
+        }
+        long min = Math.min(scanMin(fromIndex, (firstBlock + 1) << BLOCK_SHIFT), scanMin(lastBlock << BLOCK_SHIFT, toIndex));
+        if (firstBlock + 1 < lastBlock) {
+            int level = level(lastBlock - firstBlock - 1);
+            min = Math.min(min, Math.min(minTable[level][firstBlock + 1], minTable[level][lastBlock - (1 << level)]));
+        }
+        return min;
+    }
+
+    /**
+     * Maximum price of {@code [fromIndex, toIndex)}; the range must not be empty.
+     */
+    long max(int fromIndex, int toIndex) {
+        int firstBlock = fromIndex >>> BLOCK_SHIFT;
+        int lastBlock = (toIndex - 1) >>> BLOCK_SHIFT;
+        if (firstBlock == lastBlock) {
+            return scanMax(fromIndex, toIndex);
+        }
+        long max = Math.max(scanMax(fromIndex, (firstBlock + 1) << BLOCK_SHIFT), scanMax(lastBlock << BLOCK_SHIFT, toIndex));
+        if (firstBlock + 1 < lastBlock) {
+            int level = level(lastBlock - firstBlock - 1);
+            max = Math.max(max, Math.max(maxTable[level][firstBlock + 1], maxTable[level][lastBlock - (1 << level)]));
+        }
+        return max;
+    }
+
+    private long scanMin(int fromIndex, int toIndex) {
+        long min = Long.MAX_VALUE;
+        for (int i = fromIndex; i < toIndex; i++) {
+            min = Math.min(min, prices[i]);
+        }
+        return min;
+    }
+
+    private long scanMax(int fromIndex, int toIndex) {
+        long max = Long.MIN_VALUE;
+        for (int i = fromIndex; i < toIndex; i++) {
+            max = Math.max(max, prices[i]);
+        }
+        return max;
+    }
+
+    private static int level(int blocks) {
+        return 31 - Integer.numberOfLeadingZeros(blocks);
+    }
+}
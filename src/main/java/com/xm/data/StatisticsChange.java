@@ -0,0 +1,37 @@
+package com.xm.data;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Difference between two versions of the whole-history ranking: applied to the ranking of {@code previousVersion}, it
+ * gives the ranking of {@code version}. Unchanged cryptos and unchanged ranks are left out.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class StatisticsChange {
+    private long previousVersion;
+    private long version;
+    /** New cryptos and cryptos whose statistics changed. */
+    private List<CryptoStatistics> updated;
+    /** Cryptos no longer ranked. */
+    private List<String> removed;
+    /** New 1-based rank of every crypto that moved or was added. */
+    private Map<String, Integer> ranks;
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return (updated == null || updated.isEmpty()) && (removed == null || removed.isEmpty())
+                && (ranks == null || ranks.isEmpty());
+    }
+}
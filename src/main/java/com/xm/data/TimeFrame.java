@@ -1,7 +1,23 @@
 package com.xm.data;
 
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+import java.time.Period;
+import java.time.ZoneOffset;
+
+@RequiredArgsConstructor
 public enum TimeFrame {
-    ONE_MONTH,
-    SIX_MONTHS,
-    ONE_YEAR
+    ONE_MONTH(Period.ofMonths(1)),
+    SIX_MONTHS(Period.ofMonths(6)),
+    ONE_YEAR(Period.ofYears(1));
+
+    private final Period period;
+
+    /**
+     * Start of the time frame that ends at {@code endTimestamp}, calendar arithmetic done in UTC.
+     */
+    public long getStartTimestamp(long endTimestamp) {
+        return Instant.ofEpochMilli(endTimestamp).atOffset(ZoneOffset.UTC).minus(period).toInstant().toEpochMilli();
+    }
 }
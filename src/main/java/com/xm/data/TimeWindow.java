@@ -0,0 +1,16 @@
+package com.xm.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Epoch millis bounds, both inclusive; a missing bound leaves that side open.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimeWindow {
+    private Long from;
+    private Long to;
+}
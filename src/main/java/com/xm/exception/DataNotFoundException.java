@@ -7,4 +7,8 @@ public class DataNotFoundException extends RuntimeException {
     public DataNotFoundException(TimeFrame timeFrame) {
         super("No data available for the specified time frame: " + timeFrame);
     }
-}
\ No newline at end of file
+
+    public DataNotFoundException(long fromTimestamp, long toTimestamp) {
+        super("No data available between " + fromTimestamp + " and " + toTimestamp);
+    }
+}
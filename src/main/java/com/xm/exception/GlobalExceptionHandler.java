@@ -1,6 +1,8 @@
 package com.xm.exception;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -22,4 +24,49 @@ public class GlobalExceptionHandler {
     public ErrorResponse handleDataNotFoundException(DataNotFoundException ex) {
         return new ErrorResponse("DATA_NOT_FOUND", ex.getMessage());
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(InvalidBatchRequestException.class)
+    @ResponseBody
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleInvalidBatchRequestException(InvalidBatchRequestException ex) {
+        return new ErrorResponse("INVALID_BATCH_REQUEST", ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidAnalyticsRequestException.class)
+    @ResponseBody
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleInvalidAnalyticsRequestException(InvalidAnalyticsRequestException ex) {
+        return new ErrorResponse("INVALID_ANALYTICS_REQUEST", ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidPriceIngestRequestException.class)
+    @ResponseBody
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleInvalidPriceIngestRequestException(InvalidPriceIngestRequestException ex) {
+        return new ErrorResponse("INVALID_PRICE_INGEST_REQUEST", ex.getMessage());
+    }
+
+    @ExceptionHandler(IngestBackpressureException.class)
+    @ResponseBody
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleIngestBackpressureException(IngestBackpressureException ex) {
+        return new ErrorResponse("INGEST_BACKPRESSURE", ex.getMessage());
+    }
+
+    @ExceptionHandler(ShardUnavailableException.class)
+    @ResponseBody
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleShardUnavailableException(ShardUnavailableException ex) {
+        return new ErrorResponse("SHARD_UNAVAILABLE", ex.getMessage());
+    }
+
+    /**
+     * Declares JSON itself, since stream clients usually accept {@code text/event-stream} only.
+     */
+    @ExceptionHandler(StreamSubscribersExceededException.class)
+    public ResponseEntity<ErrorResponse> handleStreamSubscribersExceededException(StreamSubscribersExceededException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorResponse("STREAM_SUBSCRIBERS_EXCEEDED", ex.getMessage()));
+    }
+}
@@ -0,0 +1,10 @@
+package com.xm.exception;
+
+/**
+ * The buffer of pushed prices stayed full for longer than the producer may wait; ticks read before were accepted.
+ */
+public class IngestBackpressureException extends RuntimeException {
+    public IngestBackpressureException(String message) {
+        super(message);
+    }
+}
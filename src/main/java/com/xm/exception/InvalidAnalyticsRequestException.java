@@ -0,0 +1,7 @@
+package com.xm.exception;
+
+public class InvalidAnalyticsRequestException extends RuntimeException {
+    public InvalidAnalyticsRequestException(String message) {
+        super(message);
+    }
+}
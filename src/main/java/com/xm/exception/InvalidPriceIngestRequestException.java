@@ -0,0 +1,7 @@
+package com.xm.exception;
+
+public class InvalidPriceIngestRequestException extends RuntimeException {
+    public InvalidPriceIngestRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.xm.exception;
+
+/**
+ * A node of the cluster did not answer a scatter-gather request, so the merged result would be incomplete.
+ */
+public class ShardUnavailableException extends RuntimeException {
+    public ShardUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,10 @@
+package com.xm.exception;
+
+/**
+ * The statistics stream already serves {@code statistics.stream.max-subscribers} clients.
+ */
+public class StreamSubscribersExceededException extends RuntimeException {
+    public StreamSubscribersExceededException(String message) {
+        super(message);
+    }
+}
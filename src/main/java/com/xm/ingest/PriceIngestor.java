@@ -0,0 +1,305 @@
+package com.xm.ingest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.xm.cluster.SymbolPartition;
+import com.xm.data.ColumnarPriceSeries;
+import com.xm.data.CryptoData;
+import com.xm.data.PriceSeries;
+import com.xm.exception.IngestBackpressureException;
+import com.xm.exception.InvalidPriceIngestRequestException;
+import com.xm.reader.PriceSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+/**
+ * Accepts pushed prices, from {@code POST /crypto/prices} and the {@link PriceSocketListener}, and applies them to the
+ * {@link PriceSource} from a single consumer thread.
+ * <p>
+ * Producers only validate a tick and offer it to the {@link TickRingBuffer} of its symbol, waiting for the consumer
+ * while the buffer is full. The consumer drains every buffer into per-symbol batches and appends them to the price
+ * source every {@code ingest.publish-interval-millis}, one snapshot per batch, so the series, their range indexes,
+ * rollups and daily bars are extended in place by one writer and readers of the published snapshots never wait.
+ */
+@Slf4j
+@Component
+public class PriceIngestor {
+
+    // Same symbols the segment store accepts as folder names
+    private static final Pattern SYMBOL = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9_.-]*");
+    // Keeps rescaling a series to a finer pushed price far from overflowing its fixed-point prices
+    static final int MAX_SCALE = 12;
+    private static final int MAX_DRAIN_PER_SYMBOL = 4096;
+    private static final int MAX_PENDING_TICKS = 1 << 20;
+    private static final long FULL_BUFFER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final PriceSource priceSource;
+    private final ObjectReader cryptoDataReader;
+    private final MeterRegistry meterRegistry;
+    private final Counter appliedTicks;
+    private final Counter failedTicks;
+    private final Timer publishTimer;
+
+    @Autowired(required = false)
+    private SymbolPartition symbolPartition = SymbolPartition.ALL;
+
+    @Value("${ingest.ring-capacity:8192}")
+    private int ringCapacity = 8192;
+
+    @Value("${ingest.max-symbols:1000}")
+    private int maxSymbols = 1000;
+
+    @Value("${ingest.publish-interval-millis:100}")
+    private long publishIntervalMillis = 100;
+
+    @Value("${ingest.offer-timeout-millis:5000}")
+    private long offerTimeoutMillis = 5000;
+
+    private final Map<String, TickRingBuffer> ringBuffers = new ConcurrentHashMap<>();
+    // Only touched by the consumer thread
+    private final Map<String, ColumnarPriceSeries.Builder> pending = new HashMap<>();
+    private int pendingTicks;
+    private Thread consumerThread;
+    private volatile boolean running;
+    private volatile boolean consumerIdle;
+
+    public PriceIngestor(PriceSource priceSource, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.priceSource = priceSource;
+        this.cryptoDataReader = objectMapper.readerFor(CryptoData.class);
+        this.meterRegistry = meterRegistry;
+        this.appliedTicks = appliedCounter("applied", meterRegistry);
+        this.failedTicks = appliedCounter("failed", meterRegistry);
+        this.publishTimer = Timer.builder("crypto.ingest.publish")
+                .description("Appending a batch of pushed ticks to the price source and publishing the snapshot")
+                .register(meterRegistry);
+        Gauge.builder("crypto.ingest.backlog", this, PriceIngestor::backlog)
+                .description("Pushed ticks waiting in the ring buffers")
+                .register(meterRegistry);
+    }
+
+    private static Counter appliedCounter(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("crypto.ingest.applied")
+                .description("Pushed ticks appended to the price source, or dropped when the append failed")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        consumerThread = new Thread(this::consume, "price-ingestor");
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    /**
+     * Applies the ticks still buffered before returning.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (consumerThread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(consumerThread);
+        consumerThread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * {@link #ingest(InputStream, String, long)} waiting up to {@code ingest.offer-timeout-millis} for room.
+     */
+    public long ingest(InputStream inputStream, String transport) throws IOException {
+        return ingest(inputStream, transport, offerTimeoutMillis);
+    }
+
+    /**
+     * Reads {@link CryptoData} objects from the stream, as a JSON array or one per line, and buffers their ticks.
+     * Waits up to {@code timeoutMillis} for room whenever a buffer is full, forever when negative. Returns the number
+     * of ticks accepted; ticks read before an invalid record or a timeout stay accepted.
+     *
+     * @throws InvalidPriceIngestRequestException on an unreadable or invalid record, or too many symbols
+     * @throws IngestBackpressureException        when a buffer stayed full for {@code timeoutMillis}
+     */
+    public long ingest(InputStream inputStream, String transport, long timeoutMillis) throws IOException {
+        long accepted = 0;
+        try (MappingIterator<CryptoData> records = cryptoDataReader.readValues(inputStream)) {
+            while (records.hasNextValue()) {
+                offer(records.nextValue(), timeoutMillis);
+                accepted++;
+            }
+        } catch (JsonProcessingException e) {
+            throw new InvalidPriceIngestRequestException("Unreadable price record " + (accepted + 1) + ": "
+                    + e.getOriginalMessage() + acceptedBefore(accepted));
+        } catch (InvalidPriceIngestRequestException e) {
+            throw new InvalidPriceIngestRequestException(e.getMessage() + acceptedBefore(accepted));
+        } catch (IngestBackpressureException e) {
+            throw new IngestBackpressureException(e.getMessage() + acceptedBefore(accepted));
+        } finally {
+            Counter.builder("crypto.ingest.ticks")
+                    .description("Pushed ticks accepted into the ring buffers")
+                    .tag("transport", transport)
+                    .register(meterRegistry)
+                    .increment(accepted);
+        }
+        return accepted;
+    }
+
+    private static String acceptedBefore(long accepted) {
+        return " (accepted " + accepted + " ticks before)";
+    }
+
+    /**
+     * Validates the tick and buffers it with the smallest scale that represents its price exactly.
+     */
+    void offer(CryptoData cryptoData, long timeoutMillis) {
+        String symbol = cryptoData.getSymbol();
+        if (symbol == null || !SYMBOL.matcher(symbol).matches()) {
+            throw new InvalidPriceIngestRequestException("Invalid symbol: " + symbol);
+        }
+        if (!symbolPartition.owns(symbol)) {
+            throw new InvalidPriceIngestRequestException(symbol + " is served by " + symbolPartition.ownerOf(symbol));
+        }
+        if (cryptoData.getTimestamp() <= 0) {
+            throw new InvalidPriceIngestRequestException("Timestamp must be positive epoch millis, got "
+                    + cryptoData.getTimestamp());
+        }
+        BigDecimal price = cryptoData.getPrice();
+        if (price == null || price.signum() <= 0) {
+            throw new InvalidPriceIngestRequestException("Price must be positive, got " + price);
+        }
+        price = price.stripTrailingZeros();
+        if (price.scale() < 0) {
+            price = price.setScale(0);
+        }
+        if (price.scale() > MAX_SCALE || price.unscaledValue().bitLength() >= Long.SIZE) {
+            throw new InvalidPriceIngestRequestException("Price out of range: " + cryptoData.getPrice());
+        }
+        offer(symbol, cryptoData.getTimestamp(), price.unscaledValue().longValue(), price.scale(), timeoutMillis);
+    }
+
+    private void offer(String symbol, long timestamp, long unscaledPrice, int scale, long timeoutMillis) {
+        TickRingBuffer ringBuffer = ringBuffers.get(symbol);
+        if (ringBuffer == null) {
+            ringBuffer = newRingBuffer(symbol);
+        }
+        if (!ringBuffer.offer(timestamp, unscaledPrice, scale)) {
+            long started = System.nanoTime();
+            do {
+                LockSupport.unpark(consumerThread);
+                LockSupport.parkNanos(FULL_BUFFER_PARK_NANOS);
+                if (timeoutMillis >= 0 && System.nanoTime() - started > TimeUnit.MILLISECONDS.toNanos(timeoutMillis)) {
+                    throw new IngestBackpressureException("Prices of " + symbol + " are arriving faster than they are "
+                            + "applied, the buffer of " + ringBuffer.capacity() + " ticks stayed full for "
+                            + timeoutMillis + " ms");
+                }
+            } while (!ringBuffer.offer(timestamp, unscaledPrice, scale));
+        }
+        if (consumerIdle) {
+            LockSupport.unpark(consumerThread);
+        }
+    }
+
+    private TickRingBuffer newRingBuffer(String symbol) {
+        synchronized (ringBuffers) {
+            TickRingBuffer ringBuffer = ringBuffers.get(symbol);
+            if (ringBuffer == null) {
+                if (ringBuffers.size() >= maxSymbols) {
+                    throw new InvalidPriceIngestRequestException("Prices are pushed for more than " + maxSymbols
+                            + " symbols, see ingest.max-symbols");
+                }
+                ringBuffer = new TickRingBuffer(ringCapacity);
+                ringBuffers.put(symbol, ringBuffer);
+            }
+            return ringBuffer;
+        }
+    }
+
+    /**
+     * Ticks buffered and not yet drained by the consumer.
+     */
+    public long backlog() {
+        return ringBuffers.values().stream().mapToLong(TickRingBuffer::size).sum();
+    }
+
+    private void consume() {
+        long publishIntervalNanos = TimeUnit.MILLISECONDS.toNanos(publishIntervalMillis);
+        long lastPublished = System.nanoTime();
+        while (running) {
+            int drained = drain();
+            long now = System.nanoTime();
+            if (pendingTicks > 0 && (now - lastPublished >= publishIntervalNanos || pendingTicks >= MAX_PENDING_TICKS)) {
+                publishPending();
+                lastPublished = now;
+            } else if (drained == 0) {
+                // Producers unpark an idle consumer, the timeout only bounds how late pending ticks are published
+                consumerIdle = true;
+                if (backlog() == 0) {
+                    LockSupport.parkNanos(pendingTicks > 0
+                            ? Math.max(0, publishIntervalNanos - (now - lastPublished)) : publishIntervalNanos);
+                }
+                consumerIdle = false;
+            }
+        }
+        drain();
+        publishPending();
+    }
+
+    private int drain() {
+        int drained = 0;
+        for (Map.Entry<String, TickRingBuffer> ringBuffer : ringBuffers.entrySet()) {
+            if (ringBuffer.getValue().size() > 0) {
+                int ticks = ringBuffer.getValue().drainTo(
+                        pending.computeIfAbsent(ringBuffer.getKey(), ColumnarPriceSeries::builder),
+                        MAX_DRAIN_PER_SYMBOL);
+                drained += ticks;
+            }
+        }
+        pendingTicks += drained;
+        return drained;
+    }
+
+    private void publishPending() {
+        Map<String, PriceSeries> ticksByName = new HashMap<>();
+        pending.forEach((symbol, builder) -> {
+            if (builder.size() > 0) {
+                ticksByName.put(symbol, builder.build());
+            }
+        });
+        int ticks = pendingTicks;
+        pending.clear();
+        pendingTicks = 0;
+        if (ticksByName.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            priceSource.append(ticksByName);
+            appliedTicks.increment(ticks);
+        } catch (IOException | RuntimeException e) {
+            failedTicks.increment(ticks);
+            log.error("Dropped {} pushed ticks of {} cryptos", ticks, ticksByName.size(), e);
+        } finally {
+            publishTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+}
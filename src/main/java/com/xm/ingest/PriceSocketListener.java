@@ -0,0 +1,113 @@
+package com.xm.ingest;
+
+import com.xm.exception.InvalidPriceIngestRequestException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Price feed over a plain TCP socket on {@code ingest.socket.address}:{@code ingest.socket.port}, bound to the
+ * loopback interface by default: every connection sends one {@link com.xm.data.CryptoData} JSON object per line,
+ * handed to the {@link PriceIngestor} as it arrives. A full buffer blocks the reading thread, so TCP flow control
+ * slows a fast sender down instead of prices being lost. An invalid line closes its connection.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "ingest.socket.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class PriceSocketListener {
+
+    private final PriceIngestor priceIngestor;
+
+    @Value("${ingest.socket.address:127.0.0.1}")
+    private String address;
+
+    @Value("${ingest.socket.port:9091}")
+    private int port;
+
+    @Value("${ingest.socket.max-connections:16}")
+    private int maxConnections;
+
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connectionIds = new AtomicInteger();
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getByName(address), port));
+        running = true;
+        var acceptorThread = new Thread(this::accept, "price-socket-acceptor");
+        acceptorThread.setDaemon(true);
+        acceptorThread.start();
+        log.info("Accepting NDJSON prices on {}", serverSocket.getLocalSocketAddress());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Socket connection : connections) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Port actually bound, for {@code ingest.socket.port=0}.
+     */
+    public int getLocalPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                if (connections.size() >= maxConnections) {
+                    log.warn("Refusing price feed from {}, {} connections are open", socket.getRemoteSocketAddress(),
+                            maxConnections);
+                    socket.close();
+                    continue;
+                }
+                connections.add(socket);
+                var connectionThread = new Thread(() -> serve(socket),
+                        "price-socket-" + connectionIds.incrementAndGet());
+                connectionThread.setDaemon(true);
+                connectionThread.start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Failed to accept a price feed connection", e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            long ticks = priceIngestor.ingest(socket.getInputStream(), "socket", -1);
+            log.debug("Price feed from {} closed after {} ticks", socket.getRemoteSocketAddress(), ticks);
+        } catch (InvalidPriceIngestRequestException e) {
+            log.warn("Closing price feed from {}: {}", socket.getRemoteSocketAddress(), e.getMessage());
+        } catch (IOException e) {
+            if (running) {
+                log.warn("Price feed from {} failed", socket.getRemoteSocketAddress(), e);
+            }
+        } finally {
+            connections.remove(socket);
+        }
+    }
+}
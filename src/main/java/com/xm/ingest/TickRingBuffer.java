@@ -0,0 +1,99 @@
+package com.xm.ingest;
+
+import com.xm.data.ColumnarPriceSeries;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free queue of the pushed ticks of one symbol, with any number of producers and a single consumer.
+ * <p>
+ * Ticks live in preallocated primitive columns, so offering one allocates nothing. Each slot carries a sequence
+ * number: a producer claims the next position with a CAS on the tail once the consumer has released its slot, writes
+ * the tick and publishes it by advancing the slot sequence; the consumer reads published slots in order and releases
+ * them for the next lap. Producers never wait for each other beyond a failed CAS, and the consumer never blocks them.
+ */
+final class TickRingBuffer {
+
+    private final int mask;
+    private final long[] timestamps;
+    private final long[] prices;
+    private final int[] scales;
+    // Slot i is free for the producer claiming position p when it holds p, readable for the consumer at p when p + 1
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // Only written by the consumer
+    private volatile long head;
+
+    /**
+     * {@code capacity} is rounded up to a power of two.
+     */
+    TickRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.timestamps = new long[size];
+        this.prices = new long[size];
+        this.scales = new int[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Enqueues a tick priced {@code unscaledPrice * 10^-scale}, or returns {@code false} when the buffer is full.
+     */
+    boolean offer(long timestamp, long unscaledPrice, int scale) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    timestamps[slot] = timestamp;
+                    prices[slot] = unscaledPrice;
+                    scales[slot] = scale;
+                    sequences.lazySet(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Moves up to {@code limit} ticks, in the order they were claimed, to the builder. Must only be called from the
+     * consumer thread. Returns the number of ticks moved.
+     */
+    int drainTo(ColumnarPriceSeries.Builder builder, int limit) {
+        long position = head;
+        int drained = 0;
+        while (drained < limit) {
+            int slot = (int) position & mask;
+            if (sequences.get(slot) != position + 1) {
+                break;
+            }
+            builder.add(timestamps[slot], prices[slot], scales[slot]);
+            sequences.lazySet(slot, position + mask + 1);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    /**
+     * Ticks claimed and not consumed yet, approximate while producers are active.
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,109 @@
+package com.xm.reader;
+
+import com.xm.data.ColumnarPriceSeries;
+import com.xm.data.PriceSeries;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the rows appended to a price file since a known byte offset. Only complete lines are parsed: a row still
+ * being written, not yet ended by a line break, is left in place and picked up by the next read. The bytes are
+ * parsed by a headerless {@link PriceRecordParser}, so appended rows must not contain quoted line breaks. An invalid
+ * row is logged and skipped, so it does not hold back the rows after it.
+ */
+@Slf4j
+final class AppendedRowsReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value
+    static class AppendedRows {
+        PriceSeries priceSeries;
+        long endOffset;
+    }
+
+    AppendedRows read(String cryptoName, Path filePath, long fromOffset) throws IOException {
+        var builder = ColumnarPriceSeries.builder(cryptoName);
+        var recordParser = new PriceRecordParser(builder, false);
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long endOffset = endOfLastLine(channel, buffer, fromOffset, channel.size());
+            long position = fromOffset;
+            boolean skippingLine = false;
+            while (position < endOffset) {
+                int read = readAt(channel, buffer, position, (int) Math.min(BUFFER_SIZE, endOffset - position));
+                for (int i = 0; i < read; i++) {
+                    byte value = buffer.get(i);
+                    boolean lineBreak = value == '\n' || value == '\r';
+                    if (skippingLine) {
+                        skippingLine = !lineBreak;
+                        continue;
+                    }
+                    try {
+                        recordParser.accept(value);
+                    } catch (RuntimeException e) {
+                        log.warn("Skipping invalid row of {} ending at offset {}: {}", filePath, position + i, e.toString());
+                        // The rest of the line, if the row failed before its line break, then the next rows afresh
+                        recordParser = new PriceRecordParser(builder, false);
+                        skippingLine = !lineBreak;
+                    }
+                }
+                position += read;
+            }
+            try {
+                recordParser.finish();
+            } catch (RuntimeException e) {
+                log.warn("Skipping invalid row of {} ending at offset {}: {}", filePath, endOffset, e.toString());
+            }
+            return new AppendedRows(builder.build(), endOffset);
+        }
+    }
+
+    /**
+     * Offset right after the last line break in the first {@code toOffset} bytes of the file, or 0 when there is none.
+     */
+    static long endOfLastLine(Path filePath, long toOffset) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            return endOfLastLine(channel, ByteBuffer.allocate(BUFFER_SIZE), 0, Math.min(toOffset, channel.size()));
+        }
+    }
+
+    /**
+     * Offset right after the last line break in {@code [fromOffset, toOffset)}, or {@code fromOffset} when there is
+     * none.
+     */
+    private static long endOfLastLine(FileChannel channel, ByteBuffer buffer, long fromOffset, long toOffset)
+            throws IOException {
+        long end = toOffset;
+        while (end > fromOffset) {
+            int length = (int) Math.min(BUFFER_SIZE, end - fromOffset);
+            long start = end - length;
+            readAt(channel, buffer, start, length);
+            for (int i = length - 1; i >= 0; i--) {
+                byte value = buffer.get(i);
+                if (value == '\n' || value == '\r') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return fromOffset;
+    }
+
+    private static int readAt(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("File truncated while reading appended rows");
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,38 @@
+package com.xm.reader;
+
+import com.xm.data.ColumnarPriceSeries;
+import com.xm.data.PriceSeries;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+/**
+ * Reference parser built on commons-csv, kept as the behavioural baseline for the faster parsers.
+ */
+class CommonsCsvPriceFileParser implements PriceFileParser {
+
+    @Override
+    public PriceSeries parse(String cryptoName, Path filePath) throws IOException {
+        var builder = ColumnarPriceSeries.builder(cryptoName);
+
+        try (FileReader fileReader = new FileReader(filePath.toFile());
+             CSVParser csvParser = CSVFormat.DEFAULT.builder()
+                     .setHeader(CsvHeader.class)
+                     .setIgnoreHeaderCase(true)
+                     .setSkipHeaderRecord(true)
+                     .build().parse(fileReader)) {
+
+            for (CSVRecord record : csvParser) {
+                long timestamp = Long.parseLong(record.get(CsvHeader.TIMESTAMP.getHeader()));
+                BigDecimal price = new BigDecimal(record.get(CsvHeader.PRICE.getHeader()));
+                builder.add(timestamp, price);
+            }
+        }
+        return builder.build();
+    }
+}
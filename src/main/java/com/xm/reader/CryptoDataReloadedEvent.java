@@ -0,0 +1,14 @@
+package com.xm.reader;
+
+import com.xm.data.CryptoDataSnapshot;
+import lombok.Value;
+
+/**
+ * Published by the {@link PriceSource} right after a new snapshot replaced {@link #previous}, by a full refresh or by
+ * ingesting appended rows. Listeners run on the publishing thread before the next reload can start.
+ */
+@Value
+public class CryptoDataReloadedEvent {
+    CryptoDataSnapshot previous;
+    CryptoDataSnapshot current;
+}
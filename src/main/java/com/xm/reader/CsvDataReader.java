@@ -1,69 +1,273 @@
 package com.xm.reader;
 
-import com.xm.data.CryptoData;
+import com.xm.cluster.SymbolPartition;
+import com.xm.data.ColumnarPriceSeries;
+import com.xm.data.CryptoDataSnapshot;
+import com.xm.data.MemoryFootprint;
+import com.xm.data.PriceSeries;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.SneakyThrows;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
-import java.io.FileReader;
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * {@link PriceSource} holding every series of the CSV folder on the heap, loaded in full at start and on refresh, and
+ * extended in place with rows appended to the files. In cluster mode only the files of the cryptos of this node's
+ * {@link SymbolPartition} are read.
+ */
+@Slf4j
 @Component
-public class CsvDataReader {
+@ConditionalOnProperty(value = "price.source", havingValue = "csv", matchIfMissing = true)
+public class CsvDataReader implements PriceSource {
 
     @Value("${csv.folder.path}")
     private String csvFolderPath;
 
-    private final String CRYPTO_DATA_CACHE_NAME = "cryptoData";
-    private final String FILE_ENDS_WITH_EXTENSION = "_values.csv";
-    private final Map<String, List<CryptoData>> cryptoDataCache = new HashMap<>();
+    @Value("${csv.reader.mode:STREAMING}")
+    private CsvReaderMode csvReaderMode = CsvReaderMode.STREAMING;
+
+    @Value("${csv.snapshot.path:}")
+    private String csvSnapshotPath;
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Autowired(required = false)
+    private SymbolPartition symbolPartition = SymbolPartition.ALL;
+
+    static final String FILE_ENDS_WITH_EXTENSION = "_values.csv";
+    private final AtomicReference<CryptoDataSnapshot> cryptoDataSnapshot = new AtomicReference<>(CryptoDataSnapshot.EMPTY);
+    private final AppendedRowsReader appendedRowsReader = new AppendedRowsReader();
+    // Bytes of each CSV file already in the published snapshot, guarded by this
+    // Offset right after the last line break of every loaded file. A file whose last row was loaded without its line
+    // break is also in filesEndingMidRow: that row may still grow, so the next change reads the file again in full
+    private final Map<Path, Long> fileOffsets = new HashMap<>();
+    private final Set<Path> filesEndingMidRow = new HashSet<>();
 
     @PostConstruct
     @SneakyThrows
-    public void init() {
+    public synchronized void init() {
+        Gauge.builder("crypto.data.price.store", this, CsvDataReader::priceStoreBytes)
+                .description("Estimated heap used by the published price series")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("crypto.data.ticks", this, reader -> totalTicks(reader.getSnapshot()))
+                .description("Ticks in the published snapshot")
+                .register(meterRegistry);
+        Gauge.builder("crypto.data.cryptos", this, reader -> reader.getSnapshot().getCryptoNames().size())
+                .description("Cryptos in the published snapshot")
+                .register(meterRegistry);
+        Gauge.builder("crypto.data.version", this, reader -> reader.getSnapshot().getVersion())
+                .description("Version of the published snapshot")
+                .register(meterRegistry);
         populateCryptoDataCache();
     }
 
-    @Cacheable(CRYPTO_DATA_CACHE_NAME)
-    public List<CryptoData> getCryptoDataByName(String cryptoName) {
-        return cryptoDataCache.get(cryptoName);
+    /**
+     * Currently published data. Callers that need several lookups to agree with each other should take the snapshot
+     * once and query it, rather than calling the single-value accessors below repeatedly across a reload.
+     */
+    @Override
+    public CryptoDataSnapshot getSnapshot() {
+        return cryptoDataSnapshot.get();
+    }
+
+    public PriceSeries getCryptoDataByName(String cryptoName) {
+        return getSnapshot().getPriceSeries(cryptoName);
     }
 
-    @CacheEvict(value = CRYPTO_DATA_CACHE_NAME, allEntries = true)
-    public void refreshCryptoDataCache() {
-        cryptoDataCache.clear();
+    /**
+     * Loads the CSV files into a new snapshot and swaps it in atomically. Readers keep using the previous snapshot
+     * until the swap and are never blocked; concurrent refreshes are serialized.
+     */
+    public synchronized void refreshCryptoDataCache() {
         populateCryptoDataCache();
     }
 
+    /**
+     * Ingests the rows appended to the given CSV files since they were last read, as well as CSV files that were not
+     * loaded yet, and publishes the result as a new snapshot. Only the appended bytes are parsed and the series are
+     * extended in place where possible. A file that got shorter, or whose last row was loaded before its line break
+     * was written, is read again from the start. Other paths are ignored, and deleted files keep their data until the
+     * next full refresh. Serialized with
+     * {@link #refreshCryptoDataCache()}.
+     */
+    public synchronized void ingestChangedFiles(Collection<Path> changedFiles) {
+        long started = System.nanoTime();
+        var current = cryptoDataSnapshot.get();
+        Map<String, PriceSeries> priceSeriesByName = new HashMap<>(current.getPriceSeriesByName());
+        long rows = 0;
+        for (Path changedFile : changedFiles) {
+            Path file = changedFile.toAbsolutePath().normalize();
+            if (!file.getFileName().toString().endsWith(FILE_ENDS_WITH_EXTENSION) || !Files.isRegularFile(file)
+                    || !symbolPartition.owns(extractCryptoNameFromFileName(file.getFileName().toString()))) {
+                continue;
+            }
+            try {
+                rows += ingestFile(file, priceSeriesByName);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to ingest changes of {}", file, e);
+            }
+        }
+        if (priceSeriesByName.equals(current.getPriceSeriesByName())) {
+            return;
+        }
+
+        var snapshot = current.next(Instant.now(), priceSeriesByName);
+        publish(snapshot);
+        long elapsedNanos = System.nanoTime() - started;
+        recordLoad("append", rows, elapsedNanos);
+        log.info("Ingested {} appended rows into snapshot v{} in {} ms",
+                rows, snapshot.getVersion(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+    }
+
+    /**
+     * Pushed ticks live on the heap only, they are not written to the CSV files, so a full refresh drops them.
+     * Serialized with {@link #refreshCryptoDataCache()}.
+     */
+    @Override
+    public synchronized CryptoDataSnapshot append(Map<String, PriceSeries> ticksByName) {
+        var current = cryptoDataSnapshot.get();
+        Map<String, PriceSeries> priceSeriesByName = new HashMap<>(current.getPriceSeriesByName());
+        ticksByName.forEach((cryptoName, ticks) -> priceSeriesByName.merge(cryptoName, ticks, PriceSeries::append));
+        var snapshot = current.next(Instant.now(), priceSeriesByName);
+        publish(snapshot);
+        return snapshot;
+    }
+
     public Set<String> getAllCryptoNames() {
-        return cryptoDataCache.keySet();
+        return getSnapshot().getCryptoNames();
     }
 
+    /**
+     * Loads the binary snapshot file when it is still up to date with the CSV files, otherwise parses the CSV files
+     * and rewrites the snapshot file for the next start.
+     */
     @SneakyThrows
     private void populateCryptoDataCache() {
-        List<Path> csvFiles = listCsvFilesInFolder();
-        for (Path file : csvFiles) {
-            String cryptoName = extractCryptoNameFromFileName(file.getFileName().toString());
-            List<CryptoData> cryptoDataList = readCryptoDataFromFile(file);
-            cryptoDataCache.put(cryptoName, cryptoDataList);
+        long started = System.nanoTime();
+        List<Path> csvFiles = listCsvFilesInFolder(Paths.get(csvFolderPath)).stream()
+                .filter(file -> symbolPartition.owns(extractCryptoNameFromFileName(file.getFileName().toString())))
+                .collect(Collectors.toList());
+        PriceSnapshotFile snapshotFile = csvSnapshotPath == null || csvSnapshotPath.isBlank()
+                ? null : new PriceSnapshotFile(Paths.get(csvSnapshotPath));
+        List<PriceSnapshotFile.SourceFile> sources = snapshotFile == null
+                ? List.of() : PriceSnapshotFile.describeSources(Paths.get(csvFolderPath), csvFiles);
+
+        Optional<Map<String, PriceSeries>> fromSnapshotFile = snapshotFile == null
+                ? Optional.empty() : snapshotFile.read(sources);
+        Map<String, PriceSeries> priceSeriesByName = fromSnapshotFile.orElseGet(() -> parseCsvFiles(csvFiles));
+        var snapshot = cryptoDataSnapshot.get().next(Instant.now(), priceSeriesByName);
+        publish(snapshot);
+        rememberFileOffsets(csvFiles);
+        long elapsedNanos = System.nanoTime() - started;
+        recordLoad(fromSnapshotFile.isPresent() ? "snapshot-file" : "csv", totalTicks(snapshot), elapsedNanos);
+        logLoad(snapshot, csvFiles.size(), elapsedNanos,
+                fromSnapshotFile.isPresent() ? "snapshot file" : csvReaderMode + " mode");
+
+        if (snapshotFile != null && fromSnapshotFile.isEmpty()) {
+            try {
+                snapshotFile.write(sources, priceSeriesByName.values());
+            } catch (IOException e) {
+                log.warn("Failed to write price snapshot {}", csvSnapshotPath, e);
+            }
+        }
+    }
+
+    /**
+     * Files are parsed in parallel, one file per task, on the common fork-join pool.
+     */
+    @SneakyThrows
+    private Map<String, PriceSeries> parseCsvFiles(List<Path> csvFiles) {
+        PriceFileParser parser = csvReaderMode.getParser();
+        try {
+            return csvFiles.parallelStream()
+                    .map(file -> readCryptoDataFromFile(parser, file))
+                    .collect(Collectors.toMap(PriceSeries::getSymbol, Function.identity(), (first, second) -> second));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void publish(CryptoDataSnapshot snapshot) {
+        CryptoDataSnapshot previous = cryptoDataSnapshot.getAndSet(snapshot);
+        if (applicationEventPublisher != null) {
+            applicationEventPublisher.publishEvent(new CryptoDataReloadedEvent(previous, snapshot));
+        }
+    }
+
+    /**
+     * Rows appended while the files were being loaded are only picked up by the next refresh.
+     */
+    private void rememberFileOffsets(List<Path> csvFiles) throws IOException {
+        fileOffsets.clear();
+        filesEndingMidRow.clear();
+        for (Path csvFile : csvFiles) {
+            rememberFileOffset(csvFile.toAbsolutePath().normalize(), Files.size(csvFile));
+        }
+    }
+
+    private void rememberFileOffset(Path file, long size) throws IOException {
+        long endOfLastLine = AppendedRowsReader.endOfLastLine(file, size);
+        fileOffsets.put(file, endOfLastLine);
+        if (endOfLastLine < size) {
+            filesEndingMidRow.add(file);
+        } else {
+            filesEndingMidRow.remove(file);
         }
     }
 
+    /**
+     * Returns the number of rows read from the file.
+     */
+    private long ingestFile(Path file, Map<String, PriceSeries> priceSeriesByName) throws IOException {
+        String cryptoName = extractCryptoNameFromFileName(file.getFileName().toString());
+        long size = Files.size(file);
+        Long offset = fileOffsets.get(file);
+        PriceSeries existing = priceSeriesByName.get(cryptoName);
+        if (offset == null || existing == null || size < offset || filesEndingMidRow.contains(file)) {
+            PriceSeries priceSeries = readCryptoDataFromFile(csvReaderMode.getParser(), file);
+            priceSeriesByName.put(cryptoName, priceSeries);
+            rememberFileOffset(file, size);
+            return priceSeries.size();
+        }
+        if (size == offset) {
+            return 0;
+        }
+
+        var appended = appendedRowsReader.read(cryptoName, file, offset);
+        priceSeriesByName.put(cryptoName, existing.append(appended.getPriceSeries()));
+        fileOffsets.put(file, appended.getEndOffset());
+        return appended.getPriceSeries().size();
+    }
+
     @SneakyThrows
-    private List<Path> listCsvFilesInFolder() {
-        var folderPath = Paths.get(csvFolderPath);
+    static List<Path> listCsvFilesInFolder(Path folderPath) {
         if (!Files.isDirectory(folderPath)) {
             return Collections.emptyList();
         }
@@ -74,28 +278,64 @@ public class CsvDataReader {
         }
     }
 
-    private String extractCryptoNameFromFileName(String fileName) {
+    static String extractCryptoNameFromFileName(String fileName) {
         return fileName.replace(FILE_ENDS_WITH_EXTENSION, "");
     }
 
-    @SneakyThrows
-    private List<CryptoData> readCryptoDataFromFile(Path filePath) {
-        List<CryptoData> cryptoDataList = new ArrayList<>();
-
-        try (FileReader fileReader = new FileReader(filePath.toFile());
-             CSVParser csvParser = CSVFormat.DEFAULT.builder()
-                     .setHeader(CsvHeader.class)
-                     .setIgnoreHeaderCase(true)
-                     .setSkipHeaderRecord(true)
-                     .build().parse(fileReader)) {
-
-            for (CSVRecord record : csvParser) {
-                long timestamp = Long.parseLong(record.get(CsvHeader.TIMESTAMP.getHeader()));
-                String symbol = record.get(CsvHeader.SYMBOL.getHeader());
-                BigDecimal price = new BigDecimal(record.get(CsvHeader.PRICE.getHeader()));
-                cryptoDataList.add(new CryptoData(timestamp, symbol, price));
-            }
+    private PriceSeries readCryptoDataFromFile(PriceFileParser parser, Path filePath) {
+        String cryptoName = extractCryptoNameFromFileName(filePath.getFileName().toString());
+        try {
+            return parser.parse(cryptoName, filePath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + filePath, e);
+        }
+    }
+
+    private void recordLoad(String source, long rows, long elapsedNanos) {
+        Timer.builder("crypto.data.load")
+                .description("Duration of full loads and of appended rows ingestion")
+                .tag("source", source)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("crypto.data.rows")
+                .description("Rows parsed or read from the snapshot file")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment(rows);
+    }
+
+    private static long totalTicks(CryptoDataSnapshot snapshot) {
+        return snapshot.getPriceSeriesByName().values().stream().mapToLong(PriceSeries::size).sum();
+    }
+
+    private long priceStoreBytes() {
+        return getSnapshot().getPriceSeriesByName().values().stream()
+                .mapToLong(CsvDataReader::heapBytes)
+                .sum();
+    }
+
+    /**
+     * Series of this source are columnar, built by the parsers or by appends to columnar series.
+     */
+    private static long heapBytes(PriceSeries priceSeries) {
+        return priceSeries instanceof ColumnarPriceSeries
+                ? MemoryFootprint.columnarSeriesBytes((ColumnarPriceSeries) priceSeries) : 0;
+    }
+
+    private void logLoad(CryptoDataSnapshot snapshot, int files, long elapsedNanos, String source) {
+        long ticks = 0;
+        long columnarBytes = 0;
+        long listBytes = 0;
+        for (PriceSeries priceSeries : snapshot.getPriceSeriesByName().values()) {
+            ticks += priceSeries.size();
+            columnarBytes += heapBytes(priceSeries);
+            listBytes += MemoryFootprint.cryptoDataListBytes(priceSeries.getSymbol(), priceSeries.size());
         }
-        return cryptoDataList;
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        long rowsPerSecond = elapsedNanos == 0 ? ticks : ticks * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        log.info("Loaded {} rows for {} files in {} ms ({} rows/s, from {})",
+                ticks, files, elapsedMillis, rowsPerSecond, source);
+        log.info("Loaded snapshot v{} with {} ticks for {} cryptos, price store ~{} bytes (~{} bytes as List<CryptoData>)",
+                snapshot.getVersion(), ticks, snapshot.getCryptoNames().size(), columnarBytes, listBytes);
     }
 }
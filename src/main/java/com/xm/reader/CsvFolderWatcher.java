@@ -0,0 +1,144 @@
+package com.xm.reader;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Watches the CSV folder and its subfolders and hands created or modified files to
+ * {@link CsvDataReader#ingestChangedFiles}, so appended rows are published without a full reload. Events are
+ * collected until the folder has been quiet for {@code csv.watch.quiet-period-millis}, so a burst of appends is
+ * ingested once, but for no longer than {@code csv.watch.max-delay-millis}, so files written continuously are still
+ * ingested. Lost events, new subfolders and deleted or renamed price files and folders fall back to
+ * {@link CsvDataReader#refreshCryptoDataCache()}, which drops the cryptos whose files are gone.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${csv.watch.enabled:false} and '${price.source:csv}' == 'csv'")
+@RequiredArgsConstructor
+public class CsvFolderWatcher {
+
+    private final CsvDataReader csvDataReader;
+
+    @Value("${csv.folder.path}")
+    private String csvFolderPath;
+
+    @Value("${csv.watch.quiet-period-millis:200}")
+    private long quietPeriodMillis;
+
+    @Value("${csv.watch.max-delay-millis:2000}")
+    private long maxDelayMillis;
+
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    @PostConstruct
+    public void start() throws IOException {
+        var folderPath = Paths.get(csvFolderPath);
+        if (!Files.isDirectory(folderPath)) {
+            log.warn("Not watching {}, it is not a directory", folderPath.toAbsolutePath());
+            return;
+        }
+        watchService = folderPath.getFileSystem().newWatchService();
+        registerTree(folderPath);
+        watcherThread = new Thread(this::watch, "csv-folder-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        log.info("Watching {} for price file changes", folderPath.toAbsolutePath());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watcherThread.interrupt();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                Set<Path> changedFiles = new LinkedHashSet<>();
+                boolean reloadAll = collect(watchService.take(), changedFiles);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+                long remainingNanos;
+                WatchKey watchKey;
+                while ((remainingNanos = deadline - System.nanoTime()) > 0
+                        && (watchKey = watchService.poll(Math.min(TimeUnit.MILLISECONDS.toNanos(quietPeriodMillis),
+                        remainingNanos), TimeUnit.NANOSECONDS)) != null) {
+                    reloadAll |= collect(watchKey, changedFiles);
+                }
+                try {
+                    if (reloadAll) {
+                        csvDataReader.refreshCryptoDataCache();
+                    } else {
+                        csvDataReader.ingestChangedFiles(changedFiles);
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Failed to apply changes of {}", changedFiles, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.debug("Watch service closed");
+        }
+    }
+
+    /**
+     * Adds the changed paths of the key to {@code changedFiles}; returns whether everything has to be reloaded.
+     */
+    private boolean collect(WatchKey watchKey, Set<Path> changedFiles) {
+        var directory = (Path) watchKey.watchable();
+        boolean reloadAll = false;
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                reloadAll = true;
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                // A renamed file shows up as a delete and a create; the reload picks up the new name as well
+                reloadAll |= path.getFileName().toString().endsWith(CsvDataReader.FILE_ENDS_WITH_EXTENSION);
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    registerTree(path);
+                } catch (IOException e) {
+                    log.warn("Failed to watch {}", path, e);
+                }
+                reloadAll = true;
+            } else {
+                changedFiles.add(path);
+            }
+        }
+        // The key is no longer valid once its folder was deleted or moved away
+        return !watchKey.reset() || reloadAll;
+    }
+
+    private void registerTree(Path folderPath) throws IOException {
+        try (Stream<Path> walk = Files.walk(folderPath)) {
+            for (Path directory : (Iterable<Path>) walk.filter(Files::isDirectory)::iterator) {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+}
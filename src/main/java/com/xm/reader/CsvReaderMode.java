@@ -0,0 +1,17 @@
+package com.xm.reader;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * How {@link CsvDataReader} parses the price files, selected with the {@code csv.reader.mode} property.
+ */
+@RequiredArgsConstructor
+public enum CsvReaderMode {
+    COMMONS_CSV(new CommonsCsvPriceFileParser()),
+    STREAMING(new StreamingPriceFileParser()),
+    MAPPED(new MappedPriceFileParser());
+
+    @Getter
+    private final PriceFileParser parser;
+}
@@ -0,0 +1,40 @@
+package com.xm.reader;
+
+import com.xm.data.ColumnarPriceSeries;
+import com.xm.data.PriceSeries;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-maps the file and feeds the mapped bytes straight to a {@link PriceRecordParser}, so the file content is
+ * never copied onto the heap. Files larger than one mapping window are mapped window by window; the parser keeps
+ * its state across window boundaries.
+ */
+class MappedPriceFileParser implements PriceFileParser {
+
+    private static final long MAPPING_WINDOW = 1L << 30;
+
+    @Override
+    public PriceSeries parse(String cryptoName, Path filePath) throws IOException {
+        var builder = ColumnarPriceSeries.builder(cryptoName);
+        var recordParser = new PriceRecordParser(builder);
+
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAPPING_WINDOW) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAPPING_WINDOW, size - position));
+                int limit = buffer.limit();
+                for (int i = 0; i < limit; i++) {
+                    recordParser.accept(buffer.get(i));
+                }
+            }
+        }
+        recordParser.finish();
+        return builder.build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.xm.reader;
+
+import com.xm.data.PriceSeries;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Parses one {@code <CRYPTO>_values.csv} file laid out as in {@link CsvHeader} into a price series. The first record
+ * is the header and is skipped, empty lines are ignored.
+ */
+public interface PriceFileParser {
+
+    PriceSeries parse(String cryptoName, Path filePath) throws IOException;
+}
@@ -0,0 +1,226 @@
+package com.xm.reader;
+
+import com.xm.data.ColumnarPriceSeries;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Allocation-light push parser for the fixed {@code timestamp,symbol,price} layout, fed one byte at a time by the
+ * file parsers. It follows the commons-csv {@code DEFAULT} format the reader has always used: comma separated,
+ * optional double quote encapsulation with {@code ""} escapes, only whitespace allowed between a closing quote and
+ * the next delimiter, CR, LF or CRLF line endings, empty lines ignored and the first record treated as the header
+ * unless the parser is told the input has none. Timestamps and prices are parsed straight from the bytes into the
+ * series builder; only prices that do not fit the plain decimal fast path go through {@link BigDecimal}.
+ */
+final class PriceRecordParser {
+
+    private static final int TIMESTAMP_FIELD = CsvHeader.TIMESTAMP.ordinal();
+    private static final int PRICE_FIELD = CsvHeader.PRICE.ordinal();
+    private static final int MAX_FAST_PATH_DIGITS = 18;
+
+    private final ColumnarPriceSeries.Builder builder;
+    private final int headerRecords;
+    private byte[] timestampField = new byte[24];
+    private byte[] priceField = new byte[32];
+    private int timestampLength;
+    private int priceLength;
+    private int fieldIndex;
+    private boolean fieldStarted;
+    private boolean recordStarted;
+    private boolean inQuotes;
+    private boolean pendingQuote;
+    private boolean afterClosingQuote;
+    private boolean afterCarriageReturn;
+    private long records;
+    private long rows;
+
+    PriceRecordParser(ColumnarPriceSeries.Builder builder) {
+        this(builder, true);
+    }
+
+    PriceRecordParser(ColumnarPriceSeries.Builder builder, boolean withHeader) {
+        this.builder = builder;
+        this.headerRecords = withHeader ? 1 : 0;
+    }
+
+    void accept(byte value) {
+        if (inQuotes) {
+            if (pendingQuote) {
+                pendingQuote = false;
+                if (value == '"') {
+                    append(value);
+                    return;
+                }
+                inQuotes = false;
+                afterClosingQuote = true;
+            } else {
+                if (value == '"') {
+                    pendingQuote = true;
+                } else {
+                    append(value);
+                }
+                return;
+            }
+        }
+        if (afterCarriageReturn) {
+            afterCarriageReturn = false;
+            if (value == '\n') {
+                return;
+            }
+        }
+        if (afterClosingQuote && value != ',' && value != '\r' && value != '\n') {
+            if (Character.isWhitespace(value)) {
+                return;
+            }
+            throw new IllegalStateException("Invalid char between encapsulated token and delimiter in record "
+                    + (records + 1));
+        }
+        afterClosingQuote = false;
+        switch (value) {
+            case ',':
+                recordStarted = true;
+                fieldStarted = false;
+                fieldIndex++;
+                break;
+            case '\r':
+                afterCarriageReturn = true;
+                endRecord();
+                break;
+            case '\n':
+                endRecord();
+                break;
+            case '"':
+                if (fieldStarted) {
+                    append(value);
+                } else {
+                    recordStarted = true;
+                    fieldStarted = true;
+                    inQuotes = true;
+                }
+                break;
+            default:
+                recordStarted = true;
+                append(value);
+        }
+    }
+
+    /**
+     * Flushes the last record when the input does not end with a line break.
+     */
+    void finish() {
+        if (inQuotes && !pendingQuote) {
+            throw new IllegalStateException("EOF reached before encapsulated token finished in record " + (records + 1));
+        }
+        inQuotes = false;
+        pendingQuote = false;
+        afterClosingQuote = false;
+        endRecord();
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    private void append(byte value) {
+        recordStarted = true;
+        fieldStarted = true;
+        if (fieldIndex == TIMESTAMP_FIELD) {
+            if (timestampLength == timestampField.length) {
+                timestampField = Arrays.copyOf(timestampField, timestampLength * 2);
+            }
+            timestampField[timestampLength++] = value;
+        } else if (fieldIndex == PRICE_FIELD) {
+            if (priceLength == priceField.length) {
+                priceField = Arrays.copyOf(priceField, priceLength * 2);
+            }
+            priceField[priceLength++] = value;
+        }
+    }
+
+    private void endRecord() {
+        if (recordStarted) {
+            records++;
+            if (records > headerRecords) {
+                addRow();
+            }
+        }
+        timestampLength = 0;
+        priceLength = 0;
+        fieldIndex = 0;
+        fieldStarted = false;
+        recordStarted = false;
+    }
+
+    private void addRow() {
+        if (fieldIndex < PRICE_FIELD) {
+            throw new IllegalArgumentException("Record " + records + " has " + (fieldIndex + 1)
+                    + " values, expected at least " + (PRICE_FIELD + 1));
+        }
+        long timestamp = parseTimestamp();
+        if (!addFastPathPrice(timestamp)) {
+            builder.add(timestamp, new BigDecimal(new String(priceField, 0, priceLength, StandardCharsets.US_ASCII)));
+        }
+        rows++;
+    }
+
+    private long parseTimestamp() {
+        int index = 0;
+        boolean negative = false;
+        if (timestampLength > 0 && (timestampField[0] == '-' || timestampField[0] == '+')) {
+            negative = timestampField[0] == '-';
+            index++;
+        }
+        if (index == timestampLength || timestampLength - index > MAX_FAST_PATH_DIGITS) {
+            return Long.parseLong(new String(timestampField, 0, timestampLength, StandardCharsets.US_ASCII));
+        }
+        long value = 0;
+        for (; index < timestampLength; index++) {
+            int digit = timestampField[index] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \""
+                        + new String(timestampField, 0, timestampLength, StandardCharsets.US_ASCII) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Plain {@code [+-]digits[.digits]} prices of up to {@value #MAX_FAST_PATH_DIGITS} digits; anything else is
+     * left to {@link BigDecimal} so the accepted syntax and error behaviour stay the same.
+     */
+    private boolean addFastPathPrice(long timestamp) {
+        int index = 0;
+        boolean negative = false;
+        if (priceLength > 0 && (priceField[0] == '-' || priceField[0] == '+')) {
+            negative = priceField[0] == '-';
+            index++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; index < priceLength; index++) {
+            byte value = priceField[index];
+            if (value >= '0' && value <= '9') {
+                if (++digits > MAX_FAST_PATH_DIGITS) {
+                    return false;
+                }
+                unscaled = unscaled * 10 + (value - '0');
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (value == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                return false;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        builder.add(timestamp, negative ? -unscaled : unscaled, Math.max(scale, 0));
+        return true;
+    }
+}
@@ -0,0 +1,243 @@
+package com.xm.reader;
+
+import com.xm.data.ColumnarPriceSeries;
+import com.xm.data.PriceSeries;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary columnar copy of the parsed price data, so a restart does not have to parse the CSV files again.
+ * <p>
+ * Layout (big-endian), format version {@value #FORMAT_VERSION}:
+ * <pre>
+ * int    magic "XMPS", int format version
+ * int    source file count, then per file: path relative to the CSV folder, long size, long mtime millis
+ * int    symbol count, then per symbol: symbol, int scale, int tick count,
+ *        long data offset (relative to the data section), int data length
+ * bytes  data section; per symbol the timestamps, then the unscaled prices, each as zig-zag varint deltas
+ * long   CRC32 of everything above
+ * </pre>
+ * Strings are stored as an unsigned short byte length followed by UTF-8 bytes.
+ * The source files recorded in the header make the snapshot stale as soon as a CSV file is added, removed or
+ * modified; a stale, corrupt or unreadable snapshot is ignored and the CSV files are parsed instead.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class PriceSnapshotFile {
+
+    private static final int MAGIC = 0x584D5053;
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path path;
+
+    @Value
+    static class SourceFile {
+        String relativePath;
+        long size;
+        long lastModifiedMillis;
+    }
+
+    static List<SourceFile> describeSources(Path folder, List<Path> csvFiles) throws IOException {
+        List<SourceFile> sources = new ArrayList<>();
+        for (Path file : csvFiles) {
+            sources.add(new SourceFile(folder.relativize(file).toString().replace('\\', '/'), Files.size(file),
+                    Files.getLastModifiedTime(file).toMillis()));
+        }
+        sources.sort(Comparator.comparing(SourceFile::getRelativePath));
+        return sources;
+    }
+
+    /**
+     * Price series stored in the snapshot, or empty when there is no usable snapshot for the given sources.
+     */
+    Optional<Map<String, PriceSeries>> read(List<SourceFile> sources) {
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(buffer, sources);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable price snapshot {}: {}", path, e.toString());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes the snapshot next to its final location and moves it into place, so readers never see a partial file.
+     */
+    void write(List<SourceFile> sources, Collection<PriceSeries> priceSeries) throws IOException {
+        List<PriceSeries> ordered = priceSeries.stream()
+                .sorted(Comparator.comparing(PriceSeries::getSymbol))
+                .collect(Collectors.toList());
+        List<byte[]> sections = ordered.parallelStream()
+                .map(PriceSnapshotFile::encodeSeries)
+                .collect(Collectors.toList());
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 checksum = new CRC32();
+        try (var output = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(Files.newOutputStream(temporary), checksum)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(sources.size());
+            for (SourceFile source : sources) {
+                writeUtf(output, source.getRelativePath());
+                output.writeLong(source.getSize());
+                output.writeLong(source.getLastModifiedMillis());
+            }
+            output.writeInt(ordered.size());
+            long offset = 0;
+            for (int i = 0; i < ordered.size(); i++) {
+                PriceSeries series = ordered.get(i);
+                writeUtf(output, series.getSymbol());
+                output.writeInt(series.getScale());
+                output.writeInt(series.size());
+                output.writeLong(offset);
+                output.writeInt(sections.get(i).length);
+                offset += sections.get(i).length;
+            }
+            for (byte[] section : sections) {
+                output.write(section);
+            }
+            output.flush();
+            output.writeLong(checksum.getValue());
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Optional<Map<String, PriceSeries>> decode(ByteBuffer buffer, List<SourceFile> sources) {
+        if (buffer.remaining() < 2 * Integer.BYTES + Long.BYTES || buffer.getInt() != MAGIC) {
+            log.warn("Ignoring price snapshot {}: not a snapshot file", path);
+            return Optional.empty();
+        }
+        int formatVersion = buffer.getInt();
+        if (formatVersion != FORMAT_VERSION) {
+            log.info("Ignoring price snapshot {}: format version {} instead of {}", path, formatVersion, FORMAT_VERSION);
+            return Optional.empty();
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.duplicate().position(0).limit(buffer.limit() - Long.BYTES));
+        if (checksum.getValue() != buffer.getLong(buffer.limit() - Long.BYTES)) {
+            log.warn("Ignoring price snapshot {}: checksum mismatch", path);
+            return Optional.empty();
+        }
+
+        List<SourceFile> recordedSources = new ArrayList<>();
+        int sourceCount = buffer.getInt();
+        for (int i = 0; i < sourceCount; i++) {
+            recordedSources.add(new SourceFile(readUtf(buffer), buffer.getLong(), buffer.getLong()));
+        }
+        if (!recordedSources.equals(sources)) {
+            log.info("Ignoring price snapshot {}: CSV files changed since it was written", path);
+            return Optional.empty();
+        }
+
+        int symbolCount = buffer.getInt();
+        List<SectionEntry> entries = new ArrayList<>(symbolCount);
+        for (int i = 0; i < symbolCount; i++) {
+            entries.add(new SectionEntry(readUtf(buffer), buffer.getInt(), buffer.getInt(), buffer.getLong(),
+                    buffer.getInt()));
+        }
+        int dataStart = buffer.position();
+        Map<String, PriceSeries> priceSeriesByName = entries.parallelStream()
+                .map(entry -> decodeSeries(buffer, dataStart, entry))
+                .collect(Collectors.toMap(PriceSeries::getSymbol, Function.identity()));
+        return Optional.of(priceSeriesByName);
+    }
+
+    @Value
+    private static class SectionEntry {
+        String symbol;
+        int scale;
+        int ticks;
+        long offset;
+        int length;
+    }
+
+    private static byte[] encodeSeries(PriceSeries series) {
+        var output = new ByteArrayOutputStream(series.size() * 4);
+        long previous = 0;
+        for (int i = 0; i < series.size(); i++) {
+            writeVarLong(output, series.getTimestamp(i) - previous);
+            previous = series.getTimestamp(i);
+        }
+        previous = 0;
+        for (int i = 0; i < series.size(); i++) {
+            writeVarLong(output, series.getUnscaledPrice(i) - previous);
+            previous = series.getUnscaledPrice(i);
+        }
+        return output.toByteArray();
+    }
+
+    private static PriceSeries decodeSeries(ByteBuffer buffer, int dataStart, SectionEntry entry) {
+        ByteBuffer section = buffer.duplicate();
+        section.position(Math.toIntExact(dataStart + entry.getOffset()));
+        section.limit(section.position() + entry.getLength());
+        long[] timestamps = new long[entry.getTicks()];
+        long previous = 0;
+        for (int i = 0; i < timestamps.length; i++) {
+            previous += readVarLong(section);
+            timestamps[i] = previous;
+        }
+        var builder = ColumnarPriceSeries.builder(entry.getSymbol());
+        previous = 0;
+        for (long timestamp : timestamps) {
+            previous += readVarLong(section);
+            builder.add(timestamp, previous, entry.getScale());
+        }
+        return builder.build();
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream output, long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            output.write((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        output.write((int) zigZag);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long zigZag = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte value = buffer.get();
+            zigZag |= (long) (value & 0x7F) << shift;
+            if (value >= 0) {
+                break;
+            }
+        }
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    private static void writeUtf(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readUtf(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,30 @@
+package com.xm.reader;
+
+import com.xm.data.CryptoDataSnapshot;
+import com.xm.data.PriceSeries;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Where the services read prices from. An implementation publishes immutable {@link CryptoDataSnapshot}s, swaps in a
+ * new one when its data changes and announces it with a {@link CryptoDataReloadedEvent}.
+ * <p>
+ * The implementation is selected with the {@code price.source} property: {@code csv} ({@link CsvDataReader}, the
+ * default) keeps every series on the heap, {@code segment-store} serves them from the file-backed
+ * {@link com.xm.store.SegmentStore}.
+ */
+public interface PriceSource {
+
+    /**
+     * Currently published data. Callers that need several lookups to agree with each other should take the snapshot
+     * once and query it.
+     */
+    CryptoDataSnapshot getSnapshot();
+
+    /**
+     * Appends the given ticks of each crypto to its series, creating the series of cryptos not held yet, and publishes
+     * the result as one new snapshot. Used by the single consumer of pushed prices.
+     */
+    CryptoDataSnapshot append(Map<String, PriceSeries> ticksByName) throws IOException;
+}
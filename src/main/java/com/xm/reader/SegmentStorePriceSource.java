@@ -0,0 +1,160 @@
+package com.xm.reader;
+
+import com.xm.cluster.SymbolPartition;
+import com.xm.data.CryptoDataSnapshot;
+import com.xm.data.PriceSeries;
+import com.xm.store.SegmentStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link PriceSource} serving the series of an embedded {@link SegmentStore} under {@code store.path}, so the price
+ * history can outgrow the heap. On start, CSV files of {@code csv.folder.path} whose crypto is not stored yet are
+ * imported once; pushed prices are then added with {@link #append}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "price.source", havingValue = "segment-store")
+public class SegmentStorePriceSource implements PriceSource {
+
+    @Value("${store.path}")
+    private String storePath;
+
+    @Value("${store.page-ticks:1024}")
+    private int pageTicks = 1024;
+
+    @Value("${store.segment-ticks:1048576}")
+    private int segmentTicks = 1048576;
+
+    @Value("${store.page-cache.max-pages:1024}")
+    private long maxCachedPages = 1024;
+
+    @Value("${csv.folder.path:}")
+    private String csvFolderPath;
+
+    @Value("${csv.reader.mode:STREAMING}")
+    private CsvReaderMode csvReaderMode = CsvReaderMode.STREAMING;
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Autowired(required = false)
+    private SymbolPartition symbolPartition = SymbolPartition.ALL;
+
+    private final AtomicReference<CryptoDataSnapshot> cryptoDataSnapshot = new AtomicReference<>(CryptoDataSnapshot.EMPTY);
+    private SegmentStore segmentStore;
+
+    @PostConstruct
+    public synchronized void init() throws IOException {
+        long started = System.nanoTime();
+        segmentStore = new SegmentStore(Paths.get(storePath), pageTicks, segmentTicks, maxCachedPages);
+        int importedFiles = importCsvFiles();
+        // Cryptos stored before the cluster was resized belong to another node now
+        Map<String, PriceSeries> priceSeriesByName = new HashMap<>(segmentStore.getPriceSeriesByName());
+        priceSeriesByName.keySet().removeIf(cryptoName -> !symbolPartition.owns(cryptoName));
+        publish(cryptoDataSnapshot.get().next(Instant.now(), priceSeriesByName));
+
+        // Same tag keys as the Spring managed caches, Prometheus requires them to match across a meter name
+        CaffeineCacheMetrics.monitor(meterRegistry, segmentStore.getPageCache(), "storePages",
+                "cacheManager", "segmentStore", "name", "storePages");
+        Gauge.builder("crypto.data.ticks", this, source -> totalTicks(source.getSnapshot()))
+                .description("Ticks in the published snapshot")
+                .register(meterRegistry);
+        Gauge.builder("crypto.data.cryptos", this, source -> source.getSnapshot().getCryptoNames().size())
+                .description("Cryptos in the published snapshot")
+                .register(meterRegistry);
+        Gauge.builder("crypto.data.version", this, source -> source.getSnapshot().getVersion())
+                .description("Version of the published snapshot")
+                .register(meterRegistry);
+
+        var snapshot = getSnapshot();
+        log.info("Opened segment store {} with {} ticks for {} cryptos in {} ms ({} CSV files imported)",
+                Paths.get(storePath).toAbsolutePath(), totalTicks(snapshot), snapshot.getCryptoNames().size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), importedFiles);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (segmentStore != null) {
+            segmentStore.close();
+        }
+    }
+
+    @Override
+    public CryptoDataSnapshot getSnapshot() {
+        return cryptoDataSnapshot.get();
+    }
+
+    /**
+     * Stores the ticks of each crypto and publishes the extended series in one new snapshot. Ticks older than the
+     * newest stored tick of their crypto are dropped.
+     */
+    @Override
+    public synchronized CryptoDataSnapshot append(Map<String, PriceSeries> ticksByName) throws IOException {
+        var current = cryptoDataSnapshot.get();
+        Map<String, PriceSeries> priceSeriesByName = new HashMap<>(current.getPriceSeriesByName());
+        for (Map.Entry<String, PriceSeries> ticks : ticksByName.entrySet()) {
+            priceSeriesByName.put(ticks.getKey(), segmentStore.append(ticks.getKey(), ticks.getValue()));
+        }
+        if (priceSeriesByName.equals(current.getPriceSeriesByName())) {
+            return current;
+        }
+        var snapshot = current.next(Instant.now(), priceSeriesByName);
+        publish(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Returns the number of CSV files imported, those of cryptos of this node the store has no ticks for.
+     */
+    private int importCsvFiles() throws IOException {
+        if (csvFolderPath == null || csvFolderPath.isBlank()) {
+            return 0;
+        }
+        Map<String, PriceSeries> stored = segmentStore.getPriceSeriesByName();
+        int importedFiles = 0;
+        for (Path csvFile : CsvDataReader.listCsvFilesInFolder(Paths.get(csvFolderPath))) {
+            String cryptoName = CsvDataReader.extractCryptoNameFromFileName(csvFile.getFileName().toString());
+            if (!symbolPartition.owns(cryptoName)
+                    || stored.containsKey(cryptoName) && !stored.get(cryptoName).isEmpty()) {
+                continue;
+            }
+            segmentStore.append(cryptoName, csvReaderMode.getParser().parse(cryptoName, csvFile));
+            importedFiles++;
+        }
+        return importedFiles;
+    }
+
+    private void publish(CryptoDataSnapshot snapshot) {
+        CryptoDataSnapshot previous = cryptoDataSnapshot.getAndSet(snapshot);
+        if (applicationEventPublisher != null) {
+            applicationEventPublisher.publishEvent(new CryptoDataReloadedEvent(previous, snapshot));
+        }
+    }
+
+    private static long totalTicks(CryptoDataSnapshot snapshot) {
+        return snapshot.getPriceSeriesByName().values().stream().mapToLong(PriceSeries::size).sum();
+    }
+}
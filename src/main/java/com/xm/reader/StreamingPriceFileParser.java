@@ -0,0 +1,36 @@
+package com.xm.reader;
+
+import com.xm.data.ColumnarPriceSeries;
+import com.xm.data.PriceSeries;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads the file through a fixed byte buffer and feeds the bytes to a {@link PriceRecordParser}, without decoding
+ * to characters or allocating per row.
+ */
+class StreamingPriceFileParser implements PriceFileParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public PriceSeries parse(String cryptoName, Path filePath) throws IOException {
+        var builder = ColumnarPriceSeries.builder(cryptoName);
+        var recordParser = new PriceRecordParser(builder);
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try (InputStream inputStream = Files.newInputStream(filePath)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    recordParser.accept(buffer[i]);
+                }
+            }
+        }
+        recordParser.finish();
+        return builder.build();
+    }
+}
@@ -0,0 +1,101 @@
+package com.xm.service;
+
+import com.xm.data.CryptoAnalytics;
+import com.xm.data.CryptoDataSnapshot;
+import com.xm.data.PriceSeries;
+import com.xm.data.TimeFrame;
+import com.xm.exception.DataNotFoundException;
+import com.xm.exception.InvalidAnalyticsRequestException;
+import com.xm.exception.UnsupportedCryptoException;
+import com.xm.reader.PriceSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Volatility, drawdown, average price and N-period return metrics of a crypto over a window, computed in one pass
+ * over the ticks of the window by {@link SeriesAnalytics}.
+ */
+@Service
+@RequiredArgsConstructor
+public class AnalyticsService {
+
+    private final PriceSource priceSource;
+
+    @Value("${analytics.rolling-window:30}")
+    private int defaultRollingWindow;
+
+    @Value("${analytics.return-periods:1d,7d,30d}")
+    private List<String> defaultReturnPeriods;
+
+    /**
+     * Analytics of the given time frame, which ends at the newest tick of the crypto. A {@code null} rolling window or
+     * return periods fall back to {@code analytics.rolling-window} and {@code analytics.return-periods}.
+     */
+    public CryptoAnalytics getCryptoAnalytics(String cryptoName, TimeFrame timeFrame, Integer rollingWindow,
+                                              List<String> returnPeriods) {
+        PriceSeries priceSeries = getSupportedPriceSeries(priceSource.getSnapshot(), cryptoName);
+        if (priceSeries.isEmpty()) {
+            throw new DataNotFoundException(timeFrame);
+        }
+        long newestTimestamp = priceSeries.getNewestTimestamp();
+        return analyze(cryptoName, priceSeries.window(timeFrame.getStartTimestamp(newestTimestamp), newestTimestamp),
+                rollingWindow, returnPeriods);
+    }
+
+    /**
+     * Analytics of the ticks with {@code fromTimestamp <= timestamp <= toTimestamp}.
+     */
+    public CryptoAnalytics getCryptoAnalytics(String cryptoName, long fromTimestamp, long toTimestamp,
+                                              Integer rollingWindow, List<String> returnPeriods) {
+        PriceSeries window = getSupportedPriceSeries(priceSource.getSnapshot(), cryptoName)
+                .window(fromTimestamp, toTimestamp);
+        if (window.isEmpty()) {
+            throw new DataNotFoundException(fromTimestamp, toTimestamp);
+        }
+        return analyze(cryptoName, window, rollingWindow, returnPeriods);
+    }
+
+    /**
+     * Periods are given as {@code 1d}, {@code 12h} or ISO-8601 durations such as {@code P7D}.
+     */
+    private CryptoAnalytics analyze(String cryptoName, PriceSeries window, Integer rollingWindow,
+                                    List<String> returnPeriods) {
+        int rollingReturns = rollingWindow != null ? rollingWindow : defaultRollingWindow;
+        if (rollingReturns < 2) {
+            throw new InvalidAnalyticsRequestException("The rolling window needs at least 2 returns, got "
+                    + rollingReturns);
+        }
+        Map<String, Duration> periods = new LinkedHashMap<>();
+        for (String period : returnPeriods != null ? returnPeriods : defaultReturnPeriods) {
+            periods.put(period.trim(), parseReturnPeriod(period.trim()));
+        }
+        return SeriesAnalytics.of(cryptoName, window, rollingReturns, periods);
+    }
+
+    private static Duration parseReturnPeriod(String period) {
+        try {
+            Duration duration = DurationStyle.detectAndParse(period);
+            if (!duration.isNegative() && !duration.isZero()) {
+                return duration;
+            }
+        } catch (IllegalArgumentException e) {
+            // reported below
+        }
+        throw new InvalidAnalyticsRequestException("Invalid return period: " + period);
+    }
+
+    private PriceSeries getSupportedPriceSeries(CryptoDataSnapshot dataSnapshot, String cryptoName) {
+        PriceSeries priceSeries = dataSnapshot.getPriceSeries(cryptoName);
+        if (priceSeries == null) {
+            throw new UnsupportedCryptoException(cryptoName);
+        }
+        return priceSeries;
+    }
+}
@@ -0,0 +1,57 @@
+package com.xm.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Normalized range {@code (max - min) / min} rounded {@link RoundingMode#HALF_UP HALF_UP} to {@value #SCALE}
+ * decimals, computed on the unscaled prices of one series.
+ * <p>
+ * Both prices share the scale of their series, which cancels out in the ratio, so the result is exactly what
+ * {@code max.subtract(min).divide(min, 5, RoundingMode.HALF_UP)} gives on the decimal prices, as an unscaled long,
+ * without allocating. Inputs whose difference times {@code 10^5} does not fit a long go through {@link BigDecimal}
+ * instead; a zero minimum fails with the same {@link ArithmeticException} as the decimal division.
+ */
+final class NormalizedRange {
+
+    static final int SCALE = 5;
+    private static final long FACTOR = 100_000L;
+    private static final long MAX_FAST_PATH_DIFFERENCE = Long.MAX_VALUE / FACTOR;
+
+    private NormalizedRange() {
+    }
+
+    static long unscaled(long minUnscaledPrice, long maxUnscaledPrice) {
+        long difference = maxUnscaledPrice - minUnscaledPrice;
+        boolean subtractionOverflowed = ((maxUnscaledPrice ^ minUnscaledPrice) & (maxUnscaledPrice ^ difference)) < 0;
+        if (subtractionOverflowed || difference < -MAX_FAST_PATH_DIFFERENCE || difference > MAX_FAST_PATH_DIFFERENCE
+                || minUnscaledPrice == 0 || minUnscaledPrice == Long.MIN_VALUE) {
+            return unscaledWithBigDecimal(minUnscaledPrice, maxUnscaledPrice);
+        }
+
+        long numerator = difference * FACTOR;
+        long quotient = numerator / minUnscaledPrice;
+        long remainder = numerator % minUnscaledPrice;
+        // HALF_UP: round away from zero when the dropped fraction is at least one half
+        if (remainder != 0 && Math.abs(remainder) >= Math.abs(minUnscaledPrice) - Math.abs(remainder)) {
+            quotient += (numerator < 0) == (minUnscaledPrice < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+
+    static BigDecimal toBigDecimal(long unscaledNormalizedRange) {
+        return BigDecimal.valueOf(unscaledNormalizedRange, SCALE);
+    }
+
+    /**
+     * Reference computation; fails with {@link ArithmeticException} for ratios beyond what an unscaled long holds,
+     * more than {@code 9 * 10^13}.
+     */
+    static long unscaledWithBigDecimal(long minUnscaledPrice, long maxUnscaledPrice) {
+        var minPrice = BigDecimal.valueOf(minUnscaledPrice);
+        return BigDecimal.valueOf(maxUnscaledPrice).subtract(minPrice)
+                .divide(minPrice, SCALE, RoundingMode.HALF_UP)
+                .unscaledValue()
+                .longValueExact();
+    }
+}
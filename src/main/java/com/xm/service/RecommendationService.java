@@ -1,144 +1,443 @@
 package com.xm.service;
 
-import com.xm.data.CryptoData;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xm.data.BatchStatisticsRequest;
+import com.xm.data.BatchStatisticsResult;
+import com.xm.data.CacheStatistics;
+import com.xm.data.CryptoDataSnapshot;
 import com.xm.data.CryptoStatistics;
+import com.xm.data.DailyBars;
+import com.xm.data.DataVersion;
+import com.xm.data.PrecomputedJson;
+import com.xm.data.PriceSeries;
 import com.xm.data.TimeFrame;
+import com.xm.data.TimeWindow;
 import com.xm.exception.DataNotFoundException;
+import com.xm.exception.ErrorResponse;
+import com.xm.exception.InvalidBatchRequestException;
 import com.xm.exception.UnsupportedCryptoException;
-import com.xm.reader.CsvDataReader;
-import lombok.AllArgsConstructor;
+import com.xm.reader.PriceSource;
+import com.xm.service.StatisticsSnapshot.DailyLeader;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
-@AllArgsConstructor
 public class RecommendationService {
 
-    private final CsvDataReader csvDataReader;
+    static final int MAX_BATCH_RESULTS = 10_000;
+
+    private final PriceSource priceSource;
+    private final StatisticsCache statisticsCache;
+    private final ObjectMapper objectMapper;
+    private final Timer filterTimer;
+    private final Timer aggregateTimer;
+    private final DistributionSummary windowTicks;
+    private final Timer rebuildTimer;
+    private volatile StatisticsSnapshot statisticsSnapshot;
+
+    public RecommendationService(PriceSource priceSource, StatisticsCache statisticsCache,
+                                 MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.priceSource = priceSource;
+        this.statisticsCache = statisticsCache;
+        this.objectMapper = objectMapper;
+        this.filterTimer = stageTimer("filter", meterRegistry);
+        this.aggregateTimer = stageTimer("aggregate", meterRegistry);
+        this.windowTicks = DistributionSummary.builder("crypto.statistics.window.ticks")
+                .description("Ticks in each window whose statistics were computed")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rebuildTimer = Timer.builder("crypto.statistics.rebuild")
+                .description("Rebuild of the ranking and the daily leaderboard after a data reload")
+                .register(meterRegistry);
+    }
+
+    private static Timer stageTimer(String stage, MeterRegistry meterRegistry) {
+        return Timer.builder("crypto.statistics.stage")
+                .description("Time spent locating the window (filter) and computing its statistics (aggregate)")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 
     public List<CryptoStatistics> getAllCryptoStatistics() {
-        return csvDataReader.getAllCryptoNames().stream()
-                .map(cryptoName -> {
-                    List<CryptoData> cryptoDataList = csvDataReader.getCryptoDataByName(cryptoName);
-                    return calculateStats(cryptoName, cryptoDataList);
-                })
-                .sorted(Comparator.comparing(CryptoStatistics::getNormalizedRange).reversed())
-                .collect(Collectors.toList());
+        return getStatisticsSnapshot().getRanking();
     }
 
-    public CryptoStatistics getCryptoStatisticsByName(String cryptoName, TimeFrame timeFrame) {
-        if (!isSupportedCrypto(cryptoName)) {
-            throw new UnsupportedCryptoException(cryptoName);
+    /**
+     * The first {@code limit} cryptos of the whole-history ranking.
+     */
+    public List<CryptoStatistics> getTopCryptoStatistics(int limit) {
+        List<CryptoStatistics> ranking = getStatisticsSnapshot().getRanking();
+        return ranking.subList(0, Math.min(limit, ranking.size()));
+    }
+
+    /**
+     * The {@code limit} cryptos with the highest normalized range over the given time frame, which ends at the newest
+     * tick of each crypto.
+     */
+    public List<CryptoStatistics> getTopCryptoStatistics(int limit, TimeFrame timeFrame) {
+        return getTopCryptoStatistics(limit, priceSeries -> {
+            long newestTimestamp = priceSeries.getNewestTimestamp();
+            return priceSeries.window(timeFrame.getStartTimestamp(newestTimestamp), newestTimestamp);
+        });
+    }
+
+    /**
+     * The {@code limit} cryptos with the highest normalized range over the ticks with
+     * {@code fromTimestamp <= timestamp <= toTimestamp}; cryptos without ticks in the window are left out.
+     */
+    public List<CryptoStatistics> getTopCryptoStatistics(int limit, long fromTimestamp, long toTimestamp) {
+        return getTopCryptoStatistics(limit, priceSeries -> priceSeries.window(fromTimestamp, toTimestamp));
+    }
+
+    /**
+     * Every window is located by binary search and compared on the unscaled normalized range of its indexed min and
+     * max, so a crypto costs O(log ticks). A heap of at most {@code limit} entries keeps the best windows seen so far
+     * with the weakest on top, and statistics are only built for the ones left at the end.
+     */
+    private List<CryptoStatistics> getTopCryptoStatistics(int limit, UnaryOperator<PriceSeries> windowOf) {
+        PriorityQueue<RankedWindow> top = new PriorityQueue<>(RankedWindow.WEAKEST_FIRST);
+        priceSource.getSnapshot().getPriceSeriesByName().forEach((cryptoName, priceSeries) -> {
+            if (priceSeries.isEmpty()) {
+                return;
+            }
+            PriceSeries window = windowOf.apply(priceSeries);
+            if (window.isEmpty()) {
+                return;
+            }
+            var candidate = new RankedWindow(cryptoName, window,
+                    NormalizedRange.unscaled(window.getMinUnscaledPrice(), window.getMaxUnscaledPrice()));
+            if (top.size() < limit) {
+                top.add(candidate);
+            } else if (RankedWindow.WEAKEST_FIRST.compare(candidate, top.peek()) > 0) {
+                top.poll();
+                top.add(candidate);
+            }
+        });
+        CryptoStatistics[] ranking = new CryptoStatistics[top.size()];
+        for (int i = ranking.length - 1; i >= 0; i--) {
+            RankedWindow rankedWindow = top.poll();
+            ranking[i] = calculateStats(rankedWindow.cryptoName, rankedWindow.window);
+        }
+        return List.of(ranking);
+    }
+
+    /**
+     * The ranking of {@link #getAllCryptoStatistics()} as JSON, serialized once per data version.
+     */
+    public PrecomputedJson getAllCryptoStatisticsJson() {
+        return getRankingJson(getStatisticsSnapshot());
+    }
+
+    /**
+     * The ranking of {@link #getAllCryptoStatistics()} together with its JSON, both of the same data version.
+     */
+    public Ranking getRanking() {
+        StatisticsSnapshot snapshot = getStatisticsSnapshot();
+        return new Ranking(snapshot.getRanking(), getRankingJson(snapshot));
+    }
+
+    private PrecomputedJson getRankingJson(StatisticsSnapshot snapshot) {
+        PrecomputedJson rankingJson = snapshot.getRankingJson();
+        if (rankingJson == null) {
+            try {
+                rankingJson = new PrecomputedJson(snapshot.getDataVersion(),
+                        objectMapper.writeValueAsBytes(snapshot.getRanking()));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize the ranking", e);
+            }
+            snapshot.setRankingJson(rankingJson);
         }
-        List<CryptoData> cryptoDataList = csvDataReader.getCryptoDataByName(cryptoName);
-        List<CryptoData> filteredData = filterCryptoDataByTimeFrame(cryptoDataList, timeFrame);
-        if (filteredData.isEmpty()) {
+        return rankingJson;
+    }
+
+    public DataVersion getDataVersion() {
+        return DataVersion.of(priceSource.getSnapshot());
+    }
+
+    /**
+     * Statistics for the given time frame, which ends at the newest tick of the crypto.
+     */
+    public CryptoStatistics getCryptoStatisticsByName(String cryptoName, TimeFrame timeFrame) {
+        CryptoDataSnapshot dataSnapshot = priceSource.getSnapshot();
+        PriceSeries priceSeries = getSupportedPriceSeries(dataSnapshot, cryptoName);
+        if (priceSeries.isEmpty()) {
             throw new DataNotFoundException(timeFrame);
         }
-        return calculateStats(cryptoName, filteredData);
+        long newestTimestamp = priceSeries.getNewestTimestamp();
+        return getWindowStatistics(dataSnapshot, cryptoName, priceSeries,
+                timeFrame.getStartTimestamp(newestTimestamp), newestTimestamp);
+    }
+
+    /**
+     * Statistics for the ticks with {@code fromTimestamp <= timestamp <= toTimestamp}.
+     */
+    public CryptoStatistics getCryptoStatisticsByName(String cryptoName, long fromTimestamp, long toTimestamp) {
+        CryptoDataSnapshot dataSnapshot = priceSource.getSnapshot();
+        PriceSeries priceSeries = getSupportedPriceSeries(dataSnapshot, cryptoName);
+        CryptoStatistics statistics = getWindowStatistics(dataSnapshot, cryptoName, priceSeries,
+                fromTimestamp, toTimestamp);
+        if (statistics == null) {
+            throw new DataNotFoundException(fromTimestamp, toTimestamp);
+        }
+        return statistics;
+    }
+
+    /**
+     * Statistics of every requested crypto over every requested time frame and window, all taken from one data
+     * snapshot. Each series is resolved once per crypto and every window is located in it by binary search and
+     * answered from the range index or the statistics cache, so no window rescans the ticks. Results are produced
+     * crypto by crypto as the stream is consumed; unknown cryptos and empty windows yield results carrying an error
+     * instead of failing the batch, while an invalid request fails before anything is computed.
+     */
+    public Stream<BatchStatisticsResult> getBatchStatistics(BatchStatisticsRequest request) {
+        CryptoDataSnapshot dataSnapshot = priceSource.getSnapshot();
+        List<TimeFrame> timeFrames = Optional.ofNullable(request.getTimeFrames()).orElse(List.of());
+        List<TimeWindow> windows = Optional.ofNullable(request.getWindows()).orElse(List.of());
+        List<String> cryptoNames = request.getCryptoNames() == null || request.getCryptoNames().isEmpty()
+                ? dataSnapshot.getCryptoNames().stream().sorted().collect(Collectors.toList())
+                : request.getCryptoNames();
+        int windowsPerCrypto = timeFrames.size() + windows.size();
+        if (windowsPerCrypto == 0) {
+            throw new InvalidBatchRequestException("At least one time frame or window is required");
+        }
+        if ((long) cryptoNames.size() * windowsPerCrypto > MAX_BATCH_RESULTS) {
+            throw new InvalidBatchRequestException("A batch is limited to " + MAX_BATCH_RESULTS + " results, requested "
+                    + (long) cryptoNames.size() * windowsPerCrypto);
+        }
+        return cryptoNames.stream()
+                .flatMap(cryptoName -> getBatchStatistics(dataSnapshot, cryptoName, timeFrames, windows).stream());
     }
 
-    public CryptoStatistics getHighestNormalizedRangeCryptoByDay(long timestamp) {
-        Set<String> cryptoNames = csvDataReader.getAllCryptoNames();
+    private List<BatchStatisticsResult> getBatchStatistics(CryptoDataSnapshot dataSnapshot, String cryptoName,
+                                                           List<TimeFrame> timeFrames, List<TimeWindow> windows) {
+        PriceSeries priceSeries = dataSnapshot.getPriceSeries(cryptoName);
+        if (priceSeries == null) {
+            var error = new ErrorResponse("UNSUPPORTED_CRYPTO", new UnsupportedCryptoException(cryptoName).getMessage());
+            return List.of(BatchStatisticsResult.builder().cryptoName(cryptoName).error(error).build());
+        }
 
-        return cryptoNames.parallelStream()
-                .map(cryptoName -> {
-                    List<CryptoData> cryptoDataList = csvDataReader.getCryptoDataByName(cryptoName);
-                    CryptoData cryptoData = getCryptoDataByTimestamp(cryptoDataList, timestamp);
+        List<BatchStatisticsResult> results = new ArrayList<>(timeFrames.size() + windows.size());
+        for (TimeFrame timeFrame : timeFrames) {
+            var result = BatchStatisticsResult.builder().cryptoName(cryptoName).timeFrame(timeFrame);
+            if (priceSeries.isEmpty()) {
+                result.error(new ErrorResponse("DATA_NOT_FOUND", new DataNotFoundException(timeFrame).getMessage()));
+            } else {
+                long newestTimestamp = priceSeries.getNewestTimestamp();
+                result.statistics(getWindowStatistics(dataSnapshot, cryptoName, priceSeries,
+                        timeFrame.getStartTimestamp(newestTimestamp), newestTimestamp));
+            }
+            results.add(result.build());
+        }
+        for (TimeWindow window : windows) {
+            long fromTimestamp = window.getFrom() != null ? window.getFrom() : Long.MIN_VALUE;
+            long toTimestamp = window.getTo() != null ? window.getTo() : Long.MAX_VALUE;
+            CryptoStatistics statistics = getWindowStatistics(dataSnapshot, cryptoName, priceSeries,
+                    fromTimestamp, toTimestamp);
+            var result = BatchStatisticsResult.builder().cryptoName(cryptoName).window(window).statistics(statistics);
+            if (statistics == null) {
+                result.error(new ErrorResponse("DATA_NOT_FOUND",
+                        new DataNotFoundException(fromTimestamp, toTimestamp).getMessage()));
+            }
+            results.add(result.build());
+        }
+        return results;
+    }
 
-                    if (cryptoData != null) {
-                        BigDecimal normalizedRange = calculateNormalizedRange(cryptoDataList);
-                        return CryptoStatistics.builder()
-                                .cryptoName(cryptoData.getSymbol())
-                                .normalizedRange(normalizedRange)
-                                .build();
-                    }
-                    return null;
-                })
-                .filter(Objects::nonNull)
-                .max(Comparator.comparing(CryptoStatistics::getNormalizedRange))
-                .orElse(null);
+    /**
+     * Zero-copy view over the ticks with {@code fromTimestamp <= timestamp <= toTimestamp}, taken from the current data
+     * snapshot so that a reload while it is being exported does not change it.
+     */
+    public PriceSeries getPriceHistory(String cryptoName, long fromTimestamp, long toTimestamp) {
+        PriceSeries window = getSupportedPriceSeries(priceSource.getSnapshot(), cryptoName)
+                .window(fromTimestamp, toTimestamp);
+        if (window.isEmpty()) {
+            throw new DataNotFoundException(fromTimestamp, toTimestamp);
+        }
+        return window;
     }
 
-    private CryptoStatistics calculateStats(String cryptoName, List<CryptoData> cryptoDataList) {
-        if (cryptoDataList == null || cryptoDataList.isEmpty()) {
-            return null;
+    /**
+     * Crypto with the highest normalized range over the ticks of the given UTC day, read from the daily leaderboard.
+     */
+    public CryptoStatistics getHighestNormalizedRangeCryptoByDay(LocalDate day) {
+        return getStatisticsSnapshot().getDailyLeaders().get(day.toEpochDay());
+    }
+
+    public CacheStatistics getCacheStatistics() {
+        return statisticsCache.getStatistics();
+    }
+
+    /**
+     * Cached per crypto and series version, so repeated windows skip the calculation until the prices change. Empty
+     * windows are not cached.
+     */
+    private CryptoStatistics getWindowStatistics(CryptoDataSnapshot dataSnapshot, String cryptoName,
+                                                 PriceSeries priceSeries, long fromTimestamp, long toTimestamp) {
+        return statisticsCache.get(cryptoName, dataSnapshot.getSeriesVersion(cryptoName), fromTimestamp, toTimestamp,
+                () -> {
+                    long started = System.nanoTime();
+                    PriceSeries window = priceSeries.window(fromTimestamp, toTimestamp);
+                    long filtered = System.nanoTime();
+                    CryptoStatistics statistics = calculateStats(cryptoName, window);
+                    filterTimer.record(filtered - started, TimeUnit.NANOSECONDS);
+                    aggregateTimer.record(System.nanoTime() - filtered, TimeUnit.NANOSECONDS);
+                    windowTicks.record(window.size());
+                    return statistics;
+                });
+    }
+
+    /**
+     * Whole-history statistics are only recomputed when the reader publishes a new data snapshot, so the ranking
+     * endpoints cost O(symbols) lookups instead of full passes over every series. Statistics of series that did not
+     * change since the previous snapshot are reused, and so are their daily leaders.
+     */
+    private StatisticsSnapshot getStatisticsSnapshot() {
+        CryptoDataSnapshot dataSnapshot = priceSource.getSnapshot();
+        StatisticsSnapshot snapshot = statisticsSnapshot;
+        if (snapshot == null || snapshot.getDataVersion().getVersion() != dataSnapshot.getVersion()) {
+            long started = System.nanoTime();
+            StatisticsSnapshot previous = snapshot;
+            Map<String, Long> seriesVersions = new HashMap<>();
+            Map<String, CryptoStatistics> statisticsByName = new HashMap<>();
+            Set<String> unchanged = new HashSet<>();
+            dataSnapshot.getPriceSeriesByName().forEach((cryptoName, priceSeries) -> {
+                long seriesVersion = dataSnapshot.getSeriesVersion(cryptoName);
+                CryptoStatistics statistics = previous != null ? previous.getStatistics(cryptoName, seriesVersion) : null;
+                if (statistics != null) {
+                    unchanged.add(cryptoName);
+                } else {
+                    statistics = calculateStats(cryptoName, priceSeries);
+                }
+                if (statistics != null) {
+                    seriesVersions.put(cryptoName, seriesVersion);
+                    statisticsByName.put(cryptoName, statistics);
+                }
+            });
+            snapshot = new StatisticsSnapshot(DataVersion.of(dataSnapshot), seriesVersions, statisticsByName,
+                    updateDailyLeaders(previous, dataSnapshot, unchanged), previous);
+            statisticsSnapshot = snapshot;
+            rebuildTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
         }
+        return snapshot;
+    }
 
-        var min = cryptoDataList.stream()
-                .map(CryptoData::getPrice)
-                .min(BigDecimal::compareTo)
-                .orElse(BigDecimal.ZERO);
-        var max = cryptoDataList.stream()
-                .map(CryptoData::getPrice)
-                .max(BigDecimal::compareTo)
-                .orElse(BigDecimal.ZERO);
-        var normalizedRange = max.subtract(min).divide(min, 5, RoundingMode.HALF_UP);
+    /**
+     * Leaders of the previous snapshot that belong to unchanged series are still the best among the unchanged series,
+     * so only the bars of the changed series are offered on top of them. Days whose leader belonged to a changed or
+     * removed series are looked up again in every unchanged series, one binary search each. Without a previous
+     * snapshot every bar of every series is offered.
+     */
+    private Map<Long, DailyLeader> updateDailyLeaders(StatisticsSnapshot previous, CryptoDataSnapshot dataSnapshot,
+                                                      Set<String> unchanged) {
+        Map<Long, DailyLeader> dailyLeaders = new HashMap<>();
+        Set<Long> vacantDays = new HashSet<>();
+        if (previous != null) {
+            previous.getDailyLeaderBars().forEach((epochDay, leader) -> {
+                if (unchanged.contains(leader.cryptoName)) {
+                    dailyLeaders.put(epochDay, leader);
+                } else {
+                    vacantDays.add(epochDay);
+                }
+            });
+        }
+        dataSnapshot.getPriceSeriesByName().forEach((cryptoName, priceSeries) -> {
+            if (priceSeries.isEmpty()) {
+                return;
+            }
+            DailyBars dailyBars = priceSeries.getDailyBars();
+            int scale = priceSeries.getScale();
+            if (!unchanged.contains(cryptoName)) {
+                for (int i = 0; i < dailyBars.size(); i++) {
+                    offerDailyLeader(dailyLeaders, cryptoName, dailyBars, i, scale);
+                }
+            } else {
+                for (long epochDay : vacantDays) {
+                    int bar = dailyBars.indexOf(LocalDate.ofEpochDay(epochDay));
+                    if (bar >= 0) {
+                        offerDailyLeader(dailyLeaders, cryptoName, dailyBars, bar, scale);
+                    }
+                }
+            }
+        });
+        return dailyLeaders;
+    }
 
-        var oldestCryptoData = cryptoDataList.stream()
-                .min(Comparator.comparing(CryptoData::getTimestamp))
-                .orElseThrow(NoSuchElementException::new);
-        var oldest = oldestCryptoData.getPrice();
+    private static void offerDailyLeader(Map<Long, DailyLeader> dailyLeaders, String cryptoName, DailyBars dailyBars,
+                                         int bar, int scale) {
+        long normalizedRange = NormalizedRange.unscaled(dailyBars.getLow(bar), dailyBars.getHigh(bar));
+        long epochDay = dailyBars.getDay(bar).toEpochDay();
+        DailyLeader leader = dailyLeaders.get(epochDay);
+        if (leader == null || leader.isBeatenBy(cryptoName, normalizedRange)) {
+            dailyLeaders.put(epochDay, new DailyLeader(cryptoName, dailyBars, bar, scale, normalizedRange));
+        }
+    }
 
-        var newestCryptoData = cryptoDataList.stream()
-                .max(Comparator.comparing(CryptoData::getTimestamp))
-                .orElseThrow(NoSuchElementException::new);
-        var newest = newestCryptoData.getPrice();
+    /**
+     * The series is ordered by timestamp, so oldest and newest are its first and last ticks, and min and max come
+     * from the range index of the series, so the cost does not depend on the window length.
+     */
+    private CryptoStatistics calculateStats(String cryptoName, PriceSeries priceSeries) {
+        if (priceSeries == null || priceSeries.isEmpty()) {
+            return null;
+        }
+
+        long minPrice = priceSeries.getMinUnscaledPrice();
+        long maxPrice = priceSeries.getMaxUnscaledPrice();
+        int scale = priceSeries.getScale();
 
         return CryptoStatistics.builder()
                 .cryptoName(cryptoName)
-                .oldest(oldest)
-                .newest(newest)
-                .min(min)
-                .max(max)
-                .normalizedRange(normalizedRange)
+                .oldest(priceSeries.getPrice(0))
+                .newest(priceSeries.getPrice(priceSeries.size() - 1))
+                .min(BigDecimal.valueOf(minPrice, scale))
+                .max(BigDecimal.valueOf(maxPrice, scale))
+                .normalizedRange(NormalizedRange.toBigDecimal(NormalizedRange.unscaled(minPrice, maxPrice)))
                 .build();
     }
 
-    private BigDecimal calculateNormalizedRange(List<CryptoData> cryptoDataList) {
-        var min = cryptoDataList.stream().map(CryptoData::getPrice).min(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
-        var max = cryptoDataList.stream().map(CryptoData::getPrice).max(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
-        return max.subtract(min).divide(min, 5, RoundingMode.HALF_UP);
+    private PriceSeries getSupportedPriceSeries(CryptoDataSnapshot dataSnapshot, String cryptoName) {
+        PriceSeries priceSeries = dataSnapshot.getPriceSeries(cryptoName);
+        if (priceSeries == null) {
+            throw new UnsupportedCryptoException(cryptoName);
+        }
+        return priceSeries;
     }
 
-    private CryptoData getCryptoDataByTimestamp(List<CryptoData> cryptoDataList, long timestamp) {
-        return cryptoDataList.stream()
-                .filter(cryptoData -> cryptoData.getTimestamp() == timestamp)
-                .findFirst()
-                .orElse(null);
-    }
+    @Value
+    public static class Ranking {
+        List<CryptoStatistics> statistics;
+        PrecomputedJson json;
 
-    private boolean isSupportedCrypto(String cryptoSymbol) {
-        return csvDataReader.getAllCryptoNames().contains(cryptoSymbol);
+        public DataVersion getDataVersion() {
+            return json.getDataVersion();
+        }
     }
 
-    private List<CryptoData> filterCryptoDataByTimeFrame(List<CryptoData> cryptoDataList, TimeFrame timeFrame) {
-        LocalDate currentDate = LocalDate.now().minusYears(2); // Since we only have data for 2022
-        LocalDate startDate;
-        switch (timeFrame){
-            case ONE_MONTH:
-                startDate = currentDate.minusMonths(1);
-                break;
-            case SIX_MONTHS:
-                startDate = currentDate.minusMonths(6);
-                break;
-            case ONE_YEAR:
-                startDate = currentDate.minusYears(1);
-                break;
-            default:
-                throw new IllegalArgumentException("Unsupported time frame: " + timeFrame);
-        }
-        long startTimestamp = startDate.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
-        return cryptoDataList.stream()
-                .filter(cryptoData -> cryptoData.getTimestamp() >= startTimestamp)
-                .collect(Collectors.toList());
+    @RequiredArgsConstructor
+    private static class RankedWindow {
+        /** Lowest normalized range first, ties by the later crypto name, the reverse of the ranking order. */
+        static final Comparator<RankedWindow> WEAKEST_FIRST = Comparator
+                .comparingLong((RankedWindow rankedWindow) -> rankedWindow.normalizedRange)
+                .thenComparing(rankedWindow -> rankedWindow.cryptoName, Comparator.reverseOrder());
+
+        private final String cryptoName;
+        private final PriceSeries window;
+        private final long normalizedRange;
     }
 }
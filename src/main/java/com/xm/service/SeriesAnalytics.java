@@ -0,0 +1,166 @@
+package com.xm.service;
+
+import com.xm.data.CryptoAnalytics;
+import com.xm.data.PriceSeries;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Single pass over a series that keeps every metric up to date in O(1) per tick: Welford's running mean and sum of
+ * squared deviations of the log returns, the same sums over a sliding window of returns held in a ring buffer (a
+ * return leaving the window is removed with the inverse update), the running peak for the drawdown, and the
+ * time-weighted and plain price sums. Only the N-period returns look back, with one binary search per period once
+ * the pass is done.
+ */
+final class SeriesAnalytics {
+
+    static final int RATIO_SCALE = 5;
+    static final int VOLATILITY_SCALE = 8;
+
+    private final int scale;
+    private final double[] rollingReturns;
+
+    private long count;
+    private long previousPrice;
+
+    private long returns;
+    private double mean;
+    private double squaredDeviations;
+
+    private int rollingCount;
+    private int rollingNext;
+    private double rollingMean;
+    private double rollingSquaredDeviations;
+    private double maxRollingVariance = Double.NaN;
+
+    private long peak;
+    private long drawdownPeak;
+    private long drawdownTrough;
+    private double maxDrawdown;
+
+    private long firstTimestamp;
+    private long previousTimestamp;
+    private double timeWeightedSum;
+    private double priceSum;
+
+    SeriesAnalytics(int scale, int rollingWindow) {
+        this.scale = scale;
+        this.rollingReturns = new double[rollingWindow];
+    }
+
+    static CryptoAnalytics of(String cryptoName, PriceSeries priceSeries, int rollingWindow,
+                              Map<String, Duration> returnPeriods) {
+        var analytics = new SeriesAnalytics(priceSeries.getScale(), rollingWindow);
+        for (int i = 0; i < priceSeries.size(); i++) {
+            analytics.accept(priceSeries.getTimestamp(i), priceSeries.getUnscaledPrice(i));
+        }
+        return analytics.toAnalytics(cryptoName, periodReturns(priceSeries, returnPeriods));
+    }
+
+    void accept(long timestamp, long unscaledPrice) {
+        if (count == 0) {
+            firstTimestamp = timestamp;
+            peak = unscaledPrice;
+        } else {
+            timeWeightedSum += (double) previousPrice * (timestamp - previousTimestamp);
+            if (previousPrice > 0 && unscaledPrice > 0) {
+                addReturn(Math.log((double) unscaledPrice / previousPrice));
+            }
+        }
+        if (unscaledPrice > peak) {
+            peak = unscaledPrice;
+        } else if (peak > 0) {
+            double drawdown = (double) (peak - unscaledPrice) / peak;
+            if (drawdown > maxDrawdown) {
+                maxDrawdown = drawdown;
+                drawdownPeak = peak;
+                drawdownTrough = unscaledPrice;
+            }
+        }
+        priceSum += unscaledPrice;
+        previousPrice = unscaledPrice;
+        previousTimestamp = timestamp;
+        count++;
+    }
+
+    private void addReturn(double logReturn) {
+        returns++;
+        double delta = logReturn - mean;
+        mean += delta / returns;
+        squaredDeviations += delta * (logReturn - mean);
+
+        if (rollingCount == rollingReturns.length) {
+            double leaving = rollingReturns[rollingNext];
+            rollingCount--;
+            double leavingDelta = leaving - rollingMean;
+            rollingMean -= leavingDelta / rollingCount;
+            rollingSquaredDeviations = Math.max(0, rollingSquaredDeviations - leavingDelta * (leaving - rollingMean));
+        }
+        rollingReturns[rollingNext] = logReturn;
+        rollingNext = (rollingNext + 1) % rollingReturns.length;
+        rollingCount++;
+        double rollingDelta = logReturn - rollingMean;
+        rollingMean += rollingDelta / rollingCount;
+        rollingSquaredDeviations += rollingDelta * (logReturn - rollingMean);
+        if (rollingCount == rollingReturns.length) {
+            double rollingVariance = rollingSquaredDeviations / (rollingCount - 1);
+            if (!(rollingVariance <= maxRollingVariance)) {
+                maxRollingVariance = rollingVariance;
+            }
+        }
+    }
+
+    CryptoAnalytics toAnalytics(String cryptoName, Map<String, BigDecimal> periodReturns) {
+        if (count == 0) {
+            return null;
+        }
+        long duration = previousTimestamp - firstTimestamp;
+        return CryptoAnalytics.builder()
+                .cryptoName(cryptoName)
+                .fromTimestamp(firstTimestamp)
+                .toTimestamp(previousTimestamp)
+                .ticks((int) count)
+                .volatility(returns > 1 ? volatility(squaredDeviations / (returns - 1)) : null)
+                .rollingWindow(rollingReturns.length)
+                .rollingVolatility(rollingCount == rollingReturns.length
+                        ? volatility(rollingSquaredDeviations / (rollingCount - 1)) : null)
+                .maxRollingVolatility(Double.isNaN(maxRollingVariance) ? null : volatility(maxRollingVariance))
+                .maxDrawdown(drawdownPeak == 0 ? BigDecimal.ZERO.setScale(RATIO_SCALE)
+                        : BigDecimal.valueOf(drawdownPeak - drawdownTrough)
+                        .divide(BigDecimal.valueOf(drawdownPeak), RATIO_SCALE, RoundingMode.HALF_UP))
+                .twap(BigDecimal.valueOf(duration == 0 ? previousPrice : timeWeightedSum / duration)
+                        .movePointLeft(scale).setScale(scale, RoundingMode.HALF_UP))
+                .meanPrice(BigDecimal.valueOf(priceSum / count).movePointLeft(scale).setScale(scale, RoundingMode.HALF_UP))
+                .returns(periodReturns)
+                .build();
+    }
+
+    private static BigDecimal volatility(double variance) {
+        return BigDecimal.valueOf(Math.sqrt(Math.max(0, variance))).setScale(VOLATILITY_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Return from the last tick at or before {@code newest - period} to the newest tick, exact on the unscaled prices.
+     */
+    static Map<String, BigDecimal> periodReturns(PriceSeries priceSeries, Map<String, Duration> returnPeriods) {
+        Map<String, BigDecimal> periodReturns = new LinkedHashMap<>();
+        if (priceSeries.isEmpty()) {
+            return periodReturns;
+        }
+        long newestTimestamp = priceSeries.getNewestTimestamp();
+        long newestPrice = priceSeries.getUnscaledPrice(priceSeries.size() - 1);
+        returnPeriods.forEach((name, period) -> {
+            int start = priceSeries.firstIndexAtOrAfter(newestTimestamp - period.toMillis() + 1) - 1;
+            if (start >= 0 && priceSeries.getUnscaledPrice(start) != 0) {
+                long startPrice = priceSeries.getUnscaledPrice(start);
+                periodReturns.put(name, BigDecimal.valueOf(newestPrice - startPrice)
+                        .divide(BigDecimal.valueOf(startPrice), RATIO_SCALE, RoundingMode.HALF_UP));
+            }
+        });
+        return periodReturns;
+    }
+}
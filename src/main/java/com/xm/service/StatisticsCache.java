@@ -0,0 +1,76 @@
+package com.xm.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.xm.data.CacheStatistics;
+import com.xm.data.CryptoDataSnapshot;
+import com.xm.data.CryptoStatistics;
+import com.xm.reader.CryptoDataReloadedEvent;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Statistics of arbitrary windows, cached in the {@value #CACHE_NAME} cache configured through
+ * {@code spring.cache.caffeine.spec}. Keys carry the series version of the crypto, so entries never outlive the prices
+ * they were computed from; after a reload only the entries of the cryptos whose series changed are evicted.
+ */
+@Slf4j
+@Component
+public class StatisticsCache {
+
+    public static final String CACHE_NAME = "cryptoStatistics";
+
+    private final Cache<Object, Object> cache;
+
+    @SuppressWarnings("unchecked")
+    public StatisticsCache(CacheManager cacheManager) {
+        var springCache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME), "Missing cache " + CACHE_NAME);
+        this.cache = (Cache<Object, Object>) springCache.getNativeCache();
+    }
+
+    CryptoStatistics get(String cryptoName, long seriesVersion, long fromTimestamp, long toTimestamp,
+                         Supplier<CryptoStatistics> calculation) {
+        var key = new WindowKey(cryptoName, seriesVersion, fromTimestamp, toTimestamp);
+        return (CryptoStatistics) cache.get(key, ignored -> calculation.get());
+    }
+
+    @EventListener
+    public void onCryptoDataReloaded(CryptoDataReloadedEvent event) {
+        CryptoDataSnapshot current = event.getCurrent();
+        long before = cache.estimatedSize();
+        cache.asMap().keySet().removeIf(key -> {
+            var windowKey = (WindowKey) key;
+            return windowKey.seriesVersion != current.getSeriesVersion(windowKey.cryptoName);
+        });
+        log.debug("Evicted {} cached statistics for snapshot v{}", before - cache.estimatedSize(),
+                current.getVersion());
+    }
+
+    CacheStatistics getStatistics() {
+        CacheStats stats = cache.stats();
+        return CacheStatistics.builder()
+                .cacheName(CACHE_NAME)
+                .size(cache.estimatedSize())
+                .maximumSize(cache.policy().eviction().map(Policy.Eviction::getMaximum).orElse(null))
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+
+    @Value
+    private static class WindowKey {
+        String cryptoName;
+        long seriesVersion;
+        long fromTimestamp;
+        long toTimestamp;
+    }
+}
@@ -0,0 +1,130 @@
+package com.xm.service;
+
+import com.xm.data.CryptoStatistics;
+import com.xm.data.DailyBars;
+import com.xm.data.DataVersion;
+import com.xm.data.PrecomputedJson;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.xm.data.CryptoStatistics.RANKING_ORDER;
+
+/**
+ * Whole-history statistics of every crypto for one {@link com.xm.data.CryptoDataSnapshot} version, together with the
+ * ranking by normalized range and the per-day leaderboard. Built once per data version and shared by all requests until the data changes.
+ * <p>
+ * The statistics of a series are kept with the series version they were computed for, so the next snapshot reuses
+ * those of unchanged series, and its ranking is the previous one without the changed cryptos merged with the
+ * recomputed ones, instead of a sort of every crypto.
+ */
+@Getter
+class StatisticsSnapshot {
+
+    private final DataVersion dataVersion;
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Long> seriesVersions;
+    private final Map<String, CryptoStatistics> statisticsByName;
+    private final List<CryptoStatistics> ranking;
+    /** Crypto with the highest normalized range of each day, keyed by epoch day. */
+    private final Map<Long, CryptoStatistics> dailyLeaders;
+    /** Bars the daily leaders were built from, keyed by epoch day. */
+    private final Map<Long, DailyLeader> dailyLeaderBars;
+    /** Serialized ranking, set by the first request that needs it; racing requests serialize the same bytes. */
+    @Setter
+    private volatile PrecomputedJson rankingJson;
+
+    StatisticsSnapshot(DataVersion dataVersion, Map<String, Long> seriesVersions,
+                       Map<String, CryptoStatistics> statisticsByName, Map<Long, DailyLeader> dailyLeaderBars,
+                       StatisticsSnapshot previous) {
+        this.dataVersion = dataVersion;
+        this.seriesVersions = Collections.unmodifiableMap(seriesVersions);
+        this.statisticsByName = Collections.unmodifiableMap(statisticsByName);
+        this.ranking = previous == null ? sortedRanking(statisticsByName) : mergedRanking(previous, statisticsByName);
+        this.dailyLeaderBars = Collections.unmodifiableMap(dailyLeaderBars);
+        Map<Long, CryptoStatistics> dailyLeaders = new HashMap<>();
+        dailyLeaderBars.forEach((epochDay, leader) -> dailyLeaders.put(epochDay,
+                previous != null && previous.dailyLeaderBars.get(epochDay) == leader
+                        ? previous.dailyLeaders.get(epochDay)
+                        : leader.toStatistics()));
+        this.dailyLeaders = Collections.unmodifiableMap(dailyLeaders);
+    }
+
+    /**
+     * Statistics of the crypto if they were computed for the given series version, {@code null} otherwise.
+     */
+    CryptoStatistics getStatistics(String cryptoName, long seriesVersion) {
+        Long computedFor = seriesVersions.get(cryptoName);
+        return computedFor != null && computedFor == seriesVersion ? statisticsByName.get(cryptoName) : null;
+    }
+
+    private static List<CryptoStatistics> sortedRanking(Map<String, CryptoStatistics> statisticsByName) {
+        return statisticsByName.values().stream()
+                .sorted(RANKING_ORDER)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    private static List<CryptoStatistics> mergedRanking(StatisticsSnapshot previous,
+                                                        Map<String, CryptoStatistics> statisticsByName) {
+        List<CryptoStatistics> kept = new ArrayList<>(statisticsByName.size());
+        for (CryptoStatistics statistics : previous.ranking) {
+            if (statisticsByName.get(statistics.getCryptoName()) == statistics) {
+                kept.add(statistics);
+            }
+        }
+        List<CryptoStatistics> changed = statisticsByName.values().stream()
+                .filter(statistics -> previous.statisticsByName.get(statistics.getCryptoName()) != statistics)
+                .sorted(RANKING_ORDER)
+                .collect(Collectors.toList());
+
+        List<CryptoStatistics> ranking = new ArrayList<>(statisticsByName.size());
+        int k = 0;
+        int c = 0;
+        while (k < kept.size() || c < changed.size()) {
+            if (c == changed.size() || k < kept.size() && RANKING_ORDER.compare(kept.get(k), changed.get(c)) <= 0) {
+                ranking.add(kept.get(k++));
+            } else {
+                ranking.add(changed.get(c++));
+            }
+        }
+        return Collections.unmodifiableList(ranking);
+    }
+
+    /**
+     * Bar of the crypto leading a day, compared on its unscaled normalized range; the statistics are only built for
+     * the final leader of each day.
+     */
+    @RequiredArgsConstructor
+    static class DailyLeader {
+        final String cryptoName;
+        final DailyBars dailyBars;
+        final int bar;
+        final int scale;
+        final long normalizedRange;
+
+        boolean isBeatenBy(String otherCryptoName, long otherNormalizedRange) {
+            return otherNormalizedRange > normalizedRange
+                    || otherNormalizedRange == normalizedRange && otherCryptoName.compareTo(cryptoName) < 0;
+        }
+
+        CryptoStatistics toStatistics() {
+            return CryptoStatistics.builder()
+                    .cryptoName(cryptoName)
+                    .oldest(BigDecimal.valueOf(dailyBars.getOpen(bar), scale))
+                    .newest(BigDecimal.valueOf(dailyBars.getClose(bar), scale))
+                    .min(BigDecimal.valueOf(dailyBars.getLow(bar), scale))
+                    .max(BigDecimal.valueOf(dailyBars.getHigh(bar), scale))
+                    .normalizedRange(NormalizedRange.toBigDecimal(normalizedRange))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.xm.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Bounded cache of pages read from the segment files of all series, so repeated lookups around the same windows stay
+ * on the heap while the history on disk can be much larger. Pages of completed segments never change; the page still
+ * being appended to is cached with the ticks it had when it was read and read again by a series that needs more.
+ */
+final class PageCache {
+
+    @Getter
+    private final Cache<PageKey, Page> cache;
+
+    PageCache(long maxPages) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxPages)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The {@code count} ticks of the page starting at tick {@code offset} of the segment, at the scale of the segment.
+     */
+    Page get(Segment segment, int offset, int count) {
+        var key = new PageKey(segment, offset);
+        Page page = cache.getIfPresent(key);
+        if (page == null || page.size < count) {
+            page = read(segment, offset, count);
+            cache.put(key, page);
+        }
+        return page;
+    }
+
+    private static Page read(Segment segment, int offset, int count) {
+        var page = new Page(new long[count], new long[count], count);
+        try {
+            segment.read(offset, count, page.timestamps, page.prices);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read page at tick " + offset + " of " + segment.getPath(), e);
+        }
+        return page;
+    }
+
+    @Value
+    static class PageKey {
+        Segment segment;
+        int offset;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    static final class Page {
+        private final long[] timestamps;
+        private final long[] prices;
+        private final int size;
+    }
+}
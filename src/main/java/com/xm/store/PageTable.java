@@ -0,0 +1,144 @@
+package com.xm.store;
+
+import java.util.Arrays;
+
+/**
+ * Sparse index of a stored series: one entry per page of ticks with where the page lives and its first timestamp,
+ * lowest and highest price, at the scale of the series. It stays on the heap, a few dozen bytes per page, so locating
+ * a timestamp costs one page read and min and max of a window read at most its two edge pages.
+ * <p>
+ * Entries of completed pages live in arrays shared with the tables built after this one, which only write past
+ * {@link #completedPages}; the page still being filled is described by fields, so a table handed out earlier keeps
+ * its values while appends go on.
+ */
+final class PageTable {
+
+    private final int[] starts;
+    private final Segment[] segments;
+    private final int[] offsets;
+    private final long[] firstTimestamps;
+    private final long[] mins;
+    private final long[] maxs;
+    private final int completedPages;
+    // Page being filled; it starts right after the completed pages and is absent while empty
+    private final int openStart;
+    private final Segment openSegment;
+    private final int openOffset;
+    private final int openCount;
+    private final long openFirstTimestamp;
+    private final long openMin;
+    private final long openMax;
+
+    PageTable(int[] starts, Segment[] segments, int[] offsets, long[] firstTimestamps, long[] mins, long[] maxs,
+              int completedPages, int openStart, Segment openSegment, int openOffset, int openCount,
+              long openFirstTimestamp, long openMin, long openMax) {
+        this.starts = starts;
+        this.segments = segments;
+        this.offsets = offsets;
+        this.firstTimestamps = firstTimestamps;
+        this.mins = mins;
+        this.maxs = maxs;
+        this.completedPages = completedPages;
+        this.openStart = openStart;
+        this.openSegment = openSegment;
+        this.openOffset = openOffset;
+        this.openCount = openCount;
+        this.openFirstTimestamp = openFirstTimestamp;
+        this.openMin = openMin;
+        this.openMax = openMax;
+    }
+
+    int size() {
+        return openStart + openCount;
+    }
+
+    int pages() {
+        return openCount > 0 ? completedPages + 1 : completedPages;
+    }
+
+    /**
+     * Page holding the given tick, which must be below {@link #size()}.
+     */
+    int pageOf(int tick) {
+        if (tick >= openStart) {
+            return completedPages;
+        }
+        int index = Arrays.binarySearch(starts, 0, completedPages, tick);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * First tick at or after the given timestamp, or {@link #size()} when there is none. Pages are located on their
+     * first timestamps, so only the page before the first page starting at or after the timestamp is read.
+     */
+    int firstTickAtOrAfter(long timestamp, PageReader pageReader) {
+        int low = 0;
+        int high = pages();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (firstTimestamp(middle) < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (low == 0) {
+            return 0;
+        }
+        int page = low - 1;
+        long[] timestamps = pageReader.read(page).getTimestamps();
+        int from = 0;
+        int to = count(page);
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (timestamps[middle] < timestamp) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return start(page) + from;
+    }
+
+    int start(int page) {
+        return page < completedPages ? starts[page] : openStart;
+    }
+
+    int count(int page) {
+        if (page == completedPages) {
+            return openCount;
+        }
+        return (page + 1 < completedPages ? starts[page + 1] : openStart) - starts[page];
+    }
+
+    Segment segment(int page) {
+        return page < completedPages ? segments[page] : openSegment;
+    }
+
+    /**
+     * Position of the first tick of the page in its segment.
+     */
+    int offset(int page) {
+        return page < completedPages ? offsets[page] : openOffset;
+    }
+
+    long firstTimestamp(int page) {
+        return page < completedPages ? firstTimestamps[page] : openFirstTimestamp;
+    }
+
+    long min(int page) {
+        return page < completedPages ? mins[page] : openMin;
+    }
+
+    long max(int page) {
+        return page < completedPages ? maxs[page] : openMax;
+    }
+
+    /**
+     * Loads the ticks of a page, through the page cache.
+     */
+    @FunctionalInterface
+    interface PageReader {
+        PageCache.Page read(int page);
+    }
+}
@@ -0,0 +1,140 @@
+package com.xm.store;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One append-only file of a series: a header followed by fixed-size tick records, so tick {@code i} of the segment
+ * lives at a known offset and any page is read with one positional read.
+ * <p>
+ * Layout (big-endian), format version {@value #FORMAT_VERSION}:
+ * <pre>
+ * int    magic "XMSG", int format version, int price scale, int reserved
+ * per tick: long timestamp (epoch millis), long unscaled price
+ * </pre>
+ * Positional reads are safe from any thread; writes come from the single writer of the series.
+ */
+@Slf4j
+final class Segment {
+
+    static final int TICK_BYTES = 2 * Long.BYTES;
+
+    private static final int MAGIC = 0x584D5347;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+
+    @Getter
+    private final Path path;
+    @Getter
+    private final int scale;
+    private final FileChannel channel;
+
+    private Segment(Path path, int scale, FileChannel channel) {
+        this.path = path;
+        this.scale = scale;
+        this.channel = channel;
+    }
+
+    static Segment create(Path path, int scale) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC).putInt(FORMAT_VERSION).putInt(scale).putInt(0)
+                .flip();
+        writeFully(channel, header, 0);
+        return new Segment(path, scale, channel);
+    }
+
+    static Segment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a segment file: " + path);
+            }
+            int formatVersion = header.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported segment format version " + formatVersion + ": " + path);
+            }
+            return new Segment(path, header.getInt(), channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Whole ticks in the file. A record torn by a crash during an append is cut off, so the segment ends at the last
+     * complete tick.
+     */
+    int recoverTickCount() throws IOException {
+        long dataBytes = Math.max(0, channel.size() - HEADER_BYTES);
+        long ticks = dataBytes / TICK_BYTES;
+        if (ticks * TICK_BYTES != dataBytes) {
+            log.warn("Truncating torn tick record at the end of {}", path);
+            channel.truncate(HEADER_BYTES + ticks * TICK_BYTES);
+        }
+        return Math.toIntExact(ticks);
+    }
+
+    /**
+     * Writes {@code timestamps[from, to)} and {@code prices[from, to)}, already at the scale of this segment, as the
+     * ticks starting at {@code atTick}.
+     */
+    void write(long[] timestamps, long[] prices, int from, int to, int atTick) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((to - from) * TICK_BYTES);
+        for (int i = from; i < to; i++) {
+            buffer.putLong(timestamps[i]).putLong(prices[i]);
+        }
+        writeFully(channel, buffer.flip(), position(atTick));
+    }
+
+    /**
+     * Reads the ticks {@code [fromTick, fromTick + count)} into the start of the given arrays.
+     */
+    void read(int fromTick, int count, long[] timestamps, long[] prices) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(count * TICK_BYTES);
+        readFully(channel, buffer, position(fromTick));
+        buffer.flip();
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = buffer.getLong();
+            prices[i] = buffer.getLong();
+        }
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private static long position(int tick) {
+        return HEADER_BYTES + (long) tick * TICK_BYTES;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment file at byte " + position);
+            }
+            position += read;
+        }
+    }
+}
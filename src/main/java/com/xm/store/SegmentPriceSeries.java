@@ -0,0 +1,157 @@
+package com.xm.store;
+
+import com.xm.data.DailyBars;
+import com.xm.data.PriceSeries;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * {@link PriceSeries} read from the segment files of a {@link SegmentStore}. Ticks are fetched a page at a time
+ * through the shared {@link PageCache}; the {@link PageTable} and the daily bars stay on the heap. Locating a window
+ * reads one page per bound and min and max read at most the two partial pages at its edges, whatever the window
+ * length, so statistics lookups cost a bounded amount of I/O.
+ * <p>
+ * Sub-series share the table and only carry their own bounds. Series are immutable; appends that must reach the
+ * disk go through {@link SegmentStore#append} and publish a new series, while {@link #append(PriceSeries)} merges
+ * into an in-memory series like any other.
+ */
+final class SegmentPriceSeries implements PriceSeries {
+
+    @Getter
+    private final String symbol;
+    @Getter
+    private final int scale;
+    private final PageTable pageTable;
+    private final PageCache pageCache;
+    private final DailyBars dailyBars;
+    private final int offset;
+    private final int length;
+    // Page read last, so sequential reads do not go through the cache per tick. Racy but benign: a stale value is a
+    // valid page of this series and is only replaced
+    private LoadedPage lastPage;
+
+    SegmentPriceSeries(String symbol, int scale, PageTable pageTable, PageCache pageCache, DailyBars dailyBars,
+                       int offset, int length) {
+        this.symbol = symbol;
+        this.scale = scale;
+        this.pageTable = pageTable;
+        this.pageCache = pageCache;
+        this.dailyBars = dailyBars;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public long getTimestamp(int index) {
+        int tick = offset + Objects.checkIndex(index, length);
+        LoadedPage page = loadPage(tick);
+        return page.page.getTimestamps()[tick - page.start];
+    }
+
+    @Override
+    public long getUnscaledPrice(int index) {
+        int tick = offset + Objects.checkIndex(index, length);
+        LoadedPage page = loadPage(tick);
+        return page.page.getPrices()[tick - page.start] * page.factor;
+    }
+
+    @Override
+    public SegmentPriceSeries subSeries(int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, length);
+        return new SegmentPriceSeries(symbol, scale, pageTable, pageCache, null, offset + fromIndex,
+                toIndex - fromIndex);
+    }
+
+    @Override
+    public int firstIndexAtOrAfter(long timestamp) {
+        int tick = pageTable.firstTickAtOrAfter(timestamp, page -> loadPage(pageTable.start(page)).page);
+        return Math.min(Math.max(tick - offset, 0), length);
+    }
+
+    /**
+     * Bars of the full series are kept up to date by the store; views compute theirs from their own ticks on demand.
+     */
+    @Override
+    public DailyBars getDailyBars() {
+        return dailyBars != null ? dailyBars : DailyBars.of(this);
+    }
+
+    @Override
+    public long getMinUnscaledPrice() {
+        checkNotEmpty();
+        long min = Long.MAX_VALUE;
+        int from = offset;
+        int to = offset + length;
+        int toPage = pageTable.pageOf(to - 1);
+        for (int page = pageTable.pageOf(from); page <= toPage; page++) {
+            int pageStart = pageTable.start(page);
+            int pageEnd = pageStart + pageTable.count(page);
+            if (from <= pageStart && pageEnd <= to) {
+                min = Math.min(min, pageTable.min(page));
+            } else {
+                for (int tick = Math.max(from, pageStart); tick < Math.min(to, pageEnd); tick++) {
+                    min = Math.min(min, getUnscaledPrice(tick - offset));
+                }
+            }
+        }
+        return min;
+    }
+
+    @Override
+    public long getMaxUnscaledPrice() {
+        checkNotEmpty();
+        long max = Long.MIN_VALUE;
+        int from = offset;
+        int to = offset + length;
+        int toPage = pageTable.pageOf(to - 1);
+        for (int page = pageTable.pageOf(from); page <= toPage; page++) {
+            int pageStart = pageTable.start(page);
+            int pageEnd = pageStart + pageTable.count(page);
+            if (from <= pageStart && pageEnd <= to) {
+                max = Math.max(max, pageTable.max(page));
+            } else {
+                for (int tick = Math.max(from, pageStart); tick < Math.min(to, pageEnd); tick++) {
+                    max = Math.max(max, getUnscaledPrice(tick - offset));
+                }
+            }
+        }
+        return max;
+    }
+
+    private LoadedPage loadPage(int tick) {
+        LoadedPage page = this.lastPage;
+        if (page == null || tick < page.start || tick >= page.start + page.count) {
+            int index = pageTable.pageOf(tick);
+            Segment segment = pageTable.segment(index);
+            int count = pageTable.count(index);
+            page = new LoadedPage(pageTable.start(index), count,
+                    pageCache.get(segment, pageTable.offset(index), count),
+                    SeriesLog.pow10(scale - segment.getScale()));
+            this.lastPage = page;
+        }
+        return page;
+    }
+
+    private void checkNotEmpty() {
+        if (length == 0) {
+            throw new NoSuchElementException("Empty price series: " + symbol);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class LoadedPage {
+        private final int start;
+        private final int count;
+        private final PageCache.Page page;
+        // Rescales prices from the scale of the segment to the scale of the series
+        private final long factor;
+    }
+}
@@ -0,0 +1,123 @@
+package com.xm.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.xm.data.PriceSeries;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Embedded, file-backed time-series store with one folder of append-only segment files per symbol:
+ * <pre>
+ * &lt;root&gt;/&lt;SYMBOL&gt;/0000000000.seg   ticks, see {@link Segment}
+ * &lt;root&gt;/&lt;SYMBOL&gt;/0000000000.idx   page entries and daily bars, see {@link SegmentSummary}
+ * </pre>
+ * Only a sparse {@link PageTable} and the daily bars of each series live on the heap; ticks are read a page at a time
+ * through a bounded {@link PageCache} shared by all series, so the history can grow beyond the heap.
+ * <p>
+ * Appends are written to the files right away and forced to disk when a segment is sealed and on {@link #close()};
+ * ticks older than the newest stored tick of their series are dropped. A series holds up to
+ * {@link Integer#MAX_VALUE} ticks.
+ */
+@Slf4j
+public final class SegmentStore implements Closeable {
+
+    static final String SEGMENT_EXTENSION = ".seg";
+    static final String SUMMARY_EXTENSION = ".idx";
+
+    private static final Pattern SYMBOL = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9_.-]*");
+
+    private final Path root;
+    private final int pageTicks;
+    private final int segmentTicks;
+    private final PageCache pageCache;
+    private final Map<String, SeriesLog> seriesLogs = new ConcurrentHashMap<>();
+
+    /**
+     * Opens the store at {@code root}, creating it when missing. Segments hold {@code segmentTicks} ticks, a multiple
+     * of {@code pageTicks}, and the page cache holds up to {@code maxCachedPages} pages of all series.
+     */
+    public SegmentStore(Path root, int pageTicks, int segmentTicks, long maxCachedPages) throws IOException {
+        if (pageTicks < 1 || segmentTicks < pageTicks || segmentTicks % pageTicks != 0) {
+            throw new IllegalArgumentException("Segment ticks " + segmentTicks
+                    + " must be a positive multiple of page ticks " + pageTicks);
+        }
+        this.root = root;
+        this.pageTicks = pageTicks;
+        this.segmentTicks = segmentTicks;
+        this.pageCache = new PageCache(maxCachedPages);
+        Files.createDirectories(root);
+        try (Stream<Path> folders = Files.list(root)) {
+            for (Path folder : (Iterable<Path>) folders.filter(Files::isDirectory)::iterator) {
+                String symbol = folder.getFileName().toString();
+                if (SYMBOL.matcher(symbol).matches()) {
+                    seriesLogs.put(symbol, SeriesLog.open(symbol, folder, pageTicks, segmentTicks, pageCache));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Newest series of every stored symbol.
+     */
+    public Map<String, PriceSeries> getPriceSeriesByName() {
+        Map<String, PriceSeries> priceSeriesByName = new HashMap<>();
+        seriesLogs.forEach((symbol, seriesLog) -> priceSeriesByName.put(symbol, seriesLog.getSeries()));
+        return priceSeriesByName;
+    }
+
+    /**
+     * Writes the ticks to the series of {@code symbol}, creating it when new, and returns the extended series.
+     * Appends to the same symbol are serialized.
+     */
+    public PriceSeries append(String symbol, PriceSeries ticks) throws IOException {
+        if (!SYMBOL.matcher(symbol).matches()) {
+            throw new IllegalArgumentException("Invalid symbol: " + symbol);
+        }
+        SeriesLog seriesLog = seriesLogs.get(symbol);
+        if (seriesLog == null) {
+            synchronized (seriesLogs) {
+                seriesLog = seriesLogs.get(symbol);
+                if (seriesLog == null) {
+                    seriesLog = SeriesLog.open(symbol, root.resolve(symbol), pageTicks, segmentTicks, pageCache);
+                    seriesLogs.put(symbol, seriesLog);
+                }
+            }
+        }
+        return seriesLog.append(ticks);
+    }
+
+    /**
+     * Cache of the pages read from disk, for metrics.
+     */
+    public Cache<?, ?> getPageCache() {
+        return pageCache.getCache();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (SeriesLog seriesLog : seriesLogs.values()) {
+            try {
+                seriesLog.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        pageCache.getCache().invalidateAll();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.xm.store;
+
+import com.xm.data.DailyBars;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Page entries and daily bars of one segment, written next to it when it is sealed or the store is closed, so opening
+ * the store does not read the ticks again. Prices are at the scale of the segment.
+ * <p>
+ * Layout (big-endian), format version {@value #FORMAT_VERSION}:
+ * <pre>
+ * int    magic "XMSI", int format version, int ticks, int page ticks
+ * int    page count, then per page: long first timestamp, long min, long max
+ * int    bar count, then per bar: long epoch day, long open, long high, long low, long close
+ * long   CRC32 of everything above
+ * </pre>
+ * A summary whose tick count no longer matches its segment, or that is corrupt, is ignored and the segment is read.
+ */
+@Slf4j
+@Getter
+@RequiredArgsConstructor
+final class SegmentSummary {
+
+    private static final int MAGIC = 0x584D5349;
+    private static final int FORMAT_VERSION = 1;
+
+    private final int ticks;
+    private final int pageTicks;
+    private final long[] firstTimestamps;
+    private final long[] mins;
+    private final long[] maxs;
+    private final DailyBars dailyBars;
+
+    int pages() {
+        return firstTimestamps.length;
+    }
+
+    /**
+     * Writes the summary next to its final location and moves it into place, so readers never see a partial file.
+     */
+    void write(Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 checksum = new CRC32();
+        try (var output = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(Files.newOutputStream(temporary), checksum)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(ticks);
+            output.writeInt(pageTicks);
+            output.writeInt(pages());
+            for (int page = 0; page < pages(); page++) {
+                output.writeLong(firstTimestamps[page]);
+                output.writeLong(mins[page]);
+                output.writeLong(maxs[page]);
+            }
+            output.writeInt(dailyBars.size());
+            for (int bar = 0; bar < dailyBars.size(); bar++) {
+                output.writeLong(dailyBars.getDay(bar).toEpochDay());
+                output.writeLong(dailyBars.getOpen(bar));
+                output.writeLong(dailyBars.getHigh(bar));
+                output.writeLong(dailyBars.getLow(bar));
+                output.writeLong(dailyBars.getClose(bar));
+            }
+            output.flush();
+            output.writeLong(checksum.getValue());
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Summary stored at the given path when it describes a segment of {@code ticks} ticks split in pages of
+     * {@code pageTicks}, otherwise empty.
+     */
+    static Optional<SegmentSummary> read(Path path, int ticks, int pageTicks) {
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.duplicate().limit(buffer.limit() - Long.BYTES));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION
+                    || checksum.getValue() != buffer.getLong(buffer.limit() - Long.BYTES)) {
+                log.warn("Ignoring unreadable segment summary {}", path);
+                return Optional.empty();
+            }
+            if (buffer.getInt() != ticks || buffer.getInt() != pageTicks) {
+                return Optional.empty();
+            }
+            int pages = buffer.getInt();
+            long[] firstTimestamps = new long[pages];
+            long[] mins = new long[pages];
+            long[] maxs = new long[pages];
+            for (int page = 0; page < pages; page++) {
+                firstTimestamps[page] = buffer.getLong();
+                mins[page] = buffer.getLong();
+                maxs[page] = buffer.getLong();
+            }
+            int bars = buffer.getInt();
+            long[] barTimestamps = new long[4 * bars];
+            long[] barPrices = new long[4 * bars];
+            for (int bar = 0; bar < bars; bar++) {
+                long dayStart = buffer.getLong() * DailyBars.DAY_MILLIS;
+                for (int i = 0; i < 4; i++) {
+                    barTimestamps[4 * bar + i] = dayStart;
+                    barPrices[4 * bar + i] = buffer.getLong();
+                }
+            }
+            DailyBars dailyBars = DailyBars.empty().extend(barTimestamps, barPrices, 0, barTimestamps.length);
+            return Optional.of(new SegmentSummary(ticks, pageTicks, firstTimestamps, mins, maxs, dailyBars));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable segment summary {}: {}", path, e.toString());
+            return Optional.empty();
+        }
+    }
+}
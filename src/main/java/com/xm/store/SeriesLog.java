@@ -0,0 +1,350 @@
+package com.xm.store;
+
+import com.xm.data.DailyBars;
+import com.xm.data.PriceSeries;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only history of one symbol: a folder of {@link Segment} files of at most {@code segmentTicks} ticks each,
+ * split in pages of {@code pageTicks} ticks. Only the last segment is appended to; a segment is sealed with its
+ * {@link SegmentSummary} when the next one starts, and the summary of the last one is written on close.
+ * <p>
+ * A series keeps the finest price scale it has seen. Ticks at a finer scale than the last segment start a new
+ * segment at that scale; older segments keep theirs and are rescaled on read. Appends come from a single writer and
+ * publish a new {@link SegmentPriceSeries}; series published earlier stay valid.
+ */
+@Slf4j
+final class SeriesLog {
+
+    private static final int INITIAL_PAGES = 16;
+
+    private final String symbol;
+    private final Path directory;
+    private final int pageTicks;
+    private final int segmentTicks;
+    private final PageCache pageCache;
+    private final List<Segment> segments = new ArrayList<>();
+
+    private int scale;
+    private int size;
+    private long newestTimestamp = Long.MIN_VALUE;
+    private DailyBars dailyBars = DailyBars.empty();
+
+    private Segment activeSegment;
+    private int activeTicks;
+    private int activeFirstPage;
+    // Bars of the active segment only, at its scale, for its summary
+    private DailyBars activeBars = DailyBars.empty();
+
+    // Completed pages, at the scale of the series; see PageTable
+    private int[] starts = new int[INITIAL_PAGES];
+    private Segment[] pageSegments = new Segment[INITIAL_PAGES];
+    private int[] offsets = new int[INITIAL_PAGES];
+    private long[] firstTimestamps = new long[INITIAL_PAGES];
+    private long[] mins = new long[INITIAL_PAGES];
+    private long[] maxs = new long[INITIAL_PAGES];
+    private int completedPages;
+    private int openCount;
+    private long openFirstTimestamp;
+    private long openMin;
+    private long openMax;
+
+    private volatile SegmentPriceSeries series;
+
+    private SeriesLog(String symbol, Path directory, int pageTicks, int segmentTicks, PageCache pageCache) {
+        this.symbol = symbol;
+        this.directory = directory;
+        this.pageTicks = pageTicks;
+        this.segmentTicks = segmentTicks;
+        this.pageCache = pageCache;
+    }
+
+    /**
+     * Opens the segments found in the folder, reading the ticks of those without an up to date summary.
+     */
+    static SeriesLog open(String symbol, Path directory, int pageTicks, int segmentTicks, PageCache pageCache)
+            throws IOException {
+        var seriesLog = new SeriesLog(symbol, directory, pageTicks, segmentTicks, pageCache);
+        Files.createDirectories(directory);
+        List<Path> segmentFiles;
+        try (Stream<Path> files = Files.list(directory)) {
+            segmentFiles = files
+                    .filter(file -> file.getFileName().toString().endsWith(SegmentStore.SEGMENT_EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        try {
+            for (Path segmentFile : segmentFiles) {
+                seriesLog.segments.add(Segment.open(segmentFile));
+            }
+            seriesLog.load();
+        } catch (IOException | RuntimeException e) {
+            seriesLog.close();
+            throw e;
+        }
+        return seriesLog;
+    }
+
+    SegmentPriceSeries getSeries() {
+        return series;
+    }
+
+    /**
+     * Writes the ticks of {@code ticks} at or after the newest stored tick and publishes the extended series. Older
+     * ticks cannot be inserted into the append-only segments and are dropped.
+     */
+    synchronized SegmentPriceSeries append(PriceSeries ticks) throws IOException {
+        int first = size == 0 ? 0 : ticks.firstIndexAtOrAfter(newestTimestamp);
+        if (first > 0) {
+            log.warn("Dropped {} ticks of {} older than its newest stored tick", first, symbol);
+        }
+        int count = ticks.size() - first;
+        if (count == 0) {
+            return series;
+        }
+        if (activeSegment == null || ticks.getScale() > scale) {
+            if (ticks.getScale() > scale) {
+                rescale(ticks.getScale());
+            }
+            startSegment();
+        }
+
+        long factor = pow10(scale - ticks.getScale());
+        long[] timestamps = new long[count];
+        long[] prices = new long[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = ticks.getTimestamp(first + i);
+            prices[i] = Math.multiplyExact(ticks.getUnscaledPrice(first + i), factor);
+        }
+        int written = 0;
+        while (written < count) {
+            if (activeTicks == segmentTicks) {
+                startSegment();
+            }
+            int chunk = Math.min(count - written, segmentTicks - activeTicks);
+            activeSegment.write(timestamps, prices, written, written + chunk, activeTicks);
+            accept(timestamps, prices, written, written + chunk, 1);
+            written += chunk;
+        }
+        publish();
+        return series;
+    }
+
+    /**
+     * Writes the summary of the last segment, so the next open does not read it, and closes the files.
+     */
+    synchronized void close() throws IOException {
+        IOException failure = null;
+        if (activeSegment != null) {
+            writeSummary();
+        }
+        for (Segment segment : segments) {
+            try {
+                segment.force();
+                segment.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void load() throws IOException {
+        scale = segments.stream().mapToInt(Segment::getScale).max().orElse(0);
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            int ticks = segment.recoverTickCount();
+            activeSegment = segment;
+            activeTicks = 0;
+            activeFirstPage = completedPages;
+            activeBars = DailyBars.empty();
+            Optional<SegmentSummary> summary = SegmentSummary.read(summaryPath(segment), ticks, pageTicks);
+            if (summary.isPresent()) {
+                loadSummary(segment, summary.get());
+            } else {
+                scan(segment, ticks);
+            }
+            if (!last) {
+                closeOpenPage();
+                if (summary.isEmpty()) {
+                    writeSummary();
+                }
+            }
+        }
+        publish();
+    }
+
+    private void loadSummary(Segment segment, SegmentSummary summary) throws IOException {
+        long factor = pow10(scale - segment.getScale());
+        for (int page = 0; page < summary.pages(); page++) {
+            closeOpenPage();
+            openCount = Math.min(pageTicks, summary.getTicks() - page * pageTicks);
+            openFirstTimestamp = summary.getFirstTimestamps()[page];
+            openMin = Math.multiplyExact(summary.getMins()[page], factor);
+            openMax = Math.multiplyExact(summary.getMaxs()[page], factor);
+            activeTicks += openCount;
+            size += openCount;
+        }
+        activeBars = summary.getDailyBars();
+        dailyBars = dailyBars.extend(summary.getDailyBars(), factor);
+        if (summary.getTicks() > 0) {
+            long[] timestamp = new long[1];
+            segment.read(summary.getTicks() - 1, 1, timestamp, new long[1]);
+            newestTimestamp = timestamp[0];
+        }
+    }
+
+    private void scan(Segment segment, int ticks) throws IOException {
+        long factor = pow10(scale - segment.getScale());
+        long[] timestamps = new long[Math.min(pageTicks, ticks)];
+        long[] prices = new long[timestamps.length];
+        for (int offset = 0; offset < ticks; offset += pageTicks) {
+            int count = Math.min(pageTicks, ticks - offset);
+            segment.read(offset, count, timestamps, prices);
+            accept(timestamps, prices, 0, count, factor);
+        }
+    }
+
+    /**
+     * Adds ticks written to the active segment, at its scale, to the pages and the bars.
+     */
+    private void accept(long[] timestamps, long[] prices, int from, int to, long factor) {
+        long[] seriesPrices = factor == 1 ? prices : new long[to];
+        for (int i = from; i < to; i++) {
+            if (openCount == pageTicks) {
+                closeOpenPage();
+            }
+            long price = Math.multiplyExact(prices[i], factor);
+            seriesPrices[i] = price;
+            if (openCount == 0) {
+                openFirstTimestamp = timestamps[i];
+                openMin = price;
+                openMax = price;
+            } else {
+                openMin = Math.min(openMin, price);
+                openMax = Math.max(openMax, price);
+            }
+            openCount++;
+            activeTicks++;
+            size++;
+        }
+        newestTimestamp = timestamps[to - 1];
+        activeBars = activeBars.extend(timestamps, prices, from, to);
+        dailyBars = dailyBars.extend(timestamps, seriesPrices, from, to);
+    }
+
+    private void closeOpenPage() {
+        if (openCount == 0) {
+            return;
+        }
+        if (completedPages == starts.length) {
+            int capacity = completedPages + (completedPages >> 1);
+            starts = Arrays.copyOf(starts, capacity);
+            pageSegments = Arrays.copyOf(pageSegments, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            firstTimestamps = Arrays.copyOf(firstTimestamps, capacity);
+            mins = Arrays.copyOf(mins, capacity);
+            maxs = Arrays.copyOf(maxs, capacity);
+        }
+        starts[completedPages] = size - openCount;
+        pageSegments[completedPages] = activeSegment;
+        offsets[completedPages] = activeTicks - openCount;
+        firstTimestamps[completedPages] = openFirstTimestamp;
+        mins[completedPages] = openMin;
+        maxs[completedPages] = openMax;
+        completedPages++;
+        openCount = 0;
+    }
+
+    /**
+     * Seals the active segment, if any, and starts a new one at the scale of the series.
+     */
+    private void startSegment() throws IOException {
+        if (activeSegment != null) {
+            closeOpenPage();
+            writeSummary();
+            activeSegment.force();
+        }
+        Path file = directory.resolve(String.format("%010d%s", segments.size(), SegmentStore.SEGMENT_EXTENSION));
+        activeSegment = Segment.create(file, scale);
+        segments.add(activeSegment);
+        activeTicks = 0;
+        activeFirstPage = completedPages;
+        activeBars = DailyBars.empty();
+    }
+
+    /**
+     * New page extremes and bars at a finer scale; the arrays shared with published tables are left untouched.
+     */
+    private void rescale(int newScale) {
+        long factor = pow10(newScale - scale);
+        mins = Arrays.copyOf(mins, mins.length);
+        maxs = Arrays.copyOf(maxs, maxs.length);
+        for (int page = 0; page < completedPages; page++) {
+            mins[page] = Math.multiplyExact(mins[page], factor);
+            maxs[page] = Math.multiplyExact(maxs[page], factor);
+        }
+        openMin = Math.multiplyExact(openMin, factor);
+        openMax = Math.multiplyExact(openMax, factor);
+        dailyBars = DailyBars.empty().extend(dailyBars, factor);
+        scale = newScale;
+    }
+
+    /**
+     * Summary of the active segment with its pages so far. A failure only costs a read of the segment on the next
+     * open, so it is logged rather than failing the append.
+     */
+    private void writeSummary() {
+        long factor = pow10(scale - activeSegment.getScale());
+        int pages = completedPages - activeFirstPage + (openCount > 0 ? 1 : 0);
+        long[] pageFirstTimestamps = new long[pages];
+        long[] pageMins = new long[pages];
+        long[] pageMaxs = new long[pages];
+        for (int page = 0; page < pages; page++) {
+            boolean open = activeFirstPage + page == completedPages;
+            pageFirstTimestamps[page] = open ? openFirstTimestamp : firstTimestamps[activeFirstPage + page];
+            pageMins[page] = (open ? openMin : mins[activeFirstPage + page]) / factor;
+            pageMaxs[page] = (open ? openMax : maxs[activeFirstPage + page]) / factor;
+        }
+        try {
+            new SegmentSummary(activeTicks, pageTicks, pageFirstTimestamps, pageMins, pageMaxs, activeBars)
+                    .write(summaryPath(activeSegment));
+        } catch (IOException e) {
+            log.warn("Failed to write the summary of {}", activeSegment.getPath(), e);
+        }
+    }
+
+    private void publish() {
+        var pageTable = new PageTable(starts, pageSegments, offsets, firstTimestamps, mins, maxs, completedPages,
+                size - openCount, activeSegment, activeTicks - openCount, openCount, openFirstTimestamp, openMin,
+                openMax);
+        series = new SegmentPriceSeries(symbol, scale, pageTable, pageCache, dailyBars, 0, size);
+    }
+
+    private static Path summaryPath(Segment segment) {
+        String fileName = segment.getPath().getFileName().toString();
+        return segment.getPath().resolveSibling(fileName.substring(0,
+                fileName.length() - SegmentStore.SEGMENT_EXTENSION.length()) + SegmentStore.SUMMARY_EXTENSION);
+    }
+
+    static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result = Math.multiplyExact(result, 10L);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,139 @@
+package com.xm.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.xm.data.CryptoStatistics;
+import com.xm.data.TimeFrame;
+import com.xm.exception.ShardUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClusterCoordinatorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<HttpServer> nodes = new ArrayList<>();
+    private final Queue<String> requests = new ConcurrentLinkedQueue<>();
+
+    @AfterEach
+    public void tearDown() {
+        nodes.forEach(node -> node.stop(0));
+    }
+
+    @Test
+    public void testGetTopCryptoStatistics_MergesTheTopKOfEveryNode() throws IOException {
+        var coordinator = coordinator(
+                node(Map.of("/crypto/statistics", json(List.of(statistics("BTC", "0.9"), statistics("ETH", "0.4"),
+                        statistics("LTC", "0.1"))))),
+                node(Map.of("/crypto/statistics", json(List.of(statistics("XRP", "0.5"), statistics("ADA", "0.4"))))),
+                node(Map.of("/crypto/statistics", "[]")));
+
+        List<CryptoStatistics> top = coordinator.getTopCryptoStatistics(3, TimeFrame.ONE_MONTH, null, null);
+
+        assertEquals(List.of("BTC", "XRP", "ADA"), names(top));
+        assertEquals(3, requests.size());
+        requests.forEach(query -> assertEquals("limit=3&timeFrame=ONE_MONTH", query));
+        assertEquals(List.of("BTC", "XRP", "ADA", "ETH", "LTC"),
+                names(coordinator.getTopCryptoStatistics(null, null, null, null)));
+    }
+
+    @Test
+    public void testGetHighestNormalizedRangeCryptoByDay_PicksTheBestNodeLeader() throws IOException {
+        var coordinator = coordinator(
+                node(Map.of("/crypto/highest-normalized-range", json(statistics("BTC", "0.2")))),
+                node(Map.of()),
+                node(Map.of("/crypto/highest-normalized-range", json(statistics("DOGE", "0.3")))));
+
+        assertEquals("DOGE", coordinator.getHighestNormalizedRangeCryptoByDay(LocalDate.of(2022, 1, 1)).getCryptoName());
+        requests.forEach(query -> assertEquals("date=2022-01-01", query));
+        assertNull(coordinator(node(Map.of())).getHighestNormalizedRangeCryptoByDay(LocalDate.of(2022, 1, 1)));
+    }
+
+    @Test
+    public void testScatter_KeepsThePathPrefixOfNodeUrls() throws IOException {
+        var coordinator = coordinator(
+                node(Map.of("/shard-1/crypto/statistics", json(List.of(statistics("BTC", "0.9"))))) + "/shard-1/",
+                node(Map.of("/shard-2/crypto/statistics", json(List.of(statistics("ETH", "0.4"))))) + "/shard-2");
+
+        assertEquals(List.of("BTC", "ETH"), names(coordinator.getTopCryptoStatistics(2, null, null, null)));
+        assertEquals(URI.create("http://gw/shard-1/crypto/statistics?limit=2"),
+                ClusterCoordinator.join(URI.create("http://gw/shard-1/"), "/crypto/statistics?limit=2"));
+    }
+
+    @Test
+    public void testScatter_FailsWhenANodeIsDown() throws IOException {
+        int freePort;
+        try (var socket = new ServerSocket(0)) {
+            freePort = socket.getLocalPort();
+        }
+        var coordinator = coordinator(node(Map.of("/crypto/statistics", "[]")), "http://127.0.0.1:" + freePort);
+
+        var exception = assertThrows(ShardUnavailableException.class,
+                () -> coordinator.getTopCryptoStatistics(5, null, null, null));
+        assertTrue(exception.getMessage().startsWith("Node http://127.0.0.1:" + freePort), exception.getMessage());
+    }
+
+    @Test
+    public void testMerge_ReadsOnlyTheFirstLimitEntries() {
+        var rankings = List.of(
+                List.of(statistics("A", "0.9"), statistics("C", "0.7"), statistics("E", "0.5")),
+                List.of(statistics("B", "0.8"), statistics("D", "0.7")),
+                List.<CryptoStatistics>of());
+
+        assertEquals(List.of("A", "B", "C", "D"), names(ClusterCoordinator.merge(rankings, 4)));
+        assertEquals(List.of("A", "B", "C", "D", "E"), names(ClusterCoordinator.merge(rankings, Integer.MAX_VALUE)));
+    }
+
+    private ClusterCoordinator coordinator(String... nodeUrls) {
+        var ring = new ConsistentHashRing(List.of(nodeUrls));
+        return new ClusterCoordinator(SymbolPartition.of(ring, null), objectMapper, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Node answering each path with its JSON, and every other path with 404.
+     */
+    private String node(Map<String, String> jsonByPath) throws IOException {
+        var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requests.add(String.valueOf(exchange.getRequestURI().getQuery()));
+            String json = jsonByPath.get(exchange.getRequestURI().getPath());
+            byte[] body = json != null ? json.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(json != null ? 200 : 404, json != null ? body.length : -1);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        nodes.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private String json(Object value) throws IOException {
+        return objectMapper.writeValueAsString(value);
+    }
+
+    private static CryptoStatistics statistics(String cryptoName, String normalizedRange) {
+        return CryptoStatistics.builder().cryptoName(cryptoName).normalizedRange(new BigDecimal(normalizedRange)).build();
+    }
+
+    private static List<String> names(List<CryptoStatistics> statistics) {
+        return statistics.stream().map(CryptoStatistics::getCryptoName).collect(Collectors.toList());
+    }
+}
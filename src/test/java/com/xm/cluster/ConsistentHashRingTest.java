@@ -0,0 +1,56 @@
+package com.xm.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsistentHashRingTest {
+
+    private static final int KEYS = 30_000;
+
+    @Test
+    public void testNodeFor_SpreadsKeysEvenlyAndMovesOnlyTheNewNodeShareWhenGrowing() {
+        var ring = new ConsistentHashRing(List.of("http://shard-0:8080", "http://shard-1:8080", "http://shard-2:8080"));
+        var grown = new ConsistentHashRing(List.of("http://shard-0:8080", "http://shard-1:8080", "http://shard-2:8080",
+                "http://shard-3:8080"));
+
+        Map<String, Integer> keysPerNode = new HashMap<>();
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "COIN" + i;
+            String node = ring.nodeFor(key);
+            keysPerNode.merge(node, 1, Integer::sum);
+            assertEquals(node, new ConsistentHashRing(ring.getNodes()).nodeFor(key), "Same ring, same owner");
+            String grownNode = grown.nodeFor(key);
+            if (!grownNode.equals(node)) {
+                assertEquals("http://shard-3:8080", grownNode, key + " moved between existing nodes");
+                moved++;
+            }
+        }
+
+        assertEquals(3, keysPerNode.size());
+        keysPerNode.forEach((node, keys) -> assertEquals(KEYS / 3.0, keys, KEYS * 0.05, node + " owns " + keys));
+        assertEquals(KEYS / 4.0, moved, KEYS * 0.05);
+    }
+
+    @Test
+    public void testSymbolPartition_OwnsTheCryptosOfItsNode() {
+        var ring = new ConsistentHashRing(List.of("a", "b"));
+        var a = SymbolPartition.of(ring, "a");
+        var b = SymbolPartition.of(ring, "b");
+        var coordinator = SymbolPartition.of(ring, null);
+
+        for (String cryptoName : List.of("BTC", "DOGE", "ETH", "LTC", "XRP")) {
+            assertNotEquals(a.owns(cryptoName), b.owns(cryptoName), cryptoName);
+            assertFalse(coordinator.owns(cryptoName));
+            assertEquals(a.owns(cryptoName) ? "a" : "b", coordinator.ownerOf(cryptoName));
+            assertTrue(SymbolPartition.ALL.owns(cryptoName));
+        }
+        assertThrows(IllegalArgumentException.class, () -> SymbolPartition.of(ring, "c"));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of("a", "a")));
+    }
+}
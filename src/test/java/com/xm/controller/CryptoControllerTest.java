@@ -1,19 +1,49 @@
 package com.xm.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xm.data.BarInterval;
+import com.xm.data.BatchStatisticsRequest;
+import com.xm.data.BatchStatisticsResult;
+import com.xm.data.CacheStatistics;
+import com.xm.data.CryptoAnalytics;
 import com.xm.data.CryptoStatistics;
+import com.xm.data.DataVersion;
+import com.xm.data.ExportFormat;
+import com.xm.data.PrecomputedJson;
 import com.xm.data.TimeFrame;
+import com.xm.exception.ErrorResponse;
+import com.xm.ingest.PriceIngestor;
+import com.xm.service.AnalyticsService;
 import com.xm.service.RecommendationService;
+import com.xm.util.ExpectedTestDataPreparation;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,14 +51,34 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 public class CryptoControllerTest {
 
+    private static final LocalDate DAY = LocalDate.of(2022, 1, 1);
+    private static final Instant LOADED_AT = Instant.parse("2024-05-01T10:15:30Z");
+    private static final DataVersion DATA_VERSION = new DataVersion(3, LOADED_AT);
+
     @Mock
     private RecommendationService recommendationService;
 
+    @Mock
+    private AnalyticsService analyticsService;
+
+    @Mock
+    private PriceIngestor priceIngestor;
+
+    @Mock
+    private StatisticsStream statisticsStream;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private CryptoController cryptoController;
 
+    private final MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/crypto/statistics");
+    private final MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+    private final ServletWebRequest webRequest = new ServletWebRequest(servletRequest, servletResponse);
+
     @Test
-    public void testGetAllCryptoStats_Success() {
+    public void testGetAllCryptoStats_Success() throws IOException {
         CryptoStatistics stat1 = new CryptoStatistics("BTC", new BigDecimal("46813.21"),
                 new BigDecimal("48000.12"), new BigDecimal("45000.50"),
                 new BigDecimal("48500.65"), new BigDecimal("0.077"));
@@ -38,29 +88,104 @@ public class CryptoControllerTest {
 
         List<CryptoStatistics> statsList = List.of(stat1, stat2);
 
-        when(recommendationService.getAllCryptoStatistics()).thenReturn(statsList);
+        PrecomputedJson rankingJson = rankingJson(statsList);
+        when(recommendationService.getAllCryptoStatisticsJson()).thenReturn(rankingJson);
 
-        ResponseEntity<List<CryptoStatistics>> responseEntity = cryptoController.getAllCryptoStatistics();
+        ResponseEntity<byte[]> responseEntity = cryptoController.getAllCryptoStatistics(null, null, null, null, webRequest);
 
         assertEquals(200, responseEntity.getStatusCodeValue());
-        assertEquals(statsList, responseEntity.getBody());
+        assertEquals(statsList, readRanking(responseEntity.getBody()));
+        assertEquals(DATA_VERSION.getETag(), servletResponse.getHeader(HttpHeaders.ETAG));
+        assertNull(servletResponse.getHeader(HttpHeaders.LAST_MODIFIED));
+        assertEquals("no-cache", responseEntity.getHeaders().getCacheControl());
 
-        verify(recommendationService, times(1)).getAllCryptoStatistics();
+        verify(recommendationService, times(1)).getAllCryptoStatisticsJson();
         verifyNoMoreInteractions(recommendationService);
     }
 
     @Test
-    public void testGetAllCryptoStats_EmptyStats() {
-        List<CryptoStatistics> statsList = new ArrayList<>();
+    public void testGetAllCryptoStats_EmptyStats() throws IOException {
+        PrecomputedJson rankingJson = rankingJson(new ArrayList<>());
+        when(recommendationService.getAllCryptoStatisticsJson()).thenReturn(rankingJson);
+
+        ResponseEntity<byte[]> responseEntity = cryptoController.getAllCryptoStatistics(null, null, null, null, webRequest);
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        assertTrue(readRanking(responseEntity.getBody()).isEmpty());
 
-        when(recommendationService.getAllCryptoStatistics()).thenReturn(statsList);
+        verify(recommendationService, times(1)).getAllCryptoStatisticsJson();
+        verifyNoMoreInteractions(recommendationService);
+    }
 
-        ResponseEntity<List<CryptoStatistics>> responseEntity = cryptoController.getAllCryptoStatistics();
+    @Test
+    public void testGetAllCryptoStats_NotModified() throws IOException {
+        PrecomputedJson rankingJson = rankingJson(List.of());
+        when(recommendationService.getAllCryptoStatisticsJson()).thenReturn(rankingJson);
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, DATA_VERSION.getETag());
+
+        ResponseEntity<byte[]> responseEntity = cryptoController.getAllCryptoStatistics(null, null, null, null, webRequest);
+
+        assertNull(responseEntity);
+        assertEquals(304, servletResponse.getStatus());
+        verify(recommendationService, times(1)).getAllCryptoStatisticsJson();
+        verifyNoMoreInteractions(recommendationService);
+    }
+
+    @Test
+    public void testGetAllCryptoStats_Gzip() throws IOException {
+        List<CryptoStatistics> statsList = List.of(CryptoStatistics.builder()
+                .cryptoName("BTC")
+                .normalizedRange(new BigDecimal("0.077"))
+                .build());
+        PrecomputedJson rankingJson = rankingJson(statsList);
+        when(recommendationService.getAllCryptoStatisticsJson()).thenReturn(rankingJson);
+        servletRequest.addHeader(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, gzip;q=0.8");
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, DATA_VERSION.getETag());
+
+        ResponseEntity<byte[]> responseEntity = cryptoController.getAllCryptoStatistics(null, null, null, null, webRequest);
 
         assertEquals(200, responseEntity.getStatusCodeValue());
-        assertTrue(responseEntity.getBody().isEmpty());
+        assertEquals("gzip", responseEntity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), responseEntity.getHeaders().getVary());
+        assertEquals(DATA_VERSION.getGzipETag(), servletResponse.getHeader(HttpHeaders.ETAG));
+        try (var inputStream = new GZIPInputStream(new ByteArrayInputStream(responseEntity.getBody()))) {
+            assertEquals(statsList, readRanking(inputStream.readAllBytes()));
+        }
+    }
+
+    @Test
+    public void testGetAllCryptoStats_TopOfTimeFrame() throws IOException {
+        List<CryptoStatistics> top = List.of(CryptoStatistics.builder()
+                .cryptoName("ETH")
+                .normalizedRange(new BigDecimal("0.16100"))
+                .build());
+        when(recommendationService.getDataVersion()).thenReturn(DATA_VERSION);
+        when(recommendationService.getTopCryptoStatistics(1, TimeFrame.SIX_MONTHS)).thenReturn(top);
+
+        ResponseEntity<byte[]> responseEntity = cryptoController.getAllCryptoStatistics(1, TimeFrame.SIX_MONTHS,
+                null, null, webRequest);
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        assertEquals(top, readRanking(responseEntity.getBody()));
+        assertEquals(DATA_VERSION.getETag(), servletResponse.getHeader(HttpHeaders.ETAG));
+
+        verify(recommendationService, times(1)).getDataVersion();
+        verify(recommendationService, times(1)).getTopCryptoStatistics(1, TimeFrame.SIX_MONTHS);
+        verifyNoMoreInteractions(recommendationService);
+    }
 
-        verify(recommendationService, times(1)).getAllCryptoStatistics();
+    @Test
+    public void testGetAllCryptoStats_TopOfWholeHistoryAndInvalidLimit() throws IOException {
+        when(recommendationService.getDataVersion()).thenReturn(DATA_VERSION);
+        when(recommendationService.getTopCryptoStatistics(20)).thenReturn(List.of());
+
+        assertEquals(List.of(), readRanking(cryptoController.getAllCryptoStatistics(20, null, null, null, webRequest)
+                .getBody()));
+        assertEquals(400, cryptoController.getAllCryptoStatistics(0, null, null, null, webRequest)
+                .getStatusCodeValue());
+
+        verify(recommendationService, times(1)).getDataVersion();
+        verify(recommendationService, times(1)).getTopCryptoStatistics(20);
         verifyNoMoreInteractions(recommendationService);
     }
 
@@ -71,29 +196,86 @@ public class CryptoControllerTest {
                 new BigDecimal("48000.12"), new BigDecimal("45000.50"),
                 new BigDecimal("48500.65"), new BigDecimal("0.077"));
 
+        when(recommendationService.getDataVersion()).thenReturn(DATA_VERSION);
         when(recommendationService.getCryptoStatisticsByName(cryptoName, TimeFrame.ONE_MONTH)).thenReturn(stat);
 
-        ResponseEntity<CryptoStatistics> responseEntity = cryptoController.getCryptoStatisticsByName(cryptoName, TimeFrame.ONE_MONTH);
+        ResponseEntity<CryptoStatistics> responseEntity = cryptoController.getCryptoStatisticsByName(cryptoName, TimeFrame.ONE_MONTH, null, null, webRequest);
 
         assertEquals(200, responseEntity.getStatusCodeValue());
         assertEquals(stat, responseEntity.getBody());
 
         verify(recommendationService, times(1)).getCryptoStatisticsByName(cryptoName, TimeFrame.ONE_MONTH);
+        verify(recommendationService, times(1)).getDataVersion();
         verifyNoMoreInteractions(recommendationService);
     }
 
+    @Test
+    public void testGetCryptoStatsByName_TimestampRange() {
+        String cryptoName = "BTC";
+        long from = 1641009600000L;
+        CryptoStatistics stat = new CryptoStatistics("BTC", new BigDecimal("46813.21"),
+                new BigDecimal("48000.12"), new BigDecimal("45000.50"),
+                new BigDecimal("48500.65"), new BigDecimal("0.077"));
+
+        when(recommendationService.getDataVersion()).thenReturn(DATA_VERSION);
+        when(recommendationService.getCryptoStatisticsByName(cryptoName, from, Long.MAX_VALUE)).thenReturn(stat);
+
+        ResponseEntity<CryptoStatistics> responseEntity = cryptoController.getCryptoStatisticsByName(cryptoName, TimeFrame.ONE_MONTH, from, null, webRequest);
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        assertEquals(stat, responseEntity.getBody());
+
+        verify(recommendationService, times(1)).getCryptoStatisticsByName(cryptoName, from, Long.MAX_VALUE);
+        verify(recommendationService, times(1)).getDataVersion();
+        verifyNoMoreInteractions(recommendationService);
+    }
+
+    @Test
+    public void testGetCryptoStatsByName_VersionPublishedWithinTheSameSecondIsNotNotModified() {
+        CryptoStatistics stat = new CryptoStatistics("BTC", new BigDecimal("46813.21"),
+                new BigDecimal("48000.12"), new BigDecimal("45000.50"),
+                new BigDecimal("48500.65"), new BigDecimal("0.077"));
+        var nextVersion = new DataVersion(4, LOADED_AT.plusMillis(300));
+        when(recommendationService.getDataVersion()).thenReturn(nextVersion);
+        when(recommendationService.getCryptoStatisticsByName("BTC", TimeFrame.ONE_MONTH)).thenReturn(stat);
+        // Validators of version 3, published 300 ms before version 4
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, DATA_VERSION.getETag());
+        servletRequest.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LOADED_AT.toEpochMilli());
+
+        ResponseEntity<CryptoStatistics> responseEntity = cryptoController.getCryptoStatisticsByName("BTC",
+                TimeFrame.ONE_MONTH, null, null, webRequest);
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        assertEquals(stat, responseEntity.getBody());
+        assertEquals(nextVersion.getETag(), servletResponse.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void testGetCryptoStatsByName_IfModifiedSinceAloneIsNotNotModified() {
+        when(recommendationService.getDataVersion()).thenReturn(DATA_VERSION);
+        servletRequest.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LOADED_AT.plusSeconds(60).toEpochMilli());
+
+        ResponseEntity<CryptoStatistics> responseEntity = cryptoController.getCryptoStatisticsByName("BTC",
+                TimeFrame.ONE_MONTH, null, null, webRequest);
+
+        assertEquals(404, responseEntity.getStatusCodeValue());
+        assertEquals(200, servletResponse.getStatus());
+    }
+
     @Test
     public void testGetCryptoStatsByName_InvalidName() {
         String cryptoName = "INVALID";
 
+        when(recommendationService.getDataVersion()).thenReturn(DATA_VERSION);
         when(recommendationService.getCryptoStatisticsByName(cryptoName, TimeFrame.ONE_MONTH)).thenReturn(null);
 
-        ResponseEntity<CryptoStatistics> responseEntity = cryptoController.getCryptoStatisticsByName(cryptoName, TimeFrame.ONE_MONTH);
+        ResponseEntity<CryptoStatistics> responseEntity = cryptoController.getCryptoStatisticsByName(cryptoName, TimeFrame.ONE_MONTH, null, null, webRequest);
 
         assertEquals(404, responseEntity.getStatusCodeValue());
         assertNull(responseEntity.getBody());
 
         verify(recommendationService, times(1)).getCryptoStatisticsByName(cryptoName, TimeFrame.ONE_MONTH);
+        verify(recommendationService, times(1)).getDataVersion();
         verifyNoMoreInteractions(recommendationService);
     }
 
@@ -104,14 +286,16 @@ public class CryptoControllerTest {
                 new BigDecimal("48000.12"), new BigDecimal("45000.50"),
                 new BigDecimal("48500.65"), new BigDecimal("0.077"));
 
-        when(recommendationService.getHighestNormalizedRangeCryptoByDay(timestamp)).thenReturn(stat);
+        when(recommendationService.getDataVersion()).thenReturn(DATA_VERSION);
+        when(recommendationService.getHighestNormalizedRangeCryptoByDay(DAY)).thenReturn(stat);
 
-        ResponseEntity<CryptoStatistics> responseEntity = cryptoController.getHighestNormalizedRangeCryptoByDay(timestamp);
+        ResponseEntity<CryptoStatistics> responseEntity = cryptoController.getHighestNormalizedRangeCryptoByDay(null, timestamp, webRequest);
 
         assertEquals(200, responseEntity.getStatusCodeValue());
         assertEquals(stat, responseEntity.getBody());
 
-        verify(recommendationService, times(1)).getHighestNormalizedRangeCryptoByDay(timestamp);
+        verify(recommendationService, times(1)).getHighestNormalizedRangeCryptoByDay(DAY);
+        verify(recommendationService, times(1)).getDataVersion();
         verifyNoMoreInteractions(recommendationService);
     }
 
@@ -119,14 +303,180 @@ public class CryptoControllerTest {
     public void testGetHighestNormalizedRangeCryptoByDay_NoMatchingData() {
         long timestamp = 1641009600000L;
 
-        when(recommendationService.getHighestNormalizedRangeCryptoByDay(timestamp)).thenReturn(null);
+        when(recommendationService.getDataVersion()).thenReturn(DATA_VERSION);
+        when(recommendationService.getHighestNormalizedRangeCryptoByDay(DAY)).thenReturn(null);
 
-        ResponseEntity<CryptoStatistics> responseEntity = cryptoController.getHighestNormalizedRangeCryptoByDay(timestamp);
+        ResponseEntity<CryptoStatistics> responseEntity = cryptoController.getHighestNormalizedRangeCryptoByDay(null, timestamp, webRequest);
 
         assertEquals(404, responseEntity.getStatusCodeValue());
         assertNull(responseEntity.getBody());
 
-        verify(recommendationService, times(1)).getHighestNormalizedRangeCryptoByDay(timestamp);
+        verify(recommendationService, times(1)).getHighestNormalizedRangeCryptoByDay(DAY);
+        verify(recommendationService, times(1)).getDataVersion();
+        verifyNoMoreInteractions(recommendationService);
+    }
+
+    @Test
+    public void testGetHighestNormalizedRangeCryptoByDay_ByDate() {
+        CryptoStatistics stat = CryptoStatistics.builder()
+                .cryptoName("BTC")
+                .normalizedRange(new BigDecimal("0.077"))
+                .build();
+
+        when(recommendationService.getDataVersion()).thenReturn(DATA_VERSION);
+        when(recommendationService.getHighestNormalizedRangeCryptoByDay(DAY)).thenReturn(stat);
+
+        ResponseEntity<CryptoStatistics> responseEntity = cryptoController.getHighestNormalizedRangeCryptoByDay(DAY, null, webRequest);
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        assertEquals(stat, responseEntity.getBody());
+
+        verify(recommendationService, times(1)).getHighestNormalizedRangeCryptoByDay(DAY);
+        verify(recommendationService, times(1)).getDataVersion();
         verifyNoMoreInteractions(recommendationService);
     }
+
+    @Test
+    public void testGetHighestNormalizedRangeCryptoByDay_MissingDay() {
+        ResponseEntity<CryptoStatistics> responseEntity = cryptoController.getHighestNormalizedRangeCryptoByDay(null, null, webRequest);
+
+        assertEquals(400, responseEntity.getStatusCodeValue());
+        verifyNoInteractions(recommendationService);
+    }
+
+    @Test
+    public void testGetPriceHistory_StreamsNdjson() throws IOException {
+        when(recommendationService.getPriceHistory("BTC", 1641009600000L, Long.MAX_VALUE))
+                .thenReturn(ExpectedTestDataPreparation.getExpectedBTCSeries());
+
+        ResponseEntity<StreamingResponseBody> responseEntity = cryptoController.getPriceHistory("BTC",
+                ExportFormat.NDJSON, 1641009600000L, null, 2, null);
+        var outputStream = new ByteArrayOutputStream();
+        responseEntity.getBody().writeTo(outputStream);
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        assertEquals("application/x-ndjson", responseEntity.getHeaders().getContentType().toString());
+        List<String> lines = outputStream.toString(StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+        assertEquals(2, lines.size());
+        assertEquals(30000, objectMapper.readTree(lines.get(1)).get("price").asInt());
+
+        verify(recommendationService, times(1)).getPriceHistory("BTC", 1641009600000L, Long.MAX_VALUE);
+        verifyNoMoreInteractions(recommendationService);
+    }
+
+    @Test
+    public void testPushPrices_ReturnsAcceptedTicks() throws IOException {
+        var body = new ByteArrayInputStream("{\"timestamp\":1641009600000,\"symbol\":\"BTC\",\"price\":1}"
+                .getBytes(StandardCharsets.UTF_8));
+        when(priceIngestor.ingest(body, "http")).thenReturn(1L);
+
+        var responseEntity = cryptoController.pushPrices(body);
+
+        assertEquals(202, responseEntity.getStatusCodeValue());
+        assertEquals(1L, responseEntity.getBody().getAccepted());
+        verify(priceIngestor, times(1)).ingest(body, "http");
+    }
+
+    @Test
+    public void testStreamStatistics_Subscribes() {
+        var emitter = new SseEmitter();
+        when(statisticsStream.subscribe()).thenReturn(emitter);
+
+        assertSame(emitter, cryptoController.streamStatistics());
+    }
+
+    @Test
+    public void testGetPriceHistory_InvalidDownsampling() {
+        assertEquals(400, cryptoController.getPriceHistory("BTC", ExportFormat.CSV, null, null, 0, null)
+                .getStatusCodeValue());
+        assertEquals(400, cryptoController.getPriceHistory("BTC", ExportFormat.CSV, null, null, 2, BarInterval.ONE_HOUR)
+                .getStatusCodeValue());
+        verifyNoInteractions(recommendationService);
+    }
+
+    @Test
+    public void testGetCacheStatistics_Success() {
+        CacheStatistics cacheStatistics = CacheStatistics.builder()
+                .cacheName("cryptoStatistics")
+                .size(3)
+                .hitCount(10)
+                .missCount(3)
+                .build();
+
+        when(recommendationService.getCacheStatistics()).thenReturn(cacheStatistics);
+
+        ResponseEntity<CacheStatistics> responseEntity = cryptoController.getCacheStatistics();
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        assertEquals(cacheStatistics, responseEntity.getBody());
+
+        verify(recommendationService, times(1)).getCacheStatistics();
+        verifyNoMoreInteractions(recommendationService);
+    }
+
+    @Test
+    public void testGetCryptoAnalytics_TimestampRange() {
+        CryptoAnalytics analytics = CryptoAnalytics.builder()
+                .cryptoName("BTC")
+                .maxDrawdown(new BigDecimal("0.12000"))
+                .build();
+        when(recommendationService.getDataVersion()).thenReturn(DATA_VERSION);
+        when(analyticsService.getCryptoAnalytics("BTC", 1641009600000L, Long.MAX_VALUE, 10, List.of("1d")))
+                .thenReturn(analytics);
+
+        ResponseEntity<CryptoAnalytics> responseEntity = cryptoController.getCryptoAnalytics("BTC",
+                TimeFrame.ONE_MONTH, 1641009600000L, null, 10, List.of("1d"), webRequest);
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        assertEquals(analytics, responseEntity.getBody());
+        assertEquals(DATA_VERSION.getETag(), servletResponse.getHeader(HttpHeaders.ETAG));
+
+        verify(analyticsService, times(1)).getCryptoAnalytics("BTC", 1641009600000L, Long.MAX_VALUE, 10, List.of("1d"));
+        verify(recommendationService, times(1)).getDataVersion();
+        verifyNoMoreInteractions(analyticsService, recommendationService);
+    }
+
+    @Test
+    public void testGetBatchStatistics_StreamsJsonArray() throws IOException {
+        var request = BatchStatisticsRequest.builder()
+                .cryptoNames(List.of("BTC", "XXX"))
+                .timeFrames(List.of(TimeFrame.ONE_MONTH))
+                .build();
+        var btc = BatchStatisticsResult.builder()
+                .cryptoName("BTC")
+                .timeFrame(TimeFrame.ONE_MONTH)
+                .statistics(CryptoStatistics.builder().cryptoName("BTC").normalizedRange(new BigDecimal("2.00000")).build())
+                .build();
+        var unsupported = BatchStatisticsResult.builder()
+                .cryptoName("XXX")
+                .error(new ErrorResponse("UNSUPPORTED_CRYPTO", "Unsupported crypto symbol: XXX"))
+                .build();
+
+        when(recommendationService.getBatchStatistics(request)).thenReturn(Stream.of(btc, unsupported));
+
+        ResponseEntity<StreamingResponseBody> responseEntity = cryptoController.getBatchStatistics(request);
+        var outputStream = new ByteArrayOutputStream();
+        responseEntity.getBody().writeTo(outputStream);
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        JsonNode json = objectMapper.readTree(outputStream.toByteArray());
+        assertEquals(2, json.size());
+        assertEquals("BTC", json.get(0).get("cryptoName").asText());
+        assertEquals("ONE_MONTH", json.get(0).get("timeFrame").asText());
+        assertEquals(2.0, json.get(0).get("statistics").get("normalizedRange").asDouble());
+        assertEquals("UNSUPPORTED_CRYPTO", json.get(1).get("error").get("errorCode").asText());
+        assertFalse(json.get(1).has("statistics"));
+
+        verify(recommendationService, times(1)).getBatchStatistics(request);
+        verifyNoMoreInteractions(recommendationService);
+    }
+
+    private PrecomputedJson rankingJson(List<CryptoStatistics> ranking) throws IOException {
+        return new PrecomputedJson(DATA_VERSION, objectMapper.writeValueAsBytes(ranking));
+    }
+
+    private List<CryptoStatistics> readRanking(byte[] json) throws IOException {
+        return objectMapper.readValue(json, new TypeReference<List<CryptoStatistics>>() {
+        });
+    }
 }
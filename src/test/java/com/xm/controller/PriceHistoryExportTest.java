@@ -0,0 +1,92 @@
+package com.xm.controller;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xm.data.BarInterval;
+import com.xm.data.ColumnarPriceSeries;
+import com.xm.data.ExportFormat;
+import com.xm.data.PriceSeries;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PriceHistoryExportTest {
+
+    private static final long START = 1641009600000L;
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    public void testWriteTo_NdjsonPricesMatchBigDecimal() throws IOException {
+        Random random = new Random(7);
+        var builder = ColumnarPriceSeries.builder("BTC");
+        for (int i = 0; i < 10_000; i++) {
+            long unscaledPrice = i % 3 == 0 ? random.nextInt(1000) : Math.floorMod(random.nextLong(), Long.MAX_VALUE / 2);
+            builder.add(START + i, (i % 5 == 0 ? -1 : 1) * unscaledPrice, 6);
+        }
+        PriceSeries priceSeries = builder.build();
+
+        List<String> lines = export(priceSeries, ExportFormat.NDJSON, 1, null);
+
+        assertEquals(priceSeries.size(), lines.size());
+        var objectMapper = new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        for (int i = 0; i < lines.size(); i++) {
+            var json = objectMapper.readTree(lines.get(i));
+            assertEquals(priceSeries.getTimestamp(i), json.get("timestamp").asLong());
+            assertEquals("BTC", json.get("symbol").asText());
+            String line = lines.get(i);
+            assertEquals(priceSeries.getPrice(i).toPlainString(),
+                    line.substring(line.indexOf("\"price\":") + 8, line.length() - 1));
+            assertEquals(0, priceSeries.getPrice(i).compareTo(json.get("price").decimalValue()));
+        }
+    }
+
+    @Test
+    public void testWriteTo_CsvEveryNthTick() throws IOException {
+        PriceSeries priceSeries = series("0.5", "1.25", "2", "3.125", "4");
+
+        List<String> lines = export(priceSeries, ExportFormat.CSV, 2, null);
+
+        assertEquals(List.of(
+                "timestamp,symbol,price",
+                START + ",ETH,0.500",
+                (START + 2 * HOUR) + ",ETH,2.000",
+                (START + 4 * HOUR) + ",ETH,4.000"), lines);
+    }
+
+    @Test
+    public void testWriteTo_OhlcBars() throws IOException {
+        // 04:00 to 09:00, so the four hour bars start at 04:00 and 08:00
+        PriceSeries priceSeries = series("3", "1", "5", "4", "2", "6");
+
+        assertEquals(List.of(
+                "timestamp,symbol,open,high,low,close",
+                START + ",ETH,3,5,1,4",
+                (START + 4 * HOUR) + ",ETH,2,6,2,6"), export(priceSeries, ExportFormat.CSV, 1, BarInterval.FOUR_HOURS));
+        assertEquals(List.of(
+                "{\"timestamp\":1640995200000,\"symbol\":\"ETH\",\"open\":3,\"high\":6,\"low\":1,\"close\":6}"),
+                export(priceSeries, ExportFormat.NDJSON, 1, BarInterval.ONE_DAY));
+    }
+
+    private static PriceSeries series(String... prices) {
+        var builder = ColumnarPriceSeries.builder("ETH");
+        for (int i = 0; i < prices.length; i++) {
+            builder.add(START + i * HOUR, new BigDecimal(prices[i]));
+        }
+        return builder.build();
+    }
+
+    private static List<String> export(PriceSeries priceSeries, ExportFormat format, int every, BarInterval bars)
+            throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        new PriceHistoryExport(priceSeries, format, every, bars).writeTo(outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,242 @@
+package com.xm.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xm.data.CryptoStatistics;
+import com.xm.data.DataVersion;
+import com.xm.data.PrecomputedJson;
+import com.xm.data.StatisticsChange;
+import com.xm.reader.CryptoDataReloadedEvent;
+import com.xm.service.RecommendationService;
+import com.xm.service.RecommendationService.Ranking;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StatisticsStreamTest {
+
+    private static final Instant LOADED_AT = Instant.parse("2024-05-01T10:15:30Z");
+
+    @Mock
+    private RecommendationService recommendationService;
+
+    private final ObjectMapper objectMapper = spy(new ObjectMapper());
+
+    @Test
+    public void testDiff_KeepsOnlyChangedStatisticsAndMovedRanks() {
+        CryptoStatistics btc = statistics("BTC", "0.5");
+        CryptoStatistics eth = statistics("ETH", "0.3");
+        CryptoStatistics xrp = statistics("XRP", "0.1");
+        CryptoStatistics btcLater = statistics("BTC", "0.2");
+        CryptoStatistics doge = statistics("DOGE", "0.9");
+
+        StatisticsChange change = StatisticsStream.diff(ranking(1, btc, eth, xrp), ranking(2, doge, eth, btcLater));
+
+        assertEquals(1, change.getPreviousVersion());
+        assertEquals(2, change.getVersion());
+        assertEquals(List.of(doge, btcLater), change.getUpdated());
+        assertEquals(List.of("XRP"), change.getRemoved());
+        Map<String, Integer> ranks = new LinkedHashMap<>();
+        ranks.put("DOGE", 1);
+        ranks.put("BTC", 3);
+        assertEquals(ranks, change.getRanks());
+        // Equal statistics of a recomputed series are no change either
+        assertTrue(StatisticsStream.diff(ranking(2, btc, eth), ranking(3, statistics("BTC", "0.5"), eth)).isEmpty());
+    }
+
+    @Test
+    public void testSubscribe_SendsRankingThenChangeSerializedOnceForAllSubscribers() throws Exception {
+        CryptoStatistics btc = statistics("BTC", "0.5");
+        CryptoStatistics eth = statistics("ETH", "0.3");
+        Ranking first = ranking(1, btc, eth);
+        Ranking second = ranking(2, statistics("ETH", "0.7"), btc);
+        when(recommendationService.getRanking()).thenReturn(first, first, second);
+        var statisticsStream = new StatisticsStream(recommendationService, objectMapper, new SimpleMeterRegistry());
+        statisticsStream.start();
+        try {
+            var subscribers = List.of(new RecordingEmitter(), new RecordingEmitter());
+            for (RecordingEmitter emitter : subscribers) {
+                statisticsStream.subscribe(emitter);
+            }
+            assertEquals(2, statisticsStream.getSubscriberCount());
+
+            statisticsStream.onCryptoDataReloaded(new CryptoDataReloadedEvent(null, null));
+
+            for (RecordingEmitter emitter : subscribers) {
+                List<String> events = emitter.awaitEvents(2);
+                assertTrue(events.get(0).startsWith("id:1\nevent:ranking\ndata:[{\"cryptoName\":\"BTC\""),
+                        events.get(0));
+                assertTrue(events.get(1).startsWith("id:2\nevent:change\ndata:"), events.get(1));
+                JsonNode change = objectMapper.readTree(events.get(1).substring(events.get(1).indexOf("data:") + 5));
+                assertEquals("ETH", change.get("updated").get(0).get("cryptoName").asText());
+                assertEquals(1, change.get("ranks").get("ETH").asInt());
+                assertEquals(2, change.get("ranks").get("BTC").asInt());
+                assertFalse(change.has("removed"));
+            }
+            verify(objectMapper, times(1)).writeValueAsString(any(StatisticsChange.class));
+        } finally {
+            statisticsStream.stop();
+        }
+        assertEquals(0, statisticsStream.getSubscriberCount());
+    }
+
+    @Test
+    public void testChange_FollowsTheLastVersionSentWhenAVersionChangedNothing() throws Exception {
+        CryptoStatistics btc = statistics("BTC", "0.5");
+        CryptoStatistics eth = statistics("ETH", "0.3");
+        Ranking first = ranking(1, btc, eth);
+        Ranking unchanged = ranking(2, btc, eth);
+        Ranking third = ranking(3, statistics("ETH", "0.7"), btc);
+        when(recommendationService.getRanking()).thenReturn(first, unchanged, third);
+        var statisticsStream = new StatisticsStream(recommendationService, objectMapper, new SimpleMeterRegistry());
+        statisticsStream.start();
+        try {
+            var before = new RecordingEmitter();
+            statisticsStream.subscribe(before);
+            // Subscribes at version 2, which is sent under the id of version 1 it equals
+            var between = new RecordingEmitter();
+            statisticsStream.subscribe(between);
+
+            statisticsStream.onCryptoDataReloaded(new CryptoDataReloadedEvent(null, null));
+
+            for (RecordingEmitter emitter : List.of(before, between)) {
+                List<String> events = emitter.awaitEvents(2);
+                assertTrue(events.get(0).startsWith("id:1\nevent:ranking\n"), events.get(0));
+                assertTrue(events.get(1).startsWith("id:3\nevent:change\n"), events.get(1));
+                JsonNode change = objectMapper.readTree(events.get(1).substring(events.get(1).indexOf("data:") + 5));
+                assertEquals(1, change.get("previousVersion").asLong());
+                assertEquals(3, change.get("version").asLong());
+            }
+        } finally {
+            statisticsStream.stop();
+        }
+    }
+
+    @Test
+    public void testDeliver_ClientThatStopsReadingDoesNotHoldBackOthersAndIsDropped() throws Exception {
+        CryptoStatistics btc = statistics("BTC", "0.5");
+        CryptoStatistics eth = statistics("ETH", "0.3");
+        Ranking first = ranking(1, btc, eth);
+        Ranking second = ranking(2, statistics("ETH", "0.7"), btc);
+        Ranking third = ranking(3, statistics("ETH", "0.8"), btc);
+        when(recommendationService.getRanking()).thenReturn(first, first, second, third);
+        var statisticsStream = new StatisticsStream(recommendationService, objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(statisticsStream, "senderThreads", 1);
+        ReflectionTestUtils.setField(statisticsStream, "sendTimeoutMillis", 50L);
+        statisticsStream.start();
+        var unblock = new CountDownLatch(1);
+        try {
+            var stalled = new RecordingEmitter(unblock);
+            statisticsStream.subscribe(stalled);
+            var reading = new RecordingEmitter();
+            statisticsStream.subscribe(reading);
+
+            statisticsStream.onCryptoDataReloaded(new CryptoDataReloadedEvent(null, null));
+            assertTrue(reading.awaitEvents(2).get(1).startsWith("id:2\nevent:change\n"));
+
+            Thread.sleep(100);
+            statisticsStream.onCryptoDataReloaded(new CryptoDataReloadedEvent(null, null));
+            assertTrue(reading.awaitEvents(3).get(2).startsWith("id:3\nevent:change\n"));
+            assertEquals(1, statisticsStream.getSubscriberCount());
+
+            unblock.countDown();
+            stalled.awaitCompletion();
+            // The blocked change went out, nothing after it
+            assertEquals(2, stalled.awaitEvents(2).size());
+        } finally {
+            unblock.countDown();
+            statisticsStream.stop();
+        }
+    }
+
+    private static CryptoStatistics statistics(String cryptoName, String normalizedRange) {
+        return CryptoStatistics.builder()
+                .cryptoName(cryptoName)
+                .min(BigDecimal.ONE)
+                .normalizedRange(new BigDecimal(normalizedRange))
+                .build();
+    }
+
+    private Ranking ranking(long version, CryptoStatistics... statistics) {
+        try {
+            List<CryptoStatistics> ranking = List.of(statistics);
+            return new Ranking(ranking, new PrecomputedJson(new DataVersion(version, LOADED_AT),
+                    new ObjectMapper().writeValueAsBytes(ranking)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Keeps the text of every event instead of writing it to a response.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        // Blocks change events until released, like a client that stopped reading
+        private final CountDownLatch changesBlocked;
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        RecordingEmitter() {
+            this(new CountDownLatch(0));
+        }
+
+        RecordingEmitter(CountDownLatch changesBlocked) {
+            this.changesBlocked = changesBlocked;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            var event = new StringBuilder();
+            builder.build().forEach(data -> event.append(data.getData()));
+            if (event.indexOf("event:change") >= 0) {
+                try {
+                    changesBlocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            events.add(event.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+            super.complete();
+        }
+
+        void awaitCompletion() throws InterruptedException {
+            assertTrue(completed.await(5, TimeUnit.SECONDS));
+        }
+
+        List<String> awaitEvents(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (events.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(count, events.size(), () -> String.join("", events));
+            return new ArrayList<>(events);
+        }
+    }
+}
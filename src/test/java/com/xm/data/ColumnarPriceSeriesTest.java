@@ -0,0 +1,242 @@
+package com.xm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ColumnarPriceSeriesTest {
+
+    @Test
+    public void testBuild_RescalesToFinestScale() {
+        PriceSeries series = ColumnarPriceSeries.builder("BTC")
+                .add(1L, new BigDecimal("46813"))
+                .add(2L, new BigDecimal("46979.6"))
+                .add(3L, new BigDecimal("47000.25"))
+                .build();
+
+        assertEquals(2, series.getScale());
+        assertEquals(4681300L, series.getUnscaledPrice(0));
+        assertEquals(new BigDecimal("46979.60"), series.getPrice(1));
+        assertEquals(new BigDecimal("47000.25"), series.getPrice(2));
+    }
+
+    @Test
+    public void testBuild_SortsByTimestamp() {
+        PriceSeries series = ColumnarPriceSeries.builder("ETH")
+                .add(30L, new BigDecimal("3"))
+                .add(10L, new BigDecimal("1"))
+                .add(20L, new BigDecimal("2"))
+                .build();
+
+        assertEquals(3, series.size());
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals((i + 1) * 10L, series.getTimestamp(i));
+            assertEquals(BigDecimal.valueOf(i + 1), series.getPrice(i));
+        }
+    }
+
+    @Test
+    public void testWindow_IsInclusiveViewOverSeries() {
+        var builder = ColumnarPriceSeries.builder("XRP");
+        for (int i = 0; i < 10; i++) {
+            builder.add(i * 100L, BigDecimal.valueOf(i));
+        }
+        PriceSeries series = builder.build();
+
+        PriceSeries window = series.window(150L, 500L);
+
+        assertEquals(4, window.size());
+        assertEquals(200L, window.getOldestTimestamp());
+        assertEquals(500L, window.getNewestTimestamp());
+        assertEquals(BigDecimal.valueOf(3), window.getPrice(1));
+        assertEquals(0, series.window(901L, Long.MAX_VALUE).size());
+        assertEquals(10, series.window(Long.MIN_VALUE, Long.MAX_VALUE).size());
+        assertThrows(IndexOutOfBoundsException.class, () -> window.getTimestamp(4));
+    }
+
+    @Test
+    public void testGetCryptoData_UsesSeriesSymbol() {
+        PriceSeries series = ColumnarPriceSeries.builder("DOGE").add(1L, new BigDecimal("0.07")).build();
+
+        assertEquals(new CryptoData(1L, "DOGE", new BigDecimal("0.07")), series.getCryptoData(0));
+    }
+
+    @Test
+    public void testAppend_ExtendsSeriesAndKeepsEarlierVersionsIntact() {
+        Random random = new Random(7);
+        List<List<Long>> expectedPrices = new ArrayList<>();
+        List<PriceSeries> versions = new ArrayList<>();
+        List<Long> prices = new ArrayList<>();
+        PriceSeries series = ColumnarPriceSeries.builder("BTC").build();
+        long timestamp = 0;
+        for (int version = 0; version < 60; version++) {
+            var tail = ColumnarPriceSeries.builder("BTC");
+            for (int i = random.nextInt(200); i > 0; i--) {
+                timestamp += random.nextInt(2 * 60 * 60 * 1000);
+                long price = random.nextInt(100_000);
+                tail.add(timestamp, price, 0);
+                prices.add(price);
+            }
+            series = series.append(tail.build());
+            versions.add(series);
+            expectedPrices.add(new ArrayList<>(prices));
+        }
+
+        for (int version = 0; version < versions.size(); version++) {
+            PriceSeries actual = versions.get(version);
+            var rebuilt = ColumnarPriceSeries.builder("BTC");
+            for (int i = 0; i < actual.size(); i++) {
+                rebuilt.add(actual.getTimestamp(i), actual.getUnscaledPrice(i), actual.getScale());
+            }
+            assertSameSeries(expectedPrices.get(version), rebuilt.build(), actual);
+        }
+    }
+
+    @Test
+    public void testAppend_RebuildsWhenTailIsOutOfOrderOrFinerScaled() {
+        PriceSeries series = ColumnarPriceSeries.builder("ETH")
+                .add(10L, new BigDecimal("1"))
+                .add(30L, new BigDecimal("3"))
+                .build();
+
+        PriceSeries appended = series.append(ColumnarPriceSeries.builder("ETH")
+                .add(20L, new BigDecimal("2.5"))
+                .build());
+
+        assertEquals(3, appended.size());
+        assertEquals(20L, appended.getTimestamp(1));
+        assertEquals(new BigDecimal("2.5"), appended.getPrice(1));
+        assertEquals(new BigDecimal("1.0"), appended.getPrice(0));
+        assertEquals(2, series.size());
+        assertEquals(30L, series.getNewestTimestamp());
+    }
+
+    @Test
+    public void testForEachBar_MatchesTicksGroupedByBarAcrossAppendsAndWindows() {
+        Random random = new Random(5);
+        List<PriceSeries> versions = new ArrayList<>();
+        PriceSeries series = ColumnarPriceSeries.builder("BTC").build();
+        long timestamp = 1641009600000L;
+        for (int version = 0; version < 30; version++) {
+            var tail = ColumnarPriceSeries.builder("BTC");
+            for (int i = random.nextInt(400); i > 0; i--) {
+                timestamp += random.nextBoolean() ? random.nextInt(20_000) : random.nextInt(3 * 60 * 60 * 1000);
+                tail.add(timestamp, random.nextInt(100_000), 0);
+            }
+            series = series.append(tail.build());
+            versions.add(series);
+        }
+        // Minute ticks, so the minute tier is dropped and only the coarser tiers are kept
+        var minutes = ColumnarPriceSeries.builder("ETH");
+        for (int i = 0; i < 2 * PriceRollups.SPARSE_TIER_MIN_TICKS; i++) {
+            minutes.add(1641009600000L + i * 60_000L, random.nextInt(100_000), 0);
+        }
+        versions.add(minutes.build());
+
+        for (PriceSeries version : versions) {
+            for (int window = 0; window < 20; window++) {
+                int from = random.nextInt(version.size() + 1);
+                int to = from + random.nextInt(version.size() - from + 1);
+                PriceSeries subSeries = version.subSeries(from, to);
+                for (BarInterval interval : BarInterval.values()) {
+                    List<List<Long>> bars = new ArrayList<>();
+                    subSeries.forEachBar(interval, (barStart, open, high, low, close) ->
+                            bars.add(List.of(barStart, open, high, low, close)));
+                    assertEquals(groupedBars(subSeries, interval), bars);
+                }
+            }
+        }
+    }
+
+    private static List<List<Long>> groupedBars(PriceSeries series, BarInterval interval) {
+        List<List<Long>> bars = new ArrayList<>();
+        int from = 0;
+        for (int i = 1; i <= series.size(); i++) {
+            if (i == series.size()
+                    || interval.getBarStart(series.getTimestamp(i)) != interval.getBarStart(series.getTimestamp(from))) {
+                var ticks = series.subSeries(from, i);
+                long high = Long.MIN_VALUE;
+                long low = Long.MAX_VALUE;
+                for (int tick = 0; tick < ticks.size(); tick++) {
+                    high = Math.max(high, ticks.getUnscaledPrice(tick));
+                    low = Math.min(low, ticks.getUnscaledPrice(tick));
+                }
+                bars.add(List.of(interval.getBarStart(ticks.getOldestTimestamp()), ticks.getUnscaledPrice(0), high,
+                        low, ticks.getUnscaledPrice(ticks.size() - 1)));
+                from = i;
+            }
+        }
+        return bars;
+    }
+
+    private static void assertSameSeries(List<Long> expectedPrices, PriceSeries expected, PriceSeries actual) {
+        assertEquals(expectedPrices.size(), actual.size());
+        for (int i = 0; i < actual.size(); i++) {
+            assertEquals(expectedPrices.get(i), actual.getUnscaledPrice(i));
+        }
+        for (int from = 0; from < actual.size(); from += 17) {
+            for (int to = from + 1; to <= actual.size(); to += 31) {
+                assertEquals(expected.subSeries(from, to).getMinUnscaledPrice(),
+                        actual.subSeries(from, to).getMinUnscaledPrice());
+                assertEquals(expected.subSeries(from, to).getMaxUnscaledPrice(),
+                        actual.subSeries(from, to).getMaxUnscaledPrice());
+            }
+        }
+        DailyBars expectedBars = expected.getDailyBars();
+        DailyBars actualBars = actual.getDailyBars();
+        assertEquals(expectedBars.size(), actualBars.size());
+        for (int i = 0; i < actualBars.size(); i++) {
+            assertEquals(expectedBars.getDay(i), actualBars.getDay(i));
+            assertEquals(expectedBars.getOpen(i), actualBars.getOpen(i));
+            assertEquals(expectedBars.getHigh(i), actualBars.getHigh(i));
+            assertEquals(expectedBars.getLow(i), actualBars.getLow(i));
+            assertEquals(expectedBars.getClose(i), actualBars.getClose(i));
+        }
+    }
+
+    @Test
+    public void testMemoryFootprint_ColumnarIsSmallerThanCryptoDataList() {
+        int ticks = 1_000_000;
+
+        long columnar = MemoryFootprint.columnarSeriesBytes(spacedSeries(ticks, 60_000L));
+        long list = MemoryFootprint.cryptoDataListBytes("BTC", ticks);
+
+        assertTrue(columnar > 16L * ticks);
+        assertTrue(columnar < 22L * ticks);
+        assertTrue(list > 100L * ticks);
+    }
+
+    @Test
+    public void testMemoryFootprint_CountsRollupsBarsAndSpareCapacity() {
+        int ticks = 1000;
+        ColumnarPriceSeries withinOneMinute = spacedSeries(ticks, 1L);
+        ColumnarPriceSeries oneTickPerDay = spacedSeries(ticks, DailyBars.DAY_MILLIS);
+
+        // A minute, an hour and a day bar of 20 bytes and a 40 byte daily bar per tick, against one of each
+        long perTickBars = MemoryFootprint.columnarSeriesBytes(oneTickPerDay)
+                - MemoryFootprint.columnarSeriesBytes(withinOneMinute);
+        assertTrue(perTickBars >= (ticks - 1) * (3 * 20L + 40L), "bars: " + perTickBars);
+
+        var appended = (ColumnarPriceSeries) withinOneMinute.append(ColumnarPriceSeries.builder("BTC")
+                .add(ticks, 4_000_000, 2)
+                .build());
+        // Both columns grow by half their length, though a single tick was added
+        long growth = MemoryFootprint.columnarSeriesBytes(appended) - MemoryFootprint.columnarSeriesBytes(withinOneMinute);
+        assertTrue(growth >= 2L * (ticks / 2) * Long.BYTES, "growth: " + growth);
+    }
+
+    private static ColumnarPriceSeries spacedSeries(int ticks, long spacingMillis) {
+        var builder = ColumnarPriceSeries.builder("BTC");
+        for (int i = 0; i < ticks; i++) {
+            builder.add(i * spacingMillis, 4_000_000 + i % 1000, 2);
+        }
+        return builder.build();
+    }
+}
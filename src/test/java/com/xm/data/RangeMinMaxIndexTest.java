@@ -0,0 +1,42 @@
+package com.xm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RangeMinMaxIndexTest {
+
+    @Test
+    public void testMinMax_MatchesScanForRandomRanges() {
+        Random random = new Random(42);
+        int length = 1000;
+        long[] prices = new long[length + 10];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = random.nextInt(1_000_000);
+        }
+        RangeMinMaxIndex index = new RangeMinMaxIndex(prices, length);
+
+        for (int i = 0; i < 5000; i++) {
+            int from = random.nextInt(length);
+            int to = from + 1 + random.nextInt(length - from);
+            long expectedMin = Long.MAX_VALUE;
+            long expectedMax = Long.MIN_VALUE;
+            for (int j = from; j < to; j++) {
+                expectedMin = Math.min(expectedMin, prices[j]);
+                expectedMax = Math.max(expectedMax, prices[j]);
+            }
+            assertEquals(expectedMin, index.min(from, to), "min of [" + from + ", " + to + ")");
+            assertEquals(expectedMax, index.max(from, to), "max of [" + from + ", " + to + ")");
+        }
+    }
+
+    @Test
+    public void testMinMax_SingleElement() {
+        RangeMinMaxIndex index = new RangeMinMaxIndex(new long[]{7L}, 1);
+
+        assertEquals(7L, index.min(0, 1));
+        assertEquals(7L, index.max(0, 1));
+    }
+}
@@ -0,0 +1,114 @@
+package com.xm.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xm.data.PriceSeries;
+import com.xm.exception.IngestBackpressureException;
+import com.xm.exception.InvalidPriceIngestRequestException;
+import com.xm.reader.PriceSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PriceIngestorTest {
+
+    @Mock
+    private PriceSource priceSource;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PriceIngestor priceIngestor;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        if (priceIngestor != null) {
+            priceIngestor.stop();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testIngest_AppliesNdjsonAndArraysAsBatchesPerSymbol() throws IOException, InterruptedException {
+        priceIngestor = new PriceIngestor(priceSource, new ObjectMapper(), meterRegistry);
+        priceIngestor.start();
+
+        assertEquals(2, priceIngestor.ingest(json("{\"timestamp\":1641009600000,\"symbol\":\"BTC\",\"price\":46813.210}\n"
+                + "{\"timestamp\":1641009600000,\"symbol\":\"ETH\",\"price\":3715.3}\n"), "http"));
+        assertEquals(1, priceIngestor.ingest(json("[{\"timestamp\":1641013200000,\"symbol\":\"BTC\",\"price\":46900}]"),
+                "socket"));
+        priceIngestor.stop();
+
+        ArgumentCaptor<Map<String, PriceSeries>> batches = ArgumentCaptor.forClass(Map.class);
+        verify(priceSource, atLeastOnce()).append(batches.capture());
+        List<BigDecimal> btcPrices = new ArrayList<>();
+        int ethTicks = 0;
+        for (Map<String, PriceSeries> batch : batches.getAllValues()) {
+            PriceSeries btc = batch.get("BTC");
+            for (int i = 0; btc != null && i < btc.size(); i++) {
+                btcPrices.add(btc.getPrice(i));
+            }
+            if (batch.containsKey("ETH")) {
+                ethTicks += batch.get("ETH").size();
+                assertEquals(new BigDecimal("3715.3"), batch.get("ETH").getPrice(0));
+            }
+        }
+        assertEquals(2, btcPrices.size());
+        assertEquals(0, new BigDecimal("46813.21").compareTo(btcPrices.get(0)));
+        assertEquals(0, new BigDecimal("46900").compareTo(btcPrices.get(1)));
+        assertEquals(1, ethTicks);
+        assertEquals(3.0, meterRegistry.get("crypto.ingest.applied").tag("outcome", "applied").counter().count());
+        assertEquals(1.0, meterRegistry.get("crypto.ingest.ticks").tag("transport", "socket").counter().count());
+    }
+
+    @Test
+    public void testIngest_RejectsInvalidRecordsAfterAcceptingEarlierOnes() {
+        priceIngestor = new PriceIngestor(priceSource, new ObjectMapper(), meterRegistry);
+
+        for (String invalid : List.of(
+                "{\"timestamp\":1641009600000,\"symbol\":\"../BTC\",\"price\":1}",
+                "{\"timestamp\":1641009600000,\"symbol\":\"BTC\",\"price\":-1}",
+                "{\"timestamp\":1641009600000,\"symbol\":\"BTC\"}",
+                "{\"symbol\":\"BTC\",\"price\":1}",
+                "{\"timestamp\":1641009600000,\"symbol\":\"BTC\",\"price\":0.0000000000001}",
+                "{\"timestamp\":1641009600000,\"symbol\":\"BTC\",\"price\":1e30}",
+                "{\"timestamp\":1641009600000,\"symbol\":\"BTC\",\"price\":")) {
+            assertThrows(InvalidPriceIngestRequestException.class, () -> priceIngestor.ingest(json(
+                    "{\"timestamp\":1641009600000,\"symbol\":\"BTC\",\"price\":1}\n" + invalid), "http"), invalid);
+        }
+        assertEquals(7, priceIngestor.backlog());
+    }
+
+    @Test
+    public void testIngest_TimesOutWhenTheBufferStaysFull() throws IOException {
+        priceIngestor = new PriceIngestor(priceSource, new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(priceIngestor, "ringCapacity", 2);
+        ReflectionTestUtils.setField(priceIngestor, "maxSymbols", 1);
+
+        String tick = "{\"timestamp\":1641009600000,\"symbol\":\"BTC\",\"price\":1}\n";
+        assertEquals(2, priceIngestor.ingest(json(tick + tick), "http", 10));
+        assertThrows(IngestBackpressureException.class, () -> priceIngestor.ingest(json(tick), "http", 10));
+        assertThrows(InvalidPriceIngestRequestException.class, () -> priceIngestor.ingest(json(
+                "{\"timestamp\":1641009600000,\"symbol\":\"ETH\",\"price\":1}"), "http", 10));
+        verifyNoInteractions(priceSource);
+    }
+
+    private static InputStream json(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
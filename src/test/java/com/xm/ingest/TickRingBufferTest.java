@@ -0,0 +1,77 @@
+package com.xm.ingest;
+
+import com.xm.data.ColumnarPriceSeries;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TickRingBufferTest {
+
+    @Test
+    public void testOffer_RejectsWhenFullAndReusesDrainedSlots() {
+        TickRingBuffer ringBuffer = new TickRingBuffer(3);
+        assertEquals(4, ringBuffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ringBuffer.offer(i, 100 + i, 2));
+        }
+        assertFalse(ringBuffer.offer(4, 104, 2));
+
+        var builder = ColumnarPriceSeries.builder("BTC");
+        assertEquals(3, ringBuffer.drainTo(builder, 3));
+        assertEquals(1, ringBuffer.size());
+        assertTrue(ringBuffer.offer(4, 1045, 3));
+        assertEquals(2, ringBuffer.drainTo(builder, 10));
+
+        var series = builder.build();
+        assertEquals(5, series.size());
+        assertEquals(3, series.getScale());
+        assertEquals(1030L, series.getUnscaledPrice(3));
+        assertEquals(1045L, series.getUnscaledPrice(4));
+        assertEquals(0, ringBuffer.size());
+    }
+
+    @Test
+    public void testOffer_ConcurrentProducersLoseNoTickAndKeepTheirOrder() throws InterruptedException {
+        int producers = 4;
+        int ticksPerProducer = 100_000;
+        TickRingBuffer ringBuffer = new TickRingBuffer(256);
+        List<Thread> threads = new ArrayList<>();
+        for (int producer = 0; producer < producers; producer++) {
+            int id = producer;
+            Thread thread = new Thread(() -> {
+                // Timestamp carries the producer, price the sequence within the producer
+                for (int i = 0; i < ticksPerProducer; i++) {
+                    while (!ringBuffer.offer(id, i, 0)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        var builder = ColumnarPriceSeries.builder("BTC");
+        while (builder.size() < producers * ticksPerProducer) {
+            if (ringBuffer.drainTo(builder, 64) == 0) {
+                Thread.yield();
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        var series = builder.build();
+        long[] next = new long[producers];
+        for (int i = 0; i < series.size(); i++) {
+            int producer = (int) series.getTimestamp(i);
+            assertEquals(next[producer]++, series.getUnscaledPrice(i));
+        }
+        for (long ticks : next) {
+            assertEquals(ticksPerProducer, ticks);
+        }
+        assertEquals(0, ringBuffer.drainTo(builder, 64));
+    }
+}
@@ -0,0 +1,111 @@
+package com.xm.reader;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xm.controller.CryptoController;
+import com.xm.controller.StatisticsStream;
+import com.xm.data.CryptoStatistics;
+import com.xm.data.TimeFrame;
+import com.xm.ingest.PriceIngestor;
+import com.xm.service.AnalyticsService;
+import com.xm.service.RecommendationService;
+import com.xm.service.StatisticsCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CsvDataReaderConcurrencyTest {
+
+    private static final int READER_THREADS = 4;
+    private static final int RELOADS = 200;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CsvDataReader csvDataReader;
+    private CryptoController cryptoController;
+
+    @BeforeEach
+    public void setUp() {
+        csvDataReader = new CsvDataReader();
+        ReflectionTestUtils.setField(csvDataReader, "csvFolderPath", "src/test/resources/prices");
+        csvDataReader.init();
+        var statisticsCache = new StatisticsCache(new CaffeineCacheManager(StatisticsCache.CACHE_NAME));
+        var recommendationService = new RecommendationService(csvDataReader, statisticsCache,
+                new SimpleMeterRegistry(), objectMapper);
+        cryptoController = new CryptoController(recommendationService, new AnalyticsService(csvDataReader),
+                objectMapper, new PriceIngestor(csvDataReader, objectMapper, new SimpleMeterRegistry()),
+                new StatisticsStream(recommendationService, objectMapper, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    public void testEndpointsNeverObservePartialDataDuringReloads() throws InterruptedException {
+        AtomicBoolean reloading = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < READER_THREADS; i++) {
+            Thread reader = new Thread(() -> {
+                while (reloading.get()) {
+                    try {
+                        assertConsistentResponses();
+                        reads.incrementAndGet();
+                    } catch (Throwable throwable) {
+                        failures.add(throwable);
+                    }
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+
+        for (int i = 0; i < RELOADS; i++) {
+            csvDataReader.refreshCryptoDataCache();
+        }
+        reloading.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertTrue(failures.isEmpty(), () -> failures.size() + " failures, first: " + failures.peek());
+        assertTrue(reads.get() > 0);
+        assertEquals(RELOADS + 1, csvDataReader.getSnapshot().getVersion());
+    }
+
+    private void assertConsistentResponses() throws IOException {
+        var ranking = objectMapper.readValue(cryptoController.getAllCryptoStatistics(null, null, null, null, newWebRequest()).getBody(),
+                new TypeReference<List<CryptoStatistics>>() {
+                });
+        assertEquals(2, ranking.size());
+        assertEquals("BTC", ranking.get(0).getCryptoName());
+
+        var btc = cryptoController.getCryptoStatisticsByName("BTC", TimeFrame.ONE_MONTH, null, null, newWebRequest());
+        assertEquals(200, btc.getStatusCodeValue());
+        assertEquals(new BigDecimal("30000"), btc.getBody().getMax());
+
+        var highest = cryptoController.getHighestNormalizedRangeCryptoByDay(LocalDate.of(2022, 1, 1), null,
+                newWebRequest());
+        assertEquals(200, highest.getStatusCodeValue());
+        assertEquals("BTC", highest.getBody().getCryptoName());
+    }
+
+    private static ServletWebRequest newWebRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+    }
+}
@@ -1,19 +1,29 @@
 package com.xm.reader;
 
+import com.xm.cluster.ConsistentHashRing;
+import com.xm.cluster.SymbolPartition;
 import com.xm.data.CryptoData;
+import com.xm.data.CryptoDataSnapshot;
+import com.xm.data.PriceSeries;
 import com.xm.util.ExpectedTestDataPreparation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(MockitoExtension.class)
 public class CsvDataReaderTest {
@@ -26,7 +36,7 @@ public class CsvDataReaderTest {
 
     @BeforeEach
     public void setUp() {
-        ReflectionTestUtils.setField(csvDataReader, "csvFolderPath", "src\\test\\resources\\prices");
+        ReflectionTestUtils.setField(csvDataReader, "csvFolderPath", "src/test/resources/prices");
         csvDataReader.init();
     }
 
@@ -51,27 +61,142 @@ public class CsvDataReaderTest {
     @Test
     public void testGetCryptoData_Success() {
         List<CryptoData> expectedBTC = ExpectedTestDataPreparation.getExpectedBTC();
-        List<CryptoData> actualCryptoData = csvDataReader.getCryptoDataByName(BTC);
+        PriceSeries actualCryptoData = csvDataReader.getCryptoDataByName(BTC);
 
         assertEquals(expectedBTC.size(), actualCryptoData.size());
         for (int i = 0; i < expectedBTC.size(); i++) {
-            assertEquals(expectedBTC.get(i), actualCryptoData.get(i));
+            assertEquals(expectedBTC.get(i), actualCryptoData.getCryptoData(i));
         }
     }
 
     @Test
     public void testRefreshCryptoDataCache_Success() {
-        Map<String, List<CryptoData>> cryptoDataCache = getCryptoDataCache();
-        assertEquals(2, cryptoDataCache.size());
+        CryptoDataSnapshot snapshot = csvDataReader.getSnapshot();
+        assertEquals(2, snapshot.getPriceSeriesByName().size());
 
         csvDataReader.refreshCryptoDataCache();
 
-        cryptoDataCache = getCryptoDataCache();
-        assertEquals(2, cryptoDataCache.size());
+        CryptoDataSnapshot refreshed = csvDataReader.getSnapshot();
+        assertEquals(2, refreshed.getPriceSeriesByName().size());
+        assertEquals(snapshot.getVersion() + 1, refreshed.getVersion());
+        assertEquals(2, snapshot.getPriceSeriesByName().size());
+    }
+
+    @Test
+    public void testRefreshCryptoDataCache_WritesAndReloadsSnapshotFile(@TempDir Path tempDir) {
+        Path snapshotPath = tempDir.resolve("prices.snapshot");
+        ReflectionTestUtils.setField(csvDataReader, "csvSnapshotPath", snapshotPath.toString());
+
+        csvDataReader.refreshCryptoDataCache();
+        assertTrue(Files.isRegularFile(snapshotPath));
+
+        csvDataReader.refreshCryptoDataCache();
+
+        List<CryptoData> expectedBTC = ExpectedTestDataPreparation.getExpectedBTC();
+        PriceSeries actualCryptoData = csvDataReader.getCryptoDataByName(BTC);
+        assertEquals(expectedBTC.size(), actualCryptoData.size());
+        for (int i = 0; i < expectedBTC.size(); i++) {
+            assertEquals(expectedBTC.get(i), actualCryptoData.getCryptoData(i));
+        }
+        assertEquals(Set.of(BTC, DOGE), csvDataReader.getAllCryptoNames());
+    }
 
+    @Test
+    public void testIngestChangedFiles_ParsesOnlyCompleteAppendedRows(@TempDir Path tempDir) throws IOException {
+        Path btcFile = tempDir.resolve("BTC_values.csv");
+        // The resource ends without a line break; a writer appending rows ends the last one first
+        Files.writeString(btcFile, Files.readString(Path.of("src/test/resources/prices/BTC_values.csv")) + "\n");
+        ReflectionTestUtils.setField(csvDataReader, "csvFolderPath", tempDir.toString());
+        csvDataReader.refreshCryptoDataCache();
+        PriceSeries loaded = csvDataReader.getCryptoDataByName(BTC);
+        int loadedSize = loaded.size();
+        long version = csvDataReader.getSnapshot().getVersion();
+
+        Files.writeString(btcFile, "1641099600000,BTC,30000.5\n1641103200000,BTC,31", StandardOpenOption.APPEND);
+        csvDataReader.ingestChangedFiles(List.of(btcFile));
+
+        PriceSeries appended = csvDataReader.getCryptoDataByName(BTC);
+        assertEquals(version + 1, csvDataReader.getSnapshot().getVersion());
+        assertEquals(loaded.size() + 1, appended.size());
+        assertEquals(new CryptoData(1641099600000L, BTC, new BigDecimal("30000.5")),
+                appended.getCryptoData(appended.size() - 1));
+
+        Files.writeString(btcFile, "000\n", StandardOpenOption.APPEND);
+        Files.writeString(tempDir.resolve("ETH_values.csv"), "timestamp,symbol,price\n1641009600000,ETH,3700\n");
+        csvDataReader.ingestChangedFiles(List.of(btcFile, tempDir.resolve("ETH_values.csv")));
+
+        PriceSeries completed = csvDataReader.getCryptoDataByName(BTC);
+        assertEquals(loaded.size() + 2, completed.size());
+        assertEquals(new CryptoData(1641103200000L, BTC, new BigDecimal("31000.0")),
+                completed.getCryptoData(completed.size() - 1));
+        assertEquals(new BigDecimal("31000.0"),
+                BigDecimal.valueOf(completed.getMaxUnscaledPrice(), completed.getScale()));
+        assertEquals(Set.of(BTC, "ETH"), csvDataReader.getAllCryptoNames());
+        assertEquals(loadedSize, loaded.size());
+        assertSameSeries(new StreamingPriceFileParser().parse(BTC, btcFile), completed);
     }
 
-    private Map<String, List<CryptoData>> getCryptoDataCache() {
-        return (Map<String, List<CryptoData>>) ReflectionTestUtils.getField(csvDataReader, "cryptoDataCache");
+    @Test
+    public void testIngestChangedFiles_CompletesARowLoadedBeforeItsLineBreak(@TempDir Path tempDir) throws IOException {
+        Path btcFile = tempDir.resolve("BTC_values.csv");
+        Files.writeString(btcFile, "timestamp,symbol,price\n1641009600000,BTC,46813.21\n1641020400000,BTC,31");
+        ReflectionTestUtils.setField(csvDataReader, "csvFolderPath", tempDir.toString());
+        csvDataReader.refreshCryptoDataCache();
+        assertEquals(new BigDecimal("31.00"), csvDataReader.getCryptoDataByName(BTC).getPrice(1));
+
+        Files.writeString(btcFile, "000\n1641031200000,BTC,30000\n", StandardOpenOption.APPEND);
+        csvDataReader.ingestChangedFiles(List.of(btcFile));
+
+        PriceSeries completed = csvDataReader.getCryptoDataByName(BTC);
+        assertSameSeries(new StreamingPriceFileParser().parse(BTC, btcFile), completed);
+        assertEquals(3, completed.size());
+        assertEquals(new BigDecimal("31000.00"), completed.getPrice(1));
+
+        Files.writeString(btcFile, "1641041200000,BTC,29000\n", StandardOpenOption.APPEND);
+        csvDataReader.ingestChangedFiles(List.of(btcFile));
+        assertSameSeries(new StreamingPriceFileParser().parse(BTC, btcFile), csvDataReader.getCryptoDataByName(BTC));
+    }
+
+    @Test
+    public void testIngestChangedFiles_SkipsAnInvalidAppendedRow(@TempDir Path tempDir) throws IOException {
+        Path btcFile = tempDir.resolve("BTC_values.csv");
+        Files.writeString(btcFile, "timestamp,symbol,price\n1641009600000,BTC,46813.21\n");
+        ReflectionTestUtils.setField(csvDataReader, "csvFolderPath", tempDir.toString());
+        csvDataReader.refreshCryptoDataCache();
+
+        Files.writeString(btcFile, "1641020400000,BTC,\"1\"x\n1641031200000,BTC,30000\n",
+                StandardOpenOption.APPEND);
+        csvDataReader.ingestChangedFiles(List.of(btcFile));
+        assertEquals(2, csvDataReader.getCryptoDataByName(BTC).size());
+
+        Files.writeString(btcFile, "1641041200000,BTC,29000\n", StandardOpenOption.APPEND);
+        csvDataReader.ingestChangedFiles(List.of(btcFile));
+        PriceSeries series = csvDataReader.getCryptoDataByName(BTC);
+        assertEquals(3, series.size());
+        assertEquals(new CryptoData(1641041200000L, BTC, new BigDecimal("29000.00")), series.getCryptoData(2));
+    }
+
+    private static void assertSameSeries(PriceSeries expected, PriceSeries actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getCryptoData(i), actual.getCryptoData(i));
+        }
+    }
+
+    @Test
+    public void testRefreshCryptoDataCache_LoadsOnlyTheCryptosOfItsNode(@TempDir Path tempDir) throws IOException {
+        // A two node ring that puts BTC and DOGE on different nodes
+        ConsistentHashRing ring = null;
+        for (int i = 0; ring == null || ring.nodeFor(BTC).equals(ring.nodeFor(DOGE)); i++) {
+            ring = new ConsistentHashRing(List.of("node-" + i, "node-" + (i + 1)));
+        }
+        ReflectionTestUtils.setField(csvDataReader, "symbolPartition", SymbolPartition.of(ring, ring.nodeFor(DOGE)));
+        csvDataReader.refreshCryptoDataCache();
+        assertEquals(Set.of(DOGE), csvDataReader.getAllCryptoNames());
+
+        Path btcFile = tempDir.resolve("BTC_values.csv");
+        Files.copy(Path.of("src/test/resources/prices/BTC_values.csv"), btcFile);
+        csvDataReader.ingestChangedFiles(List.of(btcFile));
+        assertEquals(Set.of(DOGE), csvDataReader.getAllCryptoNames());
     }
 }
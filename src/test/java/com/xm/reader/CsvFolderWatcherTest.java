@@ -0,0 +1,95 @@
+package com.xm.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+public class CsvFolderWatcherTest {
+
+    @InjectMocks
+    private CsvDataReader csvDataReader;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testWatch_DeletedOrRenamedFileReloadsTheFolder() throws Exception {
+        Files.copy(Path.of("src/test/resources/prices/BTC_values.csv"), tempDir.resolve("BTC_values.csv"));
+        Files.copy(Path.of("src/test/resources/prices/DOGE_values.csv"), tempDir.resolve("DOGE_values.csv"));
+        CsvFolderWatcher watcher = startWatcher(20, 2000);
+        try {
+            Files.delete(tempDir.resolve("DOGE_values.csv"));
+            awaitCryptoNames(Set.of("BTC"));
+
+            Files.move(tempDir.resolve("BTC_values.csv"), tempDir.resolve("XBT_values.csv"));
+            awaitCryptoNames(Set.of("XBT"));
+        } finally {
+            watcher.stop();
+        }
+    }
+
+    @Test
+    public void testWatch_IngestsRowsOfAFileThatNeverGoesQuiet() throws Exception {
+        Path btcFile = tempDir.resolve("BTC_values.csv");
+        Files.writeString(btcFile, "timestamp,symbol,price\n1641009600000,BTC,46813.21\n");
+        // Appends every 10 ms keep the folder from ever being quiet for 200 ms
+        CsvFolderWatcher watcher = startWatcher(200, 300);
+        var writing = new AtomicBoolean(true);
+        var writer = new Thread(() -> {
+            try {
+                for (long timestamp = 1641009600001L; writing.get(); timestamp++) {
+                    Files.writeString(btcFile, timestamp + ",BTC,46813.21\n", StandardOpenOption.APPEND);
+                    Thread.sleep(10);
+                }
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        writer.start();
+        try {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (csvDataReader.getCryptoDataByName("BTC").size() == 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(writer.isAlive());
+            assertTrue(csvDataReader.getCryptoDataByName("BTC").size() > 1);
+        } finally {
+            writing.set(false);
+            writer.join();
+            watcher.stop();
+        }
+    }
+
+    private CsvFolderWatcher startWatcher(long quietPeriodMillis, long maxDelayMillis) throws IOException {
+        ReflectionTestUtils.setField(csvDataReader, "csvFolderPath", tempDir.toString());
+        csvDataReader.init();
+        var watcher = new CsvFolderWatcher(csvDataReader);
+        ReflectionTestUtils.setField(watcher, "csvFolderPath", tempDir.toString());
+        ReflectionTestUtils.setField(watcher, "quietPeriodMillis", quietPeriodMillis);
+        ReflectionTestUtils.setField(watcher, "maxDelayMillis", maxDelayMillis);
+        watcher.start();
+        return watcher;
+    }
+
+    private void awaitCryptoNames(Set<String> expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!csvDataReader.getAllCryptoNames().equals(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, csvDataReader.getAllCryptoNames());
+    }
+}
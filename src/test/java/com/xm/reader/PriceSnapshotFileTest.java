@@ -0,0 +1,77 @@
+package com.xm.reader;
+
+import com.xm.data.ColumnarPriceSeries;
+import com.xm.data.PriceSeries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceSnapshotFileTest {
+
+    private static final List<PriceSnapshotFile.SourceFile> SOURCES = List.of(
+            new PriceSnapshotFile.SourceFile("BTC_values.csv", 120L, 1641049200000L),
+            new PriceSnapshotFile.SourceFile("DOGE_values.csv", 110L, 1641049200000L));
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testWriteAndRead_RoundTrip() throws IOException {
+        PriceSnapshotFile snapshotFile = new PriceSnapshotFile(tempDir.resolve("prices.snapshot"));
+        PriceSeries btc = ColumnarPriceSeries.builder("BTC")
+                .add(1641009600000L, new BigDecimal("46813.21"))
+                .add(1641020400000L, new BigDecimal("46979.61"))
+                .add(1641031200000L, new BigDecimal("-0.05"))
+                .build();
+        PriceSeries doge = ColumnarPriceSeries.builder("DOGE").add(1641009600000L, new BigDecimal("0.1702")).build();
+
+        snapshotFile.write(SOURCES, List.of(btc, doge));
+        Optional<Map<String, PriceSeries>> read = snapshotFile.read(SOURCES);
+
+        assertTrue(read.isPresent());
+        assertEquals(2, read.get().size());
+        assertSameSeries(btc, read.get().get("BTC"));
+        assertSameSeries(doge, read.get().get("DOGE"));
+    }
+
+    @Test
+    public void testRead_StaleWhenSourcesChanged() throws IOException {
+        PriceSnapshotFile snapshotFile = new PriceSnapshotFile(tempDir.resolve("prices.snapshot"));
+        snapshotFile.write(SOURCES, List.of(ColumnarPriceSeries.builder("BTC").add(1L, BigDecimal.ONE).build()));
+
+        var modified = List.of(SOURCES.get(0), new PriceSnapshotFile.SourceFile("DOGE_values.csv", 110L, 1641049200001L));
+
+        assertTrue(snapshotFile.read(modified).isEmpty());
+        assertTrue(snapshotFile.read(SOURCES.subList(0, 1)).isEmpty());
+    }
+
+    @Test
+    public void testRead_IgnoresCorruptFile() throws IOException {
+        Path path = tempDir.resolve("prices.snapshot");
+        PriceSnapshotFile snapshotFile = new PriceSnapshotFile(path);
+        snapshotFile.write(SOURCES, List.of(ColumnarPriceSeries.builder("BTC").add(1L, BigDecimal.ONE).build()));
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 12] ^= 0x01;
+        Files.write(path, bytes);
+
+        assertTrue(snapshotFile.read(SOURCES).isEmpty());
+        assertTrue(new PriceSnapshotFile(tempDir.resolve("missing.snapshot")).read(SOURCES).isEmpty());
+    }
+
+    private void assertSameSeries(PriceSeries expected, PriceSeries actual) {
+        assertEquals(expected.getScale(), actual.getScale());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getCryptoData(i), actual.getCryptoData(i));
+        }
+    }
+}
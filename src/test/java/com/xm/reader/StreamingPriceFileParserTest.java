@@ -0,0 +1,98 @@
+package com.xm.reader;
+
+import com.xm.data.PriceSeries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamingPriceFileParserTest {
+
+    private final PriceFileParser streamingParser = new StreamingPriceFileParser();
+    private final PriceFileParser mappedParser = new MappedPriceFileParser();
+    private final PriceFileParser commonsCsvParser = new CommonsCsvPriceFileParser();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testParse_MatchesCommonsCsvOnTestResources() throws IOException {
+        for (String cryptoName : new String[]{"BTC", "DOGE"}) {
+            Path file = Path.of("src/test/resources/prices", cryptoName + "_values.csv");
+
+            assertSameSeries(commonsCsvParser.parse(cryptoName, file), streamingParser.parse(cryptoName, file));
+            assertSameSeries(commonsCsvParser.parse(cryptoName, file), mappedParser.parse(cryptoName, file));
+        }
+    }
+
+    @Test
+    public void testParse_MatchesCommonsCsvOnEdgeCases() throws IOException {
+        Path file = write("TIMESTAMP,SYMBOL,PRICE\r\n"
+                + "\r\n"
+                + "1641009600000,BTC,46813.21\r\n"
+                + "\"1641020400000\",\"B,TC\",\"46979.6\"\n"
+                + "1641031200000,\"B\"\"TC\" \t,1.5E+4\n"
+                + "1641041200000,BTC,-0.0000012\r"
+                + "1641051200000,BTC,+7.");
+
+        PriceSeries expected = commonsCsvParser.parse("BTC", file);
+        PriceSeries actual = streamingParser.parse("BTC", file);
+
+        assertEquals(5, actual.size());
+        assertSameSeries(expected, actual);
+        assertSameSeries(expected, mappedParser.parse("BTC", file));
+    }
+
+    @Test
+    public void testParse_HeaderOnly() throws IOException {
+        Path file = write("timestamp,symbol,price\n");
+
+        assertEquals(0, streamingParser.parse("BTC", file).size());
+    }
+
+    @Test
+    public void testParse_InvalidTimestamp() throws IOException {
+        Path file = write("timestamp,symbol,price\n16410096x0000,BTC,1\n");
+
+        assertThrows(NumberFormatException.class, () -> streamingParser.parse("BTC", file));
+        assertThrows(NumberFormatException.class, () -> commonsCsvParser.parse("BTC", file));
+    }
+
+    @Test
+    public void testParse_MissingPrice() throws IOException {
+        Path file = write("timestamp,symbol,price\n1641009600000,BTC\n");
+
+        assertThrows(IllegalArgumentException.class, () -> streamingParser.parse("BTC", file));
+        assertThrows(IllegalArgumentException.class, () -> commonsCsvParser.parse("BTC", file));
+    }
+
+    @Test
+    public void testParse_CharAfterClosingQuote() throws IOException {
+        Path file = write("timestamp,symbol,price\n1641009600000,BTC,\"1.5\"x\n");
+
+        assertThrows(IllegalStateException.class, () -> streamingParser.parse("BTC", file));
+        assertThrows(IllegalStateException.class, () -> mappedParser.parse("BTC", file));
+        var expected = assertThrows(UncheckedIOException.class, () -> commonsCsvParser.parse("BTC", file));
+        assertTrue(expected.getMessage().contains("invalid char between encapsulated token and delimiter"));
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.write(tempDir.resolve("BTC_values.csv"), content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void assertSameSeries(PriceSeries expected, PriceSeries actual) {
+        assertEquals(expected.getSymbol(), actual.getSymbol());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getCryptoData(i), actual.getCryptoData(i));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.xm.service;
+
+import com.xm.data.CryptoAnalytics;
+import com.xm.data.TimeFrame;
+import com.xm.exception.DataNotFoundException;
+import com.xm.exception.InvalidAnalyticsRequestException;
+import com.xm.exception.UnsupportedCryptoException;
+import com.xm.reader.CsvDataReader;
+import com.xm.util.ExpectedTestDataPreparation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AnalyticsServiceTest {
+
+    @Mock
+    private CsvDataReader csvDataReader;
+
+    @InjectMocks
+    private AnalyticsService analyticsService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(analyticsService, "defaultRollingWindow", 2);
+        ReflectionTestUtils.setField(analyticsService, "defaultReturnPeriods", List.of("3h", "1d"));
+        when(csvDataReader.getSnapshot()).thenReturn(ExpectedTestDataPreparation.getSnapshot(1L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries()));
+    }
+
+    @Test
+    public void testGetCryptoAnalytics_TimeFrameWithDefaults() {
+        CryptoAnalytics analytics = analyticsService.getCryptoAnalytics("BTC", TimeFrame.ONE_MONTH, null, null);
+
+        assertEquals("BTC", analytics.getCryptoName());
+        assertEquals(3, analytics.getTicks());
+        assertEquals(2, analytics.getRollingWindow());
+        assertEquals(Map.of("3h", new BigDecimal("0.50000")), analytics.getReturns());
+        assertEquals(new BigDecimal("15000"), analytics.getTwap());
+        assertEquals(new BigDecimal("0.00000"), analytics.getMaxDrawdown());
+        assertNotNull(analytics.getRollingVolatility());
+
+        verify(csvDataReader, times(1)).getSnapshot();
+        verifyNoMoreInteractions(csvDataReader);
+    }
+
+    @Test
+    public void testGetCryptoAnalytics_TimestampRange() {
+        CryptoAnalytics analytics = analyticsService.getCryptoAnalytics("BTC", 1641020400000L, Long.MAX_VALUE, 5,
+                List.of("PT3H"));
+
+        assertEquals(2, analytics.getTicks());
+        assertEquals(Map.of("PT3H", new BigDecimal("0.50000")), analytics.getReturns());
+        assertNull(analytics.getVolatility());
+        assertThrows(DataNotFoundException.class, () -> analyticsService.getCryptoAnalytics("BTC", 0L, 1L, null, null));
+    }
+
+    @Test
+    public void testGetCryptoAnalytics_InvalidRequest() {
+        assertThrows(UnsupportedCryptoException.class,
+                () -> analyticsService.getCryptoAnalytics("XXX", TimeFrame.ONE_MONTH, null, null));
+        assertThrows(InvalidAnalyticsRequestException.class,
+                () -> analyticsService.getCryptoAnalytics("BTC", TimeFrame.ONE_MONTH, 1, null));
+        assertThrows(InvalidAnalyticsRequestException.class,
+                () -> analyticsService.getCryptoAnalytics("BTC", TimeFrame.ONE_MONTH, null, List.of("a week")));
+        assertThrows(InvalidAnalyticsRequestException.class,
+                () -> analyticsService.getCryptoAnalytics("BTC", TimeFrame.ONE_MONTH, null, List.of("-1d")));
+    }
+}
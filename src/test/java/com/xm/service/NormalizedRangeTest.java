@@ -0,0 +1,55 @@
+package com.xm.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class NormalizedRangeTest {
+
+    @Test
+    public void testUnscaled_MatchesBigDecimalForRandomPrices() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            int scale = random.nextInt(9);
+            long bound = i % 2 == 0 ? 1_000_000L : Long.MAX_VALUE / 1000;
+            long min = 1 + Math.floorMod(random.nextLong(), bound);
+            long max = min + Math.floorMod(random.nextLong(), bound);
+            assertSameAsBigDecimal(min, max, scale);
+        }
+    }
+
+    @Test
+    public void testUnscaled_MatchesBigDecimalOnRoundingBoundaries() {
+        // 1/8 = 0.125 -> ties at the 6th decimal with min = 2^k * 5^j
+        long[][] prices = {
+                {8, 9}, {16, 17}, {32, 33}, {64, 65}, {200_000, 200_001}, {400_000, 400_003},
+                {3, 4}, {3, 5}, {7, 8}, {1, 1}, {1, 2}, {26_00, 28_00}, {10_000, 30_000},
+                {-8, 9}, {-200_000, -199_999}, {5, 3}, {-3, -4}, {Long.MAX_VALUE - 1, Long.MAX_VALUE},
+                {1, Long.MAX_VALUE / 100_000}, {2, Long.MAX_VALUE / 100_000 + 1}, {Long.MIN_VALUE + 1, -1}
+        };
+        for (long[] price : prices) {
+            assertSameAsBigDecimal(price[0], price[1], 2);
+        }
+    }
+
+    @Test
+    public void testUnscaled_ZeroMinimumFailsLikeBigDecimal() {
+        assertThrows(ArithmeticException.class, () -> NormalizedRange.unscaled(0, 10));
+        assertThrows(ArithmeticException.class, () -> NormalizedRange.unscaled(0, 0));
+    }
+
+    private static void assertSameAsBigDecimal(long minUnscaled, long maxUnscaled, int scale) {
+        var min = BigDecimal.valueOf(minUnscaled, scale);
+        var max = BigDecimal.valueOf(maxUnscaled, scale);
+        BigDecimal expected = max.subtract(min).divide(min, 5, RoundingMode.HALF_UP);
+
+        BigDecimal actual = NormalizedRange.toBigDecimal(NormalizedRange.unscaled(minUnscaled, maxUnscaled));
+
+        assertEquals(expected, actual, "(" + max + " - " + min + ") / " + min);
+    }
+}
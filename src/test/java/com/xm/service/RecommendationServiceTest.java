@@ -1,22 +1,47 @@
 package com.xm.service;
 
-import com.xm.data.CryptoData;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xm.data.BatchStatisticsRequest;
+import com.xm.data.BatchStatisticsResult;
+import com.xm.data.CacheStatistics;
+import com.xm.data.ColumnarPriceSeries;
+import com.xm.data.CryptoDataSnapshot;
 import com.xm.data.CryptoStatistics;
+import com.xm.data.DataVersion;
+import com.xm.data.PrecomputedJson;
+import com.xm.data.PriceSeries;
 import com.xm.data.TimeFrame;
+import com.xm.data.TimeWindow;
+import com.xm.exception.DataNotFoundException;
+import com.xm.exception.InvalidBatchRequestException;
 import com.xm.exception.UnsupportedCryptoException;
+import com.xm.reader.CryptoDataReloadedEvent;
 import com.xm.reader.CsvDataReader;
 import com.xm.util.ExpectedTestDataPreparation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,17 +52,28 @@ public class RecommendationServiceTest {
     @Mock
     private CsvDataReader csvDataReader;
 
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private StatisticsCache statisticsCache = new StatisticsCache(newCacheManager());
+
     @InjectMocks
     private RecommendationService recommendationService;
 
+    private static CacheManager newCacheManager() {
+        var cacheManager = new CaffeineCacheManager(StatisticsCache.CACHE_NAME);
+        cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(100).recordStats());
+        return cacheManager;
+    }
+
     @Test
     public void testGetAllCryptoStats_Success() {
-        List<CryptoData> btcDataList = ExpectedTestDataPreparation.getExpectedBTC();
-        List<CryptoData> dogeDataList = ExpectedTestDataPreparation.getExpectedDOGE();
-
-        when(csvDataReader.getAllCryptoNames()).thenReturn(ExpectedTestDataPreparation.getSupportedCrypto());
-        when(csvDataReader.getCryptoDataByName(ExpectedTestDataPreparation.BTC)).thenReturn(btcDataList);
-        when(csvDataReader.getCryptoDataByName(ExpectedTestDataPreparation.DOGE)).thenReturn(dogeDataList);
+        when(csvDataReader.getSnapshot()).thenReturn(ExpectedTestDataPreparation.getSnapshot(1L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries(), ExpectedTestDataPreparation.getExpectedDOGESeries()));
 
         List<CryptoStatistics> statsList = recommendationService.getAllCryptoStatistics();
 
@@ -67,30 +103,135 @@ public class RecommendationServiceTest {
         assertEquals(new BigDecimal("28.00"), dogeStats.getMax());
         assertEquals(new BigDecimal("0.07692"), dogeStats.getNormalizedRange());
 
-        verify(csvDataReader, times(1)).getAllCryptoNames();
-        verify(csvDataReader, times(1)).getCryptoDataByName(ExpectedTestDataPreparation.BTC);
-        verify(csvDataReader, times(1)).getCryptoDataByName(ExpectedTestDataPreparation.DOGE);
+        verify(csvDataReader, times(1)).getSnapshot();
+        verifyNoMoreInteractions(csvDataReader);
+    }
+
+    @Test
+    public void testGetAllCryptoStats_ReusesRankingUntilDataVersionChanges() {
+        CryptoDataSnapshot firstLoad = ExpectedTestDataPreparation.getSnapshot(1L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries());
+        CryptoDataSnapshot reload = ExpectedTestDataPreparation.getSnapshot(2L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries());
+        when(csvDataReader.getSnapshot()).thenReturn(firstLoad, firstLoad, reload);
+
+        List<CryptoStatistics> first = recommendationService.getAllCryptoStatistics();
+        List<CryptoStatistics> second = recommendationService.getAllCryptoStatistics();
+        List<CryptoStatistics> afterReload = recommendationService.getAllCryptoStatistics();
+
+        assertSame(first, second);
+        assertNotSame(first, afterReload);
+        assertEquals(first, afterReload);
+
+        verify(csvDataReader, times(3)).getSnapshot();
         verifyNoMoreInteractions(csvDataReader);
     }
 
+    @Test
+    public void testGetAllCryptoStatsJson_SerializedOncePerDataVersion() throws IOException {
+        CryptoDataSnapshot firstLoad = ExpectedTestDataPreparation.getSnapshot(1L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries(), ExpectedTestDataPreparation.getExpectedDOGESeries());
+        CryptoDataSnapshot reload = ExpectedTestDataPreparation.getSnapshot(2L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries());
+        when(csvDataReader.getSnapshot()).thenReturn(firstLoad, firstLoad, reload);
+
+        PrecomputedJson first = recommendationService.getAllCryptoStatisticsJson();
+        PrecomputedJson second = recommendationService.getAllCryptoStatisticsJson();
+        PrecomputedJson afterReload = recommendationService.getAllCryptoStatisticsJson();
+
+        assertSame(first, second);
+        assertEquals(DataVersion.of(firstLoad), first.getDataVersion());
+        assertEquals(DataVersion.of(reload), afterReload.getDataVersion());
+        assertNotEquals(first.getDataVersion().getETag(), afterReload.getDataVersion().getETag());
+        List<CryptoStatistics> ranking = objectMapper.readValue(first.getJson(),
+                new TypeReference<List<CryptoStatistics>>() {
+                });
+        assertEquals(List.of(ExpectedTestDataPreparation.BTC, ExpectedTestDataPreparation.DOGE), ranking.stream()
+                .map(CryptoStatistics::getCryptoName)
+                .collect(Collectors.toList()));
+        try (var inputStream = new GZIPInputStream(new ByteArrayInputStream(first.getGzippedJson()))) {
+            assertArrayEquals(first.getJson(), inputStream.readAllBytes());
+        }
+
+        verify(objectMapper, times(2)).writeValueAsBytes(any());
+    }
+
+    @Test
+    public void testGetTopCryptoStats_MatchesFullSortOfWindows() {
+        Random random = new Random(5);
+        long[] timestamps = {1641009600000L, 1641020400000L, 1641031200000L, 1641042000000L};
+        Map<String, PriceSeries> priceSeriesByName = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            var builder = ColumnarPriceSeries.builder("C" + i);
+            for (long timestamp : timestamps) {
+                // few distinct prices, so ties are common
+                builder.add(timestamp, 10 + random.nextInt(5), 0);
+            }
+            priceSeriesByName.put("C" + i, builder.build());
+        }
+        priceSeriesByName.put("EMPTY", ColumnarPriceSeries.builder("EMPTY").build());
+        when(csvDataReader.getSnapshot()).thenReturn(new CryptoDataSnapshot(1L, Instant.EPOCH, priceSeriesByName));
+
+        List<CryptoStatistics> top = recommendationService.getTopCryptoStatistics(20, timestamps[1], timestamps[3]);
+        List<CryptoStatistics> all = recommendationService.getTopCryptoStatistics(Integer.MAX_VALUE, TimeFrame.ONE_MONTH);
+
+        List<CryptoStatistics> expected = priceSeriesByName.entrySet().stream()
+                .filter(entry -> !entry.getValue().isEmpty())
+                .map(entry -> recommendationService.getCryptoStatisticsByName(entry.getKey(), timestamps[1], timestamps[3]))
+                .sorted(CryptoStatistics.RANKING_ORDER)
+                .limit(20)
+                .collect(Collectors.toList());
+        assertEquals(expected, top);
+        assertEquals(300, all.size());
+        assertEquals(recommendationService.getAllCryptoStatistics(), all);
+        assertEquals(all.subList(0, 5), recommendationService.getTopCryptoStatistics(5));
+    }
+
+    @Test
+    public void testGetAllCryptoStats_ReusesStatisticsOfUnchangedSeries() {
+        CryptoDataSnapshot firstLoad = ExpectedTestDataPreparation.getSnapshot(1L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries(), ExpectedTestDataPreparation.getExpectedDOGESeries());
+        var eth = ColumnarPriceSeries.builder("ETH")
+                .add(1641009600000L, 100, 0)
+                .add(1641020400000L, 180, 0)
+                .build();
+        Map<String, PriceSeries> reloaded = new HashMap<>(firstLoad.getPriceSeriesByName());
+        reloaded.put("ETH", eth);
+        reloaded.put(ExpectedTestDataPreparation.DOGE, ExpectedTestDataPreparation.getExpectedDOGESeries()
+                .append(ColumnarPriceSeries.builder("DOGE").add(1641042000000L, 2, 0).build()));
+        CryptoDataSnapshot reload = firstLoad.next(Instant.EPOCH, reloaded);
+        when(csvDataReader.getSnapshot()).thenReturn(firstLoad, reload);
+
+        List<CryptoStatistics> first = recommendationService.getAllCryptoStatistics();
+        List<CryptoStatistics> afterReload = recommendationService.getAllCryptoStatistics();
+
+        assertSame(first.get(0), afterReload.stream()
+                .filter(statistics -> statistics.getCryptoName().equals(ExpectedTestDataPreparation.BTC))
+                .findFirst().orElseThrow());
+        assertEquals(List.of(ExpectedTestDataPreparation.DOGE, ExpectedTestDataPreparation.BTC, "ETH"),
+                afterReload.stream().map(CryptoStatistics::getCryptoName).collect(Collectors.toList()));
+        assertEquals(afterReload.stream().sorted(CryptoStatistics.RANKING_ORDER).collect(Collectors.toList()),
+                afterReload);
+    }
+
     @Test
     public void testGetAllCryptoStats_EmptyData() {
-        when(csvDataReader.getAllCryptoNames()).thenReturn(Set.of());
+        when(csvDataReader.getSnapshot()).thenReturn(CryptoDataSnapshot.EMPTY);
 
         List<CryptoStatistics> statsList = recommendationService.getAllCryptoStatistics();
 
         assertTrue(statsList.isEmpty());
 
-        verify(csvDataReader, times(1)).getAllCryptoNames();
+        verify(csvDataReader, times(1)).getSnapshot();
         verifyNoMoreInteractions(csvDataReader);
     }
 
     @Test
     public void testGetCryptoStatsByName_Success() {
         String cryptoName = ExpectedTestDataPreparation.BTC;
-        List<CryptoData> btcDataList = ExpectedTestDataPreparation.getExpectedBTC();
-        when(csvDataReader.getAllCryptoNames()).thenReturn(ExpectedTestDataPreparation.getSupportedCrypto());
-        when(csvDataReader.getCryptoDataByName(cryptoName)).thenReturn(btcDataList);
+        when(csvDataReader.getSnapshot()).thenReturn(ExpectedTestDataPreparation.getSnapshot(1L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries(), ExpectedTestDataPreparation.getExpectedDOGESeries()));
+
         CryptoStatistics stats = recommendationService.getCryptoStatisticsByName(cryptoName, TimeFrame.ONE_MONTH);
 
         assertNotNull(stats);
@@ -101,52 +242,217 @@ public class RecommendationServiceTest {
         assertEquals(new BigDecimal("30000"), stats.getMax());
         assertEquals(new BigDecimal("2.00000"), stats.getNormalizedRange());
 
-        verify(csvDataReader, times(1)).getCryptoDataByName(cryptoName);
+        verify(csvDataReader, times(1)).getSnapshot();
+        verifyNoMoreInteractions(csvDataReader);
+    }
+
+    @Test
+    public void testGetCryptoStatsByName_TimestampRange() {
+        String cryptoName = ExpectedTestDataPreparation.BTC;
+        when(csvDataReader.getSnapshot()).thenReturn(ExpectedTestDataPreparation.getSnapshot(1L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries()));
+
+        CryptoStatistics stats = recommendationService.getCryptoStatisticsByName(cryptoName, 1641020400000L, 1641031200000L);
+
+        assertEquals(new BigDecimal("20000"), stats.getOldest());
+        assertEquals(new BigDecimal("30000"), stats.getNewest());
+        assertEquals(new BigDecimal("20000"), stats.getMin());
+        assertEquals(new BigDecimal("30000"), stats.getMax());
+        assertEquals(new BigDecimal("0.50000"), stats.getNormalizedRange());
+    }
+
+    @Test
+    public void testGetCryptoStatsByName_EmptyTimestampRange() {
+        String cryptoName = ExpectedTestDataPreparation.BTC;
+        when(csvDataReader.getSnapshot()).thenReturn(ExpectedTestDataPreparation.getSnapshot(1L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries()));
+
+        assertThrows(DataNotFoundException.class,
+                () -> recommendationService.getCryptoStatisticsByName(cryptoName, 1641009600001L, 1641020399999L));
+    }
+
+    @Test
+    public void testGetCryptoStatsByName_CachedUntilSeriesChanges() {
+        CryptoDataSnapshot firstLoad = ExpectedTestDataPreparation.getSnapshot(1L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries(), ExpectedTestDataPreparation.getExpectedDOGESeries());
+        var btcAppended = firstLoad.getPriceSeries(ExpectedTestDataPreparation.BTC).append(
+                ColumnarPriceSeries.builder(ExpectedTestDataPreparation.BTC).add(1641042000000L, new BigDecimal("40000")).build());
+        CryptoDataSnapshot reload = firstLoad.next(Instant.now(), Map.of(
+                ExpectedTestDataPreparation.BTC, btcAppended,
+                ExpectedTestDataPreparation.DOGE, firstLoad.getPriceSeries(ExpectedTestDataPreparation.DOGE)));
+        when(csvDataReader.getSnapshot()).thenReturn(firstLoad, firstLoad, firstLoad, reload, reload);
+
+        CryptoStatistics btc = recommendationService.getCryptoStatisticsByName(ExpectedTestDataPreparation.BTC, 0L, Long.MAX_VALUE);
+        CryptoStatistics doge = recommendationService.getCryptoStatisticsByName(ExpectedTestDataPreparation.DOGE, 0L, Long.MAX_VALUE);
+        assertSame(btc, recommendationService.getCryptoStatisticsByName(ExpectedTestDataPreparation.BTC, 0L, Long.MAX_VALUE));
+
+        statisticsCache.onCryptoDataReloaded(new CryptoDataReloadedEvent(firstLoad, reload));
+
+        CryptoStatistics btcReloaded = recommendationService.getCryptoStatisticsByName(ExpectedTestDataPreparation.BTC, 0L, Long.MAX_VALUE);
+        assertEquals(new BigDecimal("40000"), btcReloaded.getNewest());
+        assertSame(doge, recommendationService.getCryptoStatisticsByName(ExpectedTestDataPreparation.DOGE, 0L, Long.MAX_VALUE));
+        CacheStatistics cacheStatistics = recommendationService.getCacheStatistics();
+        assertEquals(2, cacheStatistics.getHitCount());
+        assertEquals(3, cacheStatistics.getMissCount());
+        assertEquals(2, cacheStatistics.getSize());
+    }
+
+    @Test
+    public void testGetCryptoStatsByName_RecordsStageMetrics() {
+        when(csvDataReader.getSnapshot()).thenReturn(ExpectedTestDataPreparation.getSnapshot(1L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries()));
+
+        recommendationService.getCryptoStatisticsByName(ExpectedTestDataPreparation.BTC, 1641020400000L, Long.MAX_VALUE);
+        recommendationService.getCryptoStatisticsByName(ExpectedTestDataPreparation.BTC, 1641020400000L, Long.MAX_VALUE);
+
+        assertEquals(1, meterRegistry.get("crypto.statistics.stage").tag("stage", "filter").timer().count());
+        assertEquals(1, meterRegistry.get("crypto.statistics.stage").tag("stage", "aggregate").timer().count());
+        assertEquals(2.0, meterRegistry.get("crypto.statistics.window.ticks").summary().totalAmount());
+    }
+
+    @Test
+    public void testGetPriceHistory_WindowOfSnapshot() {
+        when(csvDataReader.getSnapshot()).thenReturn(ExpectedTestDataPreparation.getSnapshot(1L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries()));
+
+        PriceSeries priceHistory = recommendationService.getPriceHistory("BTC", 1641020400000L, Long.MAX_VALUE);
+
+        assertEquals(2, priceHistory.size());
+        assertEquals(1641020400000L, priceHistory.getOldestTimestamp());
+        assertThrows(DataNotFoundException.class, () -> recommendationService.getPriceHistory("BTC", 0L, 1L));
+        assertThrows(UnsupportedCryptoException.class, () -> recommendationService.getPriceHistory("XXX", 0L, 1L));
+    }
+
+    @Test
+    public void testGetBatchStatistics_AllCryptosAndWindows() {
+        when(csvDataReader.getSnapshot()).thenReturn(ExpectedTestDataPreparation.getSnapshot(1L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries(), ExpectedTestDataPreparation.getExpectedDOGESeries()));
+        var request = BatchStatisticsRequest.builder()
+                .timeFrames(List.of(TimeFrame.ONE_MONTH))
+                .windows(List.of(new TimeWindow(1641020400000L, null), new TimeWindow(null, 0L)))
+                .build();
+
+        List<BatchStatisticsResult> results = recommendationService.getBatchStatistics(request)
+                .collect(Collectors.toList());
+
+        assertEquals(6, results.size());
+        assertEquals(List.of("BTC", "BTC", "BTC", "DOGE", "DOGE", "DOGE"), results.stream()
+                .map(BatchStatisticsResult::getCryptoName)
+                .collect(Collectors.toList()));
+        assertEquals(new BigDecimal("2.00000"), results.get(0).getStatistics().getNormalizedRange());
+        assertEquals(new BigDecimal("0.50000"), results.get(1).getStatistics().getNormalizedRange());
+        assertNull(results.get(2).getStatistics());
+        assertEquals("DATA_NOT_FOUND", results.get(2).getError().getErrorCode());
+        assertEquals(new BigDecimal("0.07692"), results.get(3).getStatistics().getNormalizedRange());
+
+        verify(csvDataReader, times(1)).getSnapshot();
         verifyNoMoreInteractions(csvDataReader);
     }
 
+    @Test
+    public void testGetBatchStatistics_UnknownCryptoAndInvalidRequest() {
+        when(csvDataReader.getSnapshot()).thenReturn(ExpectedTestDataPreparation.getSnapshot(1L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries()));
+
+        List<BatchStatisticsResult> results = recommendationService.getBatchStatistics(BatchStatisticsRequest.builder()
+                        .cryptoNames(List.of("XXX"))
+                        .timeFrames(List.of(TimeFrame.ONE_MONTH, TimeFrame.ONE_YEAR))
+                        .build())
+                .collect(Collectors.toList());
+
+        assertEquals(1, results.size());
+        assertEquals("UNSUPPORTED_CRYPTO", results.get(0).getError().getErrorCode());
+        assertThrows(InvalidBatchRequestException.class, () -> recommendationService.getBatchStatistics(
+                BatchStatisticsRequest.builder().cryptoNames(List.of("BTC")).build()));
+    }
+
     @Test
     public void testGetCryptoStatsByName_InvalidName() {
         String cryptoName = "INVALID";
+        when(csvDataReader.getSnapshot()).thenReturn(CryptoDataSnapshot.EMPTY);
 
         assertThrows(UnsupportedCryptoException.class, () -> recommendationService.getCryptoStatisticsByName(cryptoName, TimeFrame.ONE_MONTH));
     }
 
     @Test
     public void testGetHighestNormalizedRangeCryptoByDay_Success() {
-        long timestamp = 1641009600000L;
-
-        List<CryptoData> btcDataList = ExpectedTestDataPreparation.getExpectedBTC();
-        List<CryptoData> dogeDataList = ExpectedTestDataPreparation.getExpectedDOGE();
-
-        when(csvDataReader.getAllCryptoNames()).thenReturn(ExpectedTestDataPreparation.getSupportedCrypto());
-        when(csvDataReader.getCryptoDataByName(ExpectedTestDataPreparation.DOGE)).thenReturn(dogeDataList);
-        when(csvDataReader.getCryptoDataByName(ExpectedTestDataPreparation.BTC)).thenReturn(btcDataList);
+        LocalDate day = LocalDate.of(2022, 1, 1);
+        when(csvDataReader.getSnapshot()).thenReturn(ExpectedTestDataPreparation.getSnapshot(1L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries(), ExpectedTestDataPreparation.getExpectedDOGESeries()));
 
-        CryptoStatistics stat = recommendationService.getHighestNormalizedRangeCryptoByDay(timestamp);
+        CryptoStatistics stat = recommendationService.getHighestNormalizedRangeCryptoByDay(day);
 
         assertNotNull(stat);
         assertEquals(ExpectedTestDataPreparation.BTC, stat.getCryptoName());
         assertEquals(new BigDecimal("2.00000"), stat.getNormalizedRange());
 
-        verify(csvDataReader, times(1)).getAllCryptoNames();
-        verify(csvDataReader, times(1)).getCryptoDataByName("BTC");
+        verify(csvDataReader, times(1)).getSnapshot();
         verifyNoMoreInteractions(csvDataReader);
     }
 
     @Test
     public void testGetHighestNormalizedRangeCryptoByDay_NoMatchingData() {
-        long timestamp = 1641009600000L;
+        LocalDate day = LocalDate.of(2022, 1, 1);
+        when(csvDataReader.getSnapshot()).thenReturn(ExpectedTestDataPreparation.getSnapshot(1L,
+                ColumnarPriceSeries.builder("BTC").build()));
 
-        when(csvDataReader.getAllCryptoNames()).thenReturn(Set.of("BTC"));
-        when(csvDataReader.getCryptoDataByName("BTC")).thenReturn(new ArrayList<>());
-
-        CryptoStatistics stat = recommendationService.getHighestNormalizedRangeCryptoByDay(timestamp);
+        CryptoStatistics stat = recommendationService.getHighestNormalizedRangeCryptoByDay(day);
 
         assertNull(stat);
 
-        verify(csvDataReader, times(1)).getAllCryptoNames();
-        verify(csvDataReader, times(1)).getCryptoDataByName("BTC");
+        verify(csvDataReader, times(1)).getSnapshot();
         verifyNoMoreInteractions(csvDataReader);
     }
+
+    @Test
+    public void testGetHighestNormalizedRangeCryptoByDay_UsesRangeOfThatDayOnly() {
+        var eth = ColumnarPriceSeries.builder("ETH")
+                .add(1641009600000L, new BigDecimal("100"))
+                .add(1641031200000L, new BigDecimal("110"))
+                .add(1641096000000L, new BigDecimal("300"))
+                .build();
+        when(csvDataReader.getSnapshot()).thenReturn(ExpectedTestDataPreparation.getSnapshot(1L,
+                eth, ExpectedTestDataPreparation.getExpectedDOGESeries()));
+
+        CryptoStatistics firstDay = recommendationService.getHighestNormalizedRangeCryptoByDay(LocalDate.of(2022, 1, 1));
+        CryptoStatistics secondDay = recommendationService.getHighestNormalizedRangeCryptoByDay(LocalDate.of(2022, 1, 2));
+        CryptoStatistics noData = recommendationService.getHighestNormalizedRangeCryptoByDay(LocalDate.of(2022, 1, 3));
+
+        assertEquals("ETH", firstDay.getCryptoName());
+        assertEquals(new BigDecimal("0.10000"), firstDay.getNormalizedRange());
+        assertEquals(new BigDecimal("100"), firstDay.getOldest());
+        assertEquals(new BigDecimal("110"), firstDay.getNewest());
+        assertEquals("ETH", secondDay.getCryptoName());
+        assertEquals(new BigDecimal("0.00000"), secondDay.getNormalizedRange());
+        assertNull(noData);
+    }
+
+    @Test
+    public void testGetHighestNormalizedRangeCryptoByDay_UpdatesLeadersOfChangedSeriesOnly() {
+        CryptoDataSnapshot firstLoad = ExpectedTestDataPreparation.getSnapshot(1L,
+                ExpectedTestDataPreparation.getExpectedBTCSeries(), ExpectedTestDataPreparation.getExpectedDOGESeries());
+        Map<String, PriceSeries> withoutBtc = new HashMap<>(firstLoad.getPriceSeriesByName());
+        withoutBtc.remove(ExpectedTestDataPreparation.BTC);
+        withoutBtc.put("ETH", ColumnarPriceSeries.builder("ETH").add(1641096000000L, 100, 0).build());
+        CryptoDataSnapshot btcRemoved = firstLoad.next(Instant.EPOCH, withoutBtc);
+        Map<String, PriceSeries> ethAppended = new HashMap<>(btcRemoved.getPriceSeriesByName());
+        ethAppended.put("ETH", ColumnarPriceSeries.builder("ETH")
+                .add(1641096000000L, 100, 0)
+                .add(1641099600000L, 150, 0)
+                .build());
+        CryptoDataSnapshot ethChanged = btcRemoved.next(Instant.EPOCH, ethAppended);
+        when(csvDataReader.getSnapshot()).thenReturn(firstLoad, btcRemoved, btcRemoved, ethChanged);
+        LocalDate firstDay = LocalDate.of(2022, 1, 1);
+        LocalDate secondDay = LocalDate.of(2022, 1, 2);
+
+        assertEquals(ExpectedTestDataPreparation.BTC,
+                recommendationService.getHighestNormalizedRangeCryptoByDay(firstDay).getCryptoName());
+        CryptoStatistics vacated = recommendationService.getHighestNormalizedRangeCryptoByDay(firstDay);
+        assertEquals(ExpectedTestDataPreparation.DOGE, vacated.getCryptoName());
+        assertEquals(new BigDecimal("0.00000"),
+                recommendationService.getHighestNormalizedRangeCryptoByDay(secondDay).getNormalizedRange());
+        assertSame(vacated, recommendationService.getHighestNormalizedRangeCryptoByDay(firstDay));
+        assertEquals(new BigDecimal("0.50000"),
+                recommendationService.getHighestNormalizedRangeCryptoByDay(secondDay).getNormalizedRange());
+    }
 }
@@ -0,0 +1,114 @@
+package com.xm.service;
+
+import com.xm.data.ColumnarPriceSeries;
+import com.xm.data.CryptoAnalytics;
+import com.xm.data.PriceSeries;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SeriesAnalyticsTest {
+
+    private static final long START = 1641009600000L;
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    public void testOf_MatchesTwoPassComputation() {
+        Random random = new Random(11);
+        var builder = ColumnarPriceSeries.builder("BTC");
+        long price = 4_000_000;
+        long timestamp = START;
+        for (int i = 0; i < 5_000; i++) {
+            price = Math.max(1, price + random.nextInt(40_001) - 20_000);
+            timestamp += 1 + random.nextInt(120_000);
+            builder.add(timestamp, price, 2);
+        }
+        PriceSeries priceSeries = builder.build();
+        int rollingWindow = 50;
+
+        CryptoAnalytics analytics = SeriesAnalytics.of("BTC", priceSeries, rollingWindow, Map.of());
+
+        int n = priceSeries.size();
+        double[] logReturns = new double[n - 1];
+        for (int i = 1; i < n; i++) {
+            logReturns[i - 1] = Math.log((double) priceSeries.getUnscaledPrice(i) / priceSeries.getUnscaledPrice(i - 1));
+        }
+        assertEquals(standardDeviation(logReturns, 0, logReturns.length),
+                analytics.getVolatility().doubleValue(), 1e-8);
+        double maxRolling = 0;
+        for (int end = rollingWindow; end <= logReturns.length; end++) {
+            maxRolling = Math.max(maxRolling, standardDeviation(logReturns, end - rollingWindow, end));
+        }
+        assertEquals(maxRolling, analytics.getMaxRollingVolatility().doubleValue(), 1e-8);
+        assertEquals(standardDeviation(logReturns, logReturns.length - rollingWindow, logReturns.length),
+                analytics.getRollingVolatility().doubleValue(), 1e-8);
+
+        BigDecimal maxDrawdown = BigDecimal.ZERO.setScale(SeriesAnalytics.RATIO_SCALE);
+        BigDecimal peak = priceSeries.getPrice(0);
+        double timeWeighted = 0;
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            peak = peak.max(priceSeries.getPrice(i));
+            maxDrawdown = maxDrawdown.max(peak.subtract(priceSeries.getPrice(i))
+                    .divide(peak, SeriesAnalytics.RATIO_SCALE, RoundingMode.HALF_UP));
+            sum += priceSeries.getPrice(i).doubleValue();
+            if (i + 1 < n) {
+                timeWeighted += priceSeries.getPrice(i).doubleValue()
+                        * (priceSeries.getTimestamp(i + 1) - priceSeries.getTimestamp(i));
+            }
+        }
+        assertEquals(maxDrawdown, analytics.getMaxDrawdown());
+        assertEquals(timeWeighted / (priceSeries.getNewestTimestamp() - priceSeries.getOldestTimestamp()),
+                analytics.getTwap().doubleValue(), 0.01);
+        assertEquals(sum / n, analytics.getMeanPrice().doubleValue(), 0.01);
+        assertEquals(n, analytics.getTicks());
+        assertEquals(priceSeries.getOldestTimestamp(), analytics.getFromTimestamp());
+        assertEquals(priceSeries.getNewestTimestamp(), analytics.getToTimestamp());
+    }
+
+    @Test
+    public void testOf_PeriodReturnsAndShortSeries() {
+        // 10, 20, 30, 15 at 04:00, 05:00, 06:00, 07:00
+        var builder = ColumnarPriceSeries.builder("ETH");
+        long[] prices = {10, 20, 30, 15};
+        for (int i = 0; i < prices.length; i++) {
+            builder.add(START + i * HOUR, prices[i], 0);
+        }
+        Map<String, Duration> periods = new LinkedHashMap<>();
+        periods.put("1h", Duration.ofHours(1));
+        periods.put("90m", Duration.ofMinutes(90));
+        periods.put("3h", Duration.ofHours(3));
+        periods.put("1d", Duration.ofDays(1));
+
+        CryptoAnalytics analytics = SeriesAnalytics.of("ETH", builder.build(), 5, periods);
+
+        assertEquals(Map.of("1h", new BigDecimal("-0.50000"), "90m", new BigDecimal("-0.25000"),
+                "3h", new BigDecimal("0.50000")), analytics.getReturns());
+        assertEquals(new BigDecimal("0.50000"), analytics.getMaxDrawdown());
+        assertEquals(new BigDecimal("20"), analytics.getTwap());
+        assertEquals(new BigDecimal("19"), analytics.getMeanPrice());
+        assertNotNull(analytics.getVolatility());
+        assertNull(analytics.getRollingVolatility());
+        assertNull(analytics.getMaxRollingVolatility());
+    }
+
+    private static double standardDeviation(double[] values, int from, int to) {
+        double mean = 0;
+        for (int i = from; i < to; i++) {
+            mean += values[i];
+        }
+        mean /= to - from;
+        double squares = 0;
+        for (int i = from; i < to; i++) {
+            squares += (values[i] - mean) * (values[i] - mean);
+        }
+        return Math.sqrt(squares / (to - from - 1));
+    }
+}
@@ -0,0 +1,214 @@
+package com.xm.store;
+
+import com.xm.data.ColumnarPriceSeries;
+import com.xm.data.DailyBars;
+import com.xm.data.PriceSeries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentStoreTest {
+
+    private static final int PAGE_TICKS = 4;
+    private static final int SEGMENT_TICKS = 12;
+    private static final long START = 1641009600000L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testAppend_MatchesInMemorySeriesAcrossPagesAndSegments() throws IOException {
+        PriceSeries expected = randomSeries(new Random(7), 101);
+        try (SegmentStore store = openStore()) {
+            PriceSeries stored = appendInBatches(store, expected, 9);
+
+            assertSameSeries(expected, stored);
+            assertSameWindows(expected, stored, new Random(11));
+            assertSameDailyBars(expected.getDailyBars(), stored.getDailyBars());
+        }
+    }
+
+    @Test
+    public void testOpen_RestoresSeriesFromSummariesOrSegments() throws IOException {
+        PriceSeries expected = randomSeries(new Random(3), 57);
+        try (SegmentStore store = openStore()) {
+            appendInBatches(store, expected, 5);
+        }
+
+        try (SegmentStore reopened = openStore()) {
+            PriceSeries stored = reopened.getPriceSeriesByName().get("BTC");
+            assertSameSeries(expected, stored);
+            assertSameWindows(expected, stored, new Random(5));
+            assertSameDailyBars(expected.getDailyBars(), stored.getDailyBars());
+        }
+
+        try (Stream<Path> summaries = Files.list(tempDir.resolve("BTC"))) {
+            for (Path summary : (Iterable<Path>) summaries.filter(path -> path.toString().endsWith(".idx"))::iterator) {
+                Files.delete(summary);
+            }
+        }
+        try (SegmentStore rescanned = openStore()) {
+            PriceSeries stored = rescanned.getPriceSeriesByName().get("BTC");
+            assertSameSeries(expected, stored);
+            assertSameWindows(expected, stored, new Random(5));
+            assertSameDailyBars(expected.getDailyBars(), stored.getDailyBars());
+        }
+    }
+
+    @Test
+    public void testAppend_FinerScaleStartsSegmentAndRescalesSeries() throws IOException {
+        try (SegmentStore store = openStore()) {
+            store.append("ETH", ColumnarPriceSeries.builder("ETH")
+                    .add(START, new BigDecimal("3715.3"))
+                    .add(START + 1, new BigDecimal("3700.1"))
+                    .build());
+            PriceSeries stored = store.append("ETH", ColumnarPriceSeries.builder("ETH")
+                    .add(START + 2, new BigDecimal("3701.125"))
+                    .build());
+
+            assertEquals(3, stored.getScale());
+            assertEquals(new BigDecimal("3715.300"), stored.getPrice(0));
+            assertEquals(new BigDecimal("3701.125"), stored.getPrice(2));
+            assertEquals(3700100L, stored.getMinUnscaledPrice());
+            assertEquals(3715300L, stored.getDailyBars().getHigh(0));
+        }
+
+        try (SegmentStore reopened = openStore()) {
+            PriceSeries stored = reopened.getPriceSeriesByName().get("ETH");
+            assertEquals(3, stored.getScale());
+            assertEquals(new BigDecimal("3715.300"), stored.getPrice(0));
+            assertEquals(3701125L, stored.getDailyBars().getClose(0));
+        }
+    }
+
+    @Test
+    public void testAppend_DropsTicksOlderThanNewestTick() throws IOException {
+        try (SegmentStore store = openStore()) {
+            store.append("BTC", ColumnarPriceSeries.builder("BTC").add(START + 10, 100, 0).build());
+            PriceSeries stored = store.append("BTC", ColumnarPriceSeries.builder("BTC")
+                    .add(START + 5, 90, 0)
+                    .add(START + 10, 101, 0)
+                    .add(START + 20, 110, 0)
+                    .build());
+
+            assertEquals(3, stored.size());
+            assertEquals(101L, stored.getUnscaledPrice(1));
+            assertEquals(START + 20, stored.getNewestTimestamp());
+        }
+    }
+
+    @Test
+    public void testOpen_TruncatesTornTickRecord() throws IOException {
+        PriceSeries expected = randomSeries(new Random(1), 6);
+        try (SegmentStore store = openStore()) {
+            store.append("BTC", expected);
+        }
+        Path segment = tempDir.resolve("BTC").resolve("0000000000.seg");
+        Files.write(segment, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (SegmentStore reopened = openStore()) {
+            assertSameSeries(expected, reopened.getPriceSeriesByName().get("BTC"));
+        }
+    }
+
+    @Test
+    public void testAppendToStoredSeries_MergesIntoInMemorySeries() throws IOException {
+        PriceSeries head = randomSeries(new Random(13), 41);
+        var tail = ColumnarPriceSeries.builder("BTC")
+                .add(head.getNewestTimestamp() + 1, 123_456, 3)
+                .add(head.getNewestTimestamp() + 2, 4_000_001, 2)
+                .build();
+        try (SegmentStore store = openStore()) {
+            PriceSeries stored = appendInBatches(store, head, 7);
+
+            PriceSeries merged = stored.append(tail);
+
+            assertSameSeries(head.append(tail), merged);
+            assertSameDailyBars(head.append(tail).getDailyBars(), merged.getDailyBars());
+            assertSameSeries(head, store.getPriceSeriesByName().get("BTC"));
+        }
+    }
+
+    @Test
+    public void testAppend_RejectsInvalidSymbol() throws IOException {
+        try (SegmentStore store = openStore()) {
+            var ticks = ColumnarPriceSeries.builder("..").add(START, 1, 0).build();
+
+            assertThrows(IllegalArgumentException.class, () -> store.append("..", ticks));
+            assertThrows(IllegalArgumentException.class, () -> store.append("BTC/../ETH", ticks));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new SegmentStore(tempDir, 4, 10, 16));
+    }
+
+    private SegmentStore openStore() throws IOException {
+        return new SegmentStore(tempDir, PAGE_TICKS, SEGMENT_TICKS, 8);
+    }
+
+    /**
+     * Ticks over several days with repeated timestamps, at two decimals.
+     */
+    private static PriceSeries randomSeries(Random random, int ticks) {
+        var builder = ColumnarPriceSeries.builder("BTC");
+        long timestamp = START;
+        for (int i = 0; i < ticks; i++) {
+            timestamp += random.nextInt(4) * TimeUnit.HOURS.toMillis(3);
+            builder.add(timestamp, 4_000_000 + random.nextInt(200_000), 2);
+        }
+        return builder.build();
+    }
+
+    private static PriceSeries appendInBatches(SegmentStore store, PriceSeries series, int batch) throws IOException {
+        PriceSeries stored = null;
+        for (int from = 0; from < series.size(); from += batch) {
+            stored = store.append(series.getSymbol(), series.subSeries(from, Math.min(series.size(), from + batch)));
+        }
+        return stored;
+    }
+
+    private static void assertSameSeries(PriceSeries expected, PriceSeries actual) {
+        assertEquals(expected.getScale(), actual.getScale());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getCryptoData(i), actual.getCryptoData(i));
+        }
+    }
+
+    private static void assertSameWindows(PriceSeries expected, PriceSeries actual, Random random) {
+        for (int i = 0; i < 200; i++) {
+            long from = expected.getOldestTimestamp() - 1 + random.nextInt(
+                    (int) (expected.getNewestTimestamp() - expected.getOldestTimestamp() + 2));
+            long to = from + random.nextInt((int) TimeUnit.DAYS.toMillis(3));
+            PriceSeries expectedWindow = expected.window(from, to);
+            PriceSeries actualWindow = actual.window(from, to);
+            assertEquals(expected.firstIndexAtOrAfter(from), actual.firstIndexAtOrAfter(from));
+            assertEquals(expectedWindow.size(), actualWindow.size());
+            if (!expectedWindow.isEmpty()) {
+                assertEquals(expectedWindow.getMinUnscaledPrice(), actualWindow.getMinUnscaledPrice());
+                assertEquals(expectedWindow.getMaxUnscaledPrice(), actualWindow.getMaxUnscaledPrice());
+                assertEquals(expectedWindow.getOldestTimestamp(), actualWindow.getOldestTimestamp());
+                assertEquals(expectedWindow.getNewestTimestamp(), actualWindow.getNewestTimestamp());
+            }
+        }
+    }
+
+    private static void assertSameDailyBars(DailyBars expected, DailyBars actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int bar = 0; bar < expected.size(); bar++) {
+            assertEquals(expected.getDay(bar), actual.getDay(bar));
+            assertEquals(expected.getOpen(bar), actual.getOpen(bar));
+            assertEquals(expected.getHigh(bar), actual.getHigh(bar));
+            assertEquals(expected.getLow(bar), actual.getLow(bar));
+            assertEquals(expected.getClose(bar), actual.getClose(bar));
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package com.xm.util;
 
+import com.xm.data.ColumnarPriceSeries;
 import com.xm.data.CryptoData;
+import com.xm.data.CryptoDataSnapshot;
+import com.xm.data.PriceSeries;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class ExpectedTestDataPreparation {
     public static final String BTC = "BTC";
@@ -53,4 +60,17 @@ public class ExpectedTestDataPreparation {
                         .build()
         );
     }
+
+    public static PriceSeries getExpectedBTCSeries() {
+        return ColumnarPriceSeries.fromCryptoData(BTC, getExpectedBTC());
+    }
+
+    public static PriceSeries getExpectedDOGESeries() {
+        return ColumnarPriceSeries.fromCryptoData(DOGE, getExpectedDOGE());
+    }
+
+    public static CryptoDataSnapshot getSnapshot(long version, PriceSeries... priceSeries) {
+        return new CryptoDataSnapshot(version, Instant.ofEpochMilli(1641049200000L), Arrays.stream(priceSeries)
+                .collect(Collectors.toMap(PriceSeries::getSymbol, Function.identity())));
+    }
 }